@@ -0,0 +1,98 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.persistence.FilePersistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Generator for test case catalogs used by the benchmarks.
+ *
+ * @author Lennard Scheffler
+ */
+final class Catalogs {
+
+    /**
+     * Number of rows in the table queried by the generated test cases.
+     */
+    static final int NUMBERS = 1000;
+
+    /**
+     * Number of test cases per generated package.
+     */
+    private static final int PACKAGE_SIZE = 100;
+
+    private static final String LS = System.getProperty("line.separator");
+
+    private Catalogs() {
+    }
+
+    /**
+     * Create a test case body with the given number of query lines.
+     */
+    static String body(String pack, String name, int queryLines) {
+        StringBuilder body = new StringBuilder()
+                .append("/**").append(LS)
+                .append("* @package ").append(pack).append(LS)
+                .append("* @test ").append(name).append(LS)
+                .append("* @description Generated benchmark test case").append(LS)
+                .append("*/").append(LS)
+                .append("SELECT CASE WHEN COUNT(*) > 0 THEN 'passed' ELSE 'failed' END AS result").append(LS)
+                .append("FROM numbers").append(LS)
+                .append("WHERE id > 0");
+
+        for (int i = 1; i < queryLines; i++) {
+            body.append(LS).append("AND id <> ").append(NUMBERS + i);
+        }
+
+        return body.append(";").toString();
+    }
+
+    /**
+     * Create a catalog of test cases querying the numbers table, spread over packages of 100 test cases.
+     */
+    static List<TestCase> createTestCases(int size) {
+        List<TestCase> testCases = new ArrayList<TestCase>(size);
+
+        for (int i = 0; i < size; i++) {
+            testCases.add(new TestCase(body("bench.p" + (i / PACKAGE_SIZE), "TestCase" + i, 1)));
+        }
+
+        return testCases;
+    }
+
+    /**
+     * Write a catalog of test cases into a new temporary project directory.
+     */
+    static Path createProject(int size) throws IOException {
+        Path root = Files.createTempDirectory("dbtest-bench");
+        FilePersistence persistence = new FilePersistence(root.toString());
+
+        for (TestCase testCase : createTestCases(size)) {
+            persistence.save(testCase);
+        }
+
+        return root;
+    }
+
+    /**
+     * Delete a temporary project directory recursively.
+     */
+    static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.ExecutionResult;
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.common.TestCase;
+import de.dbtest.common.TestSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sequential execution against an embedded in-memory database, so the result is dominated by the overhead of
+ * dbtest instead of the database.
+ *
+ * @author Lennard Scheffler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int catalogSize;
+
+    private H2Target target;
+    private TestCase testCase;
+    private TestSet testSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        target = new H2Target("execution", 1);
+        target.createNumbers(Catalogs.NUMBERS);
+
+        List<TestCase> testCases = Catalogs.createTestCases(catalogSize);
+        testCase = testCases.get(0);
+        testSet = new TestSet(testCases);
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.closeConnectionPool();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ExecutionResult executeTestCase() {
+        return testCase.executeWithResult(target);
+    }
+
+    @Benchmark
+    public ExecutionSummary executeTestSet() {
+        return testSet.execute(target, null);
+    }
+}
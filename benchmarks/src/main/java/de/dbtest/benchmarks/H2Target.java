@@ -0,0 +1,63 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.PoolConfiguration;
+import de.dbtest.common.UniversalDatabaseConnector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Target connecting to an embedded H2 in-memory database. The database lives as long as the JVM, so connections can be
+ * pooled and reused like connections to a remote target.
+ *
+ * @author Lennard Scheffler
+ */
+public class H2Target extends UniversalDatabaseConnector {
+
+    /**
+     * Create a target for a named in-memory database.
+     *
+     * @param database Name of the in-memory database.
+     * @param maxPoolSize Maximum number of pooled connections.
+     */
+    public H2Target(String database, int maxPoolSize) {
+        setDatabase(database);
+        setUsername("sa");
+        setPassword("");
+
+        PoolConfiguration pool = new PoolConfiguration();
+        pool.setMaxSize(maxPoolSize);
+        setPool(pool);
+    }
+
+    @Override
+    public Connection connect() {
+        try {
+            return DriverManager.getConnection("jdbc:h2:mem:" + getDatabase() + ";DB_CLOSE_DELAY=-1", getUsername(), getPassword());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public String getIdentifier() {
+        return "h2:mem:" + getDatabase();
+    }
+
+    /**
+     * Create the table queried by the benchmark test cases, containing the numbers from 1 to the given row count.
+     *
+     * @param rows Number of rows.
+     * @throws SQLException
+     */
+    public void createNumbers(int rows) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS numbers");
+            statement.execute("CREATE TABLE numbers (id INT PRIMARY KEY)");
+            statement.execute("INSERT INTO numbers SELECT x FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+    }
+}
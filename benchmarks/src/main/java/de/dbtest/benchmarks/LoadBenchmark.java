@@ -0,0 +1,46 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.persistence.FilePersistence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a whole project directory of test cases including their status information.
+ *
+ * @author Lennard Scheffler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    private Path root;
+    private FilePersistence persistence;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Catalogs.createProject(catalogSize);
+        persistence = new FilePersistence(root.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Catalogs.delete(root);
+    }
+
+    @Benchmark
+    public Set<TestCase> loadFromDirectory() throws IOException {
+        return persistence.loadFromDirectory(root.toString());
+    }
+}
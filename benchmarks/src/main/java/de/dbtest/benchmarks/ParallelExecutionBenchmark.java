@@ -0,0 +1,49 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.common.TestSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parallel execution against an embedded in-memory database with a connection pool sized to the degree of
+ * parallelism.
+ *
+ * @author Lennard Scheffler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class ParallelExecutionBenchmark {
+
+    @Param({"100", "1000"})
+    public int catalogSize;
+
+    @Param({"1", "4", "16"})
+    public int parallel;
+
+    private H2Target target;
+    private TestSet testSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        target = new H2Target("parallel", parallel);
+        target.createNumbers(Catalogs.NUMBERS);
+        testSet = new TestSet(Catalogs.createTestCases(catalogSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.closeConnectionPool();
+    }
+
+    @Benchmark
+    public ExecutionSummary executeParallel() {
+        return testSet.executeParallel(target, parallel, 1, TimeUnit.HOURS);
+    }
+}
@@ -0,0 +1,42 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.common.TestCaseDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a test case body into header, query and annotations.
+ *
+ * @author Lennard Scheffler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+    @Param({"1", "50", "500", "50000"})
+    public int queryLines;
+
+    private String body;
+
+    @Setup
+    public void setUp() {
+        body = Catalogs.body("bench.parsing", "TestCase", queryLines);
+    }
+
+    @Benchmark
+    public TestCaseDescriptor parseDescriptor() {
+        return TestCaseDescriptor.parse(body);
+    }
+
+    @Benchmark
+    public String createTestCase() {
+        TestCase testCase = new TestCase(body);
+        return testCase.getIdentifier() + testCase.getQuery();
+    }
+}
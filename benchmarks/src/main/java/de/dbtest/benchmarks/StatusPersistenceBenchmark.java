@@ -0,0 +1,68 @@
+package de.dbtest.benchmarks;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.persistence.FilePersistence;
+import de.dbtest.persistence.StatusItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures persisting the statuses of a whole catalog after a run and reading them back.
+ *
+ * @author Lennard Scheffler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class StatusPersistenceBenchmark {
+
+    private static final String TARGET = "h2:mem:bench";
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    private Path root;
+    private FilePersistence persistence;
+    private List<TestCase> testCases;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("dbtest-bench");
+        persistence = new FilePersistence(root.toString());
+        testCases = Catalogs.createTestCases(catalogSize);
+
+        for (TestCase testCase : testCases) {
+            testCase.setStatus(TARGET, TestCase.TCS_PASSED);
+        }
+
+        saveStatus();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        persistence.getStatusJournal().close();
+        Catalogs.delete(root);
+    }
+
+    @Benchmark
+    public void saveStatus() throws IOException {
+        for (TestCase testCase : testCases) {
+            persistence.saveStatus(testCase);
+        }
+        persistence.flushStatus();
+    }
+
+    @Benchmark
+    public Set<StatusItem> loadStatus() throws IOException {
+        return persistence.loadStatus();
+    }
+}
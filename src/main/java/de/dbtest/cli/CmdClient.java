@@ -1,16 +1,33 @@
 package de.dbtest.cli;
 
+import de.dbtest.common.Durations;
+import de.dbtest.common.ExecutionOptions;
+import de.dbtest.common.ExecutionResult;
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.common.SessionSetup;
 import de.dbtest.common.TestCase;
+import de.dbtest.common.TestSelection;
+import de.dbtest.common.TestSet;
+import de.dbtest.common.TestShard;
 import de.dbtest.common.UniversalDatabaseConnector;
+import de.dbtest.metrics.ExecutionMetrics;
+import de.dbtest.metrics.MetricsExporter;
 import de.dbtest.persistence.Configuration;
 import de.dbtest.persistence.FilePersistence;
+import de.dbtest.persistence.LoadResult;
 import de.dbtest.persistence.StatusItem;
 import org.apache.commons.cli.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Lennard Scheffler
@@ -19,6 +36,17 @@ public class CmdClient {
 
     private static final Logger LOGGER = LogManager.getLogger(CmdClient.class);
 
+    /* EXIT CODES *****************************************************************************************************/
+
+    public static final int EXIT_SUCCESS    = 0;
+    public static final int EXIT_FAILURE    = 1;
+    public static final int EXIT_ERROR      = 2;
+
+    /**
+     * Maximum age of a result before it is rerun with -rerun stale.
+     */
+    private static final String DEFAULT_MAX_AGE = "1d";
+
     public static void main(String[] args) throws ParseException {
 
         Options options = initOptions();
@@ -33,35 +61,72 @@ public class CmdClient {
 
         LOGGER.info("Project root is {}", projectRootDirectory);
 
-        if (commandLine.hasOption("execute") && commandLine.hasOption("case") && commandLine.hasOption("target")) {
-            String testCaseIdentifier = commandLine.getOptionValue("case");
-            String targetIdentifier = commandLine.getOptionValue("target");
-            LOGGER.info("Execute Test Case {} at target {}", testCaseIdentifier, targetIdentifier);
-            cmdExecuteTestCase(testCaseIdentifier, targetIdentifier, projectRootDirectory);
-        }
-        else if (commandLine.hasOption("execute") && commandLine.hasOption("set") && commandLine.hasOption("target")) {
-            String testSetIdentifier = commandLine.getOptionValue("set");
-            String targetIdentifier = commandLine.getOptionValue("target");
-            LOGGER.info("Execute Test Case Set {} at target {}", testSetIdentifier, targetIdentifier);
-            cmdExecuteTestSet(testSetIdentifier, targetIdentifier, projectRootDirectory);
-        }
-        else if (commandLine.hasOption("status") && commandLine.hasOption("case")) {
-            String testCaseIdentifier = commandLine.getOptionValue("case");
-            LOGGER.info("Get status of Test Case {}" + testCaseIdentifier);
-            cmdStatusCase(testCaseIdentifier, projectRootDirectory);
-        }
-        else if (commandLine.hasOption("status") && commandLine.hasOption("set")) {
-            String testSetIdentifier = commandLine.getOptionValue("set");
-            LOGGER.info("Get status of Test Case Set {}", testSetIdentifier);
-            cmdStatusSet(testSetIdentifier, projectRootDirectory);
-        }
-        else if (commandLine.hasOption("addtarget")) {
-            LOGGER.info("Add a new target.");
-            cmdAddTarget();
-        }
-        else {
-            LOGGER.info("No valid parameter combination.");
-            cmdHelp(options);
+        try {
+            if (commandLine.hasOption("execute") && commandLine.hasOption("set") && commandLine.hasOption("shards")
+                    && (commandLine.hasOption("target") || commandLine.hasOption("targets"))) {
+                String testSetIdentifier = commandLine.getOptionValue("set");
+                int shards = Integer.parseInt(commandLine.getOptionValue("shards"));
+                LOGGER.info("Execute Test Case Set {} with {} worker processes", testSetIdentifier, shards);
+                System.exit(cmdExecuteShards(args, shards, getTargetIdentifiers(commandLine), projectRootDirectory,
+                        commandLine.getOptionValue("shardby", TestShard.SHARD_BY_PACKAGE)));
+            }
+            else if (commandLine.hasOption("merge")) {
+                LOGGER.info("Merge status information of all shards.");
+                System.exit(exitCode(cmdMergeShards(projectRootDirectory)));
+            }
+            else if (commandLine.hasOption("execute") && commandLine.hasOption("case") && commandLine.hasOption("target")) {
+                String testCaseIdentifier = commandLine.getOptionValue("case");
+                String targetIdentifier = commandLine.getOptionValue("target");
+                LOGGER.info("Execute Test Case {} at target {}", testCaseIdentifier, targetIdentifier);
+                ExecutionSummary summary = cmdExecuteTestCase(testCaseIdentifier, targetIdentifier, projectRootDirectory, createExecutionOptions(commandLine));
+                writeMetrics(commandLine);
+                System.exit(exitCode(summary));
+            }
+            else if (commandLine.hasOption("execute") && commandLine.hasOption("set") && commandLine.hasOption("target")) {
+                String testSetIdentifier = commandLine.getOptionValue("set");
+                String targetIdentifier = commandLine.getOptionValue("target");
+                int parallel = Integer.parseInt(commandLine.getOptionValue("parallel", "1"));
+                long timeout = parseTimeout(commandLine);
+                ExecutionOptions executionOptions = createExecutionOptions(commandLine);
+                LOGGER.info("Execute Test Case Set {} at target {} with parallelism {}", testSetIdentifier, targetIdentifier, parallel);
+                ExecutionSummary summary = cmdExecuteTestSet(testSetIdentifier, targetIdentifier, projectRootDirectory, parallel, timeout, executionOptions);
+                writeMetrics(commandLine);
+                System.exit(exitCode(summary));
+            }
+            else if (commandLine.hasOption("execute") && commandLine.hasOption("set") && commandLine.hasOption("targets")) {
+                String testSetIdentifier = commandLine.getOptionValue("set");
+                String targetIdentifiers = commandLine.getOptionValue("targets");
+                int parallel = Integer.parseInt(commandLine.getOptionValue("parallel", "1"));
+                long timeout = parseTimeout(commandLine);
+                ExecutionOptions executionOptions = createExecutionOptions(commandLine);
+                LOGGER.info("Execute Test Case Set {} at targets {} with parallelism {}", testSetIdentifier, targetIdentifiers, parallel);
+                Map<String, ExecutionSummary> summaries = cmdExecuteTestSetOnTargets(testSetIdentifier, targetIdentifiers, projectRootDirectory, parallel, timeout, executionOptions);
+                writeMetrics(commandLine);
+                Set<String> requestedTargets = getTargetIdentifiers(commandLine);
+                System.exit(exitCode(summaries, (requestedTargets == null) ? 0 : requestedTargets.size()));
+            }
+            else if (commandLine.hasOption("status") && commandLine.hasOption("case")) {
+                String testCaseIdentifier = commandLine.getOptionValue("case");
+                LOGGER.info("Get status of Test Case {}" + testCaseIdentifier);
+                cmdStatusCase(testCaseIdentifier, projectRootDirectory);
+            }
+            else if (commandLine.hasOption("status") && commandLine.hasOption("set")) {
+                String testSetIdentifier = commandLine.getOptionValue("set");
+                LOGGER.info("Get status of Test Case Set {}", testSetIdentifier);
+                cmdStatusSet(testSetIdentifier, projectRootDirectory);
+            }
+            else if (commandLine.hasOption("addtarget")) {
+                LOGGER.info("Add a new target.");
+                cmdAddTarget();
+            }
+            else {
+                LOGGER.info("No valid parameter combination.");
+                cmdHelp(options);
+            }
+        } catch (IllegalArgumentException e) {
+            // Invalid option values, e.g. an unreadable setup file, fail the command before anything is executed.
+            LOGGER.error("Invalid parameter: {}", e.getMessage());
+            System.exit(EXIT_ERROR);
         }
 
     }
@@ -75,69 +140,528 @@ public class CmdClient {
         options.addOption("case", true, "Execute a single test case or a set of test cases.");
         options.addOption("set", true, "Execute multiple test cases within a test set.");
         options.addOption("target", true, "Target identifier.");
+        options.addOption("targets", true, "Comma separated list of target identifiers or \"all\" for all configured targets.");
         options.addOption("root", true, "Define the project root directory.");
+        options.addOption("parallel", true, "Number of test cases executed at the same time (default 1).");
+        options.addOption("adaptive", true, "Adapt the number of test cases executed at the same time at each target to its latency and error rate, between the given minimum and -parallel.");
+        options.addOption("timeout", true, "Maximum time to wait for a set of test cases to finish, e.g. 30m (default unit seconds).");
+        options.addOption("testtimeout", true, "Default maximum time a single test case may run, e.g. 30s (default unit seconds).");
+        options.addOption("batch", true, "Maximum number of single mode test cases executed within one statement at a target (default 1, no batching).");
+        options.addOption("setup", true, "SQL file executed once on each connection to a target before test cases are executed on it, e.g. for creating shared temporary tables.");
+        options.addOption("loadparallel", true, "Number of threads reading the test case files of a set (default one per available processor).");
+        options.addOption("snapshot", false, "Execute the test cases of a set within a single read-only snapshot transaction at each target, so all of them see consistent data.");
+        options.addOption("fetchsize", true, "Number of rows fetched per round trip for test cases in row mode (default " + ExecutionOptions.DEFAULT_FETCH_SIZE + ").");
+        options.addOption("rerun", true, "Execute only test cases of a set that \"failed\" (including stopped, timed out and skipped), that are \"new\" at the target or whose result is \"stale\".");
+        options.addOption("maxage", true, "Maximum age of a result for -rerun stale, e.g. 12h (default " + DEFAULT_MAX_AGE + ", default unit seconds).");
+        options.addOption("cache", false, "Skip test cases whose cached result at the target has not expired yet, see @cacheTtl.");
+        options.addOption("cachettl", true, "Default time a result is cached with -cache, e.g. 15m (default unit seconds). Without it only test cases declaring @cacheTtl are cached.");
+        options.addOption("metrics", true, "Write execution metrics to a file after the run, as JSON for *.json files, otherwise in Prometheus text format.");
+        options.addOption("shards", true, "Split a test set into shards, each executed by a worker process, and merge their status information afterwards.");
+        options.addOption("shardby", true, "Assign test cases to shards by \"" + TestShard.SHARD_BY_PACKAGE + "\" or by \"" + TestShard.SHARD_BY_HASH + "\" of their identifier (default " + TestShard.SHARD_BY_PACKAGE + ").");
+        options.addOption("worker", true, "Execute only the shard index/count of a test set, e.g. 0/4, and keep its status information apart until -merge.");
+        options.addOption("merge", false, "Merge the status information of all shards executed with -worker into the status file.");
 
         return options;
     }
 
+    /**
+     * Get the timeout of a test case set execution from the command line.
+     *
+     * @param commandLine Parsed command line.
+     * @return Timeout in milliseconds or Long.MAX_VALUE if no timeout has been defined.
+     */
+    public static long parseTimeout(CommandLine commandLine) {
+        if (commandLine.hasOption("timeout")) {
+            return Durations.parse(commandLine.getOptionValue("timeout"));
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Create the execution options applied to all test cases of a set from the command line.
+     *
+     * @param commandLine Parsed command line.
+     * @return Execution options.
+     * @throws IllegalArgumentException if an option value is invalid or the setup file or result cache cannot be read.
+     */
+    public static ExecutionOptions createExecutionOptions(CommandLine commandLine) {
+        ExecutionOptions executionOptions = new ExecutionOptions();
+
+        if (commandLine.hasOption("testtimeout")) {
+            executionOptions.setTestTimeout(Durations.parse(commandLine.getOptionValue("testtimeout")));
+        }
+
+        if (commandLine.hasOption("rerun")) {
+            long maxAge = Durations.parse(commandLine.getOptionValue("maxage", DEFAULT_MAX_AGE));
+            executionOptions.setSelection(new TestSelection(commandLine.getOptionValue("rerun"), maxAge));
+        }
+
+        if (commandLine.hasOption("cache")) {
+            FilePersistence persistence = new FilePersistence(commandLine.getOptionValue("root", System.getProperty("user.dir")));
+            try {
+                executionOptions.setCache(persistence.getResultCache());
+            } catch (IOException e) {
+                // Executing without the cache would silently execute all cached test cases again.
+                throw new IllegalArgumentException("Result cache could not be read: " + e.getMessage(), e);
+            }
+        }
+
+        if (commandLine.hasOption("cachettl")) {
+            executionOptions.setCacheTtl(Durations.parse(commandLine.getOptionValue("cachettl")));
+        }
+
+        if (commandLine.hasOption("batch")) {
+            executionOptions.setBatchSize(Integer.parseInt(commandLine.getOptionValue("batch")));
+        }
+
+        if (commandLine.hasOption("setup")) {
+            try {
+                executionOptions.setSetup(SessionSetup.load(Paths.get(commandLine.getOptionValue("setup"))));
+            } catch (IOException e) {
+                // Executing without the setup would fail the test cases relying on it.
+                throw new IllegalArgumentException("Setup file could not be read: " + commandLine.getOptionValue("setup"), e);
+            }
+        }
+
+        if (commandLine.hasOption("loadparallel")) {
+            executionOptions.setLoadParallelism(Integer.parseInt(commandLine.getOptionValue("loadparallel")));
+        }
+
+        if (commandLine.hasOption("snapshot")) {
+            executionOptions.setSnapshot(true);
+        }
+
+        if (commandLine.hasOption("fetchsize")) {
+            executionOptions.setFetchSize(Integer.parseInt(commandLine.getOptionValue("fetchsize")));
+        }
+
+        if (commandLine.hasOption("adaptive")) {
+            executionOptions.setMinParallel(Math.max(1, Integer.parseInt(commandLine.getOptionValue("adaptive"))));
+        }
+
+        if (commandLine.hasOption("worker")) {
+            executionOptions.setShard(TestShard.parse(commandLine.getOptionValue("worker"),
+                    commandLine.getOptionValue("shardby", TestShard.SHARD_BY_PACKAGE)));
+        }
+
+        return executionOptions;
+    }
+
+    /**
+     * Persist the result cache of the execution options, if results are cached.
+     *
+     * @param executionOptions Execution options of the run.
+     */
+    public static void saveResultCache(ExecutionOptions executionOptions) {
+        if (executionOptions.getCache() != null) {
+            try {
+                executionOptions.getCache().save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Write the metrics collected during the run to the file given on the command line, if any.
+     *
+     * @param commandLine Parsed command line.
+     */
+    public static void writeMetrics(CommandLine commandLine) {
+        if (commandLine.hasOption("metrics")) {
+            try {
+                MetricsExporter.write(ExecutionMetrics.getGlobal(), Paths.get(commandLine.getOptionValue("metrics")));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     public static void cmdHelp(Options options) {
         HelpFormatter helpFormatter = new HelpFormatter();
         helpFormatter.printHelp("dwplus [options]", options);
     }
 
 
-    public static void cmdExecuteTestCase(String testCaseIdentifier, String targetIdentifier, String projectRootDirectory) {
+    public static ExecutionSummary cmdExecuteTestCase(String testCaseIdentifier, String targetIdentifier, String projectRootDirectory) {
+        return cmdExecuteTestCase(testCaseIdentifier, targetIdentifier, projectRootDirectory, new ExecutionOptions());
+    }
+
+    /**
+     * Execute a single test case at a target. The result is printed and persisted, for a failed test case the columns
+     * of the first row that did not pass are printed as well.
+     *
+     * @param testCaseIdentifier Full qualified test case name (FQTN).
+     * @param targetIdentifier Identifier of the target.
+     * @param projectRootDirectory Project root directory.
+     * @param executionOptions Execution options applied to the test case.
+     * @return Summary of the execution result or null if the test case could not be executed.
+     */
+    public static ExecutionSummary cmdExecuteTestCase(String testCaseIdentifier, String targetIdentifier, String projectRootDirectory,
+                                                      ExecutionOptions executionOptions) {
+
+        Configuration config = null;
 
         try {
             FilePersistence persistence = new FilePersistence(projectRootDirectory);
 
-            Configuration config = persistence.loadConfiguration();
+            config = persistence.loadConfiguration();
             UniversalDatabaseConnector target = config.getTarget(targetIdentifier);
             TestCase testCase = persistence.load(testCaseIdentifier);
 
-            testCase.execute(target);
+            long start = System.currentTimeMillis();
+            ExecutionResult result = testCase.executeWithResult(target, executionOptions);
+
+            ExecutionSummary summary = new ExecutionSummary();
+            summary.record(result.getStatus());
+            summary.setWallTime(System.currentTimeMillis() - start);
+
             printTestResult(testCase, target);
-            persistence.saveStatus(testCase);
+            printDiagnostics(result);
+            persistence.saveStatus(testCase, target.getIdentifier());
+            persistence.flushStatus();
+            saveResultCache(executionOptions);
+
+            return summary;
         }
         catch (Exception e) {
             e.printStackTrace();
         }
+        finally {
+            // The connections are closed even if the execution failed.
+            if (config != null) {
+                config.closeConnectionPools();
+            }
+        }
+
+        return null;
+    }
+
+    public static ExecutionSummary cmdExecuteTestSet(String testSetIdentifier, String targetIdentifier, String projectRootDirectory) {
+        return cmdExecuteTestSet(testSetIdentifier, targetIdentifier, projectRootDirectory, 1, Long.MAX_VALUE, new ExecutionOptions());
     }
 
-    public static void cmdExecuteTestSet(String testSetIdentifier, String targetIdentifier, String projectRootDirectory) {
+    /**
+     * Execute all test cases of a package at a target. The result of each test case is printed and persisted as soon
+     * as the test case has been executed.
+     *
+     * @param testSetIdentifier Full qualified package name (FQPN).
+     * @param targetIdentifier Identifier of the target.
+     * @param projectRootDirectory Project root directory.
+     * @param parallel Number of test cases executed at the same time.
+     * @param timeout Maximum time in milliseconds to wait for all test cases to finish.
+     * @param executionOptions Execution options applied to all test cases.
+     * @return Summary of the execution results or null if the test cases could not be executed.
+     */
+    public static ExecutionSummary cmdExecuteTestSet(String testSetIdentifier, String targetIdentifier, String projectRootDirectory,
+                                                     int parallel, long timeout, ExecutionOptions executionOptions) {
+
+        Configuration config = null;
 
         try {
             FilePersistence persistence = new FilePersistence(projectRootDirectory);
 
-            Configuration config = persistence.loadConfiguration();
+            config = persistence.loadConfiguration();
             UniversalDatabaseConnector target = config.getTarget(targetIdentifier);
+            openStatusShard(persistence, executionOptions);
 
+            TestSet testSet = loadTestSet(persistence, testSetIdentifier, executionOptions);
 
-            Set<TestCase> testCases = persistence.loadMultiple(testSetIdentifier);
+            ExecutionSummary summary = testSet.executeParallel(target, parallel, timeout, TimeUnit.MILLISECONDS, t -> {
+                printTestResult(t, target);
+                try {
+                    persistence.saveStatus(t, target.getIdentifier());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            persistence.flushStatus();
+            saveResultCache(executionOptions);
+
+            printSummary(summary);
+            return summary;
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+        finally {
+            // The connections are closed even if the execution failed.
+            if (config != null) {
+                config.closeConnectionPools();
+            }
+        }
 
-            for (TestCase t : testCases) {
-                t.execute(target);
+        return null;
+    }
+
+    /**
+     * Execute all test cases of a package at multiple targets at the same time. The test cases are loaded once and
+     * shared across all targets. The result of each test case is printed and persisted as soon as the test case has
+     * been executed at a target.
+     *
+     * @param testSetIdentifier Full qualified package name (FQPN).
+     * @param targetIdentifiers Comma separated list of target identifiers or "all" for all configured targets.
+     * @param projectRootDirectory Project root directory.
+     * @param parallel Number of test cases executed at the same time at each target.
+     * @param timeout Maximum time in milliseconds to wait for all test cases to finish at each target.
+     * @param executionOptions Execution options applied to all test cases.
+     * @return Summary of the execution results mapped by target identifier or null if the test cases could not be
+     * executed.
+     */
+    public static Map<String, ExecutionSummary> cmdExecuteTestSetOnTargets(String testSetIdentifier, String targetIdentifiers,
+                                                                           String projectRootDirectory, int parallel, long timeout,
+                                                                           ExecutionOptions executionOptions) {
+
+        Configuration config = null;
+
+        try {
+            FilePersistence persistence = new FilePersistence(projectRootDirectory);
+
+            config = persistence.loadConfiguration();
+
+            Set<UniversalDatabaseConnector> targets = new HashSet<UniversalDatabaseConnector>();
+            if (targetIdentifiers.equalsIgnoreCase("all")) {
+                targets.addAll(config.getTargets());
+            }
+            else {
+                for (String targetIdentifier : targetIdentifiers.split(",")) {
+                    UniversalDatabaseConnector target = config.getTarget(targetIdentifier.trim());
+                    if (target == null) {
+                        throw new IllegalArgumentException("Unknown target " + targetIdentifier);
+                    }
+                    targets.add(target);
+                }
+            }
+            openStatusShard(persistence, executionOptions);
+
+            TestSet testSet = loadTestSet(persistence, testSetIdentifier, executionOptions);
+
+            Map<String, ExecutionSummary> summaries = testSet.executeOnTargets(targets, parallel, timeout, TimeUnit.MILLISECONDS, (t, target) -> {
                 printTestResult(t, target);
-                persistence.saveStatus(t);
+                try {
+                    persistence.saveStatus(t, target.getIdentifier());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            persistence.flushStatus();
+            saveResultCache(executionOptions);
+
+            for (Map.Entry<String, ExecutionSummary> summary : summaries.entrySet()) {
+                System.out.print("Target [" + summary.getKey() + "]: ");
+                printSummary(summary.getValue());
+            }
+
+            return summaries;
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+        finally {
+            // The connections are closed even if the execution failed.
+            if (config != null) {
+                config.closeConnectionPools();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Execute a test set with one worker process per shard. The workers are started with the same command line and
+     * their status information is merged into the status file once all of them have finished.
+     *
+     * @param args Command line arguments.
+     * @param shards Number of shards.
+     * @param targetIdentifiers Identifiers of the targets the set is executed at, null for all configured targets.
+     * @param projectRootDirectory Project root directory.
+     * @param shardBy Sharding mode (see TestShard.SHARD_BY_*).
+     * @return Highest exit code of all workers and of the merged results.
+     */
+    public static int cmdExecuteShards(String[] args, int shards, Set<String> targetIdentifiers, String projectRootDirectory,
+                                       String shardBy) {
+        try {
+            // Fail before starting any worker, if the shards are invalid.
+            new TestShard(0, shards, shardBy);
+
+            FilePersistence persistence = new FilePersistence(projectRootDirectory);
+
+            long start = System.currentTimeMillis();
+            int workerExitCode = new ShardCoordinator(persistence, shards).execute(args);
+
+            // Only the results of this run at the requested targets decide about its success.
+            Map<String, ExecutionSummary> summaries = ShardCoordinator.merge(persistence, targetIdentifiers, start);
+            for (Map.Entry<String, ExecutionSummary> summary : summaries.entrySet()) {
+                summary.getValue().setWallTime(System.currentTimeMillis() - start);
+                System.out.print("Target [" + summary.getKey() + "]: ");
+                printSummary(summary.getValue());
             }
+
+            return Math.max(workerExitCode, exitCode(summaries));
         }
         catch (Exception e) {
             e.printStackTrace();
         }
 
+        return EXIT_ERROR;
+    }
+
+    /**
+     * Merge the status information of all shards executed with -worker into the status file, e.g. after the workers
+     * finished on multiple machines sharing the project root directory.
+     *
+     * @param projectRootDirectory Project root directory.
+     * @return Summary of the merged status information mapped by target identifier or null if the status information
+     * could not be merged.
+     */
+    public static Map<String, ExecutionSummary> cmdMergeShards(String projectRootDirectory) {
+        try {
+            Map<String, ExecutionSummary> summaries = ShardCoordinator.merge(new FilePersistence(projectRootDirectory));
+            for (Map.Entry<String, ExecutionSummary> summary : summaries.entrySet()) {
+                System.out.print("Target [" + summary.getKey() + "]: ");
+                printSummary(summary.getValue());
+            }
+
+            return summaries;
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the identifiers of the targets given by -target or -targets on the command line.
+     *
+     * @param commandLine Parsed command line.
+     * @return Target identifiers or null if all configured targets are used.
+     */
+    private static Set<String> getTargetIdentifiers(CommandLine commandLine) {
+        if (commandLine.hasOption("target")) {
+            return Collections.singleton(commandLine.getOptionValue("target"));
+        }
+
+        String targetIdentifiers = commandLine.getOptionValue("targets");
+        if (targetIdentifiers.equalsIgnoreCase("all")) {
+            return null;
+        }
+
+        Set<String> identifiers = new HashSet<String>();
+        for (String targetIdentifier : targetIdentifiers.split(",")) {
+            identifiers.add(targetIdentifier.trim());
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Load the test cases of a package with the load parallelism of the execution options. A test case file that
+     * cannot be read fails the execution, as the set would pass without the test case.
+     *
+     * @return Test set with the execution options applied.
+     * @throws IOException If the package or one of its test case files could not be read.
+     */
+    static TestSet loadTestSet(FilePersistence persistence, String testSetIdentifier, ExecutionOptions executionOptions)
+            throws IOException {
+        if (executionOptions.getLoadParallelism() > 0) {
+            persistence.setLoadParallelism(executionOptions.getLoadParallelism());
+        }
+
+        LoadResult result = persistence.loadSet(testSetIdentifier);
+        if (result.hasErrors()) {
+            throw new IOException(result.getErrors().size() + " test case files or directories of " + testSetIdentifier
+                    + " could not be read, first " + result.getErrors().keySet().iterator().next());
+        }
+
+        TestSet testSet = new TestSet(result.getTestCases());
+        testSet.setOptions(executionOptions);
+        return testSet;
+    }
+
+    /**
+     * Keep the status information of a worker apart from the status file, if only a shard of the set is executed.
+     */
+    private static void openStatusShard(FilePersistence persistence, ExecutionOptions executionOptions) throws IOException {
+        TestShard shard = executionOptions.getShard();
+        if (shard != null) {
+            persistence.openStatusShard(shard.getIndex(), shard.getCount());
+        }
+    }
+
+    public static void printSummary(ExecutionSummary summary) {
+        System.out.println(summary);
+    }
+
+    /**
+     * Determine the exit code of the command line tool from the execution summary.
+     *
+     * @param summary Summary of the execution, null if the execution failed with an error.
+     * @return Exit code indicating success, failed test cases or an error.
+     */
+    public static int exitCode(ExecutionSummary summary) {
+        if (summary == null || summary.getError() != null) {
+            return EXIT_ERROR;
+        }
+
+        return summary.isSuccessful() ? EXIT_SUCCESS : EXIT_FAILURE;
+    }
+
+    /**
+     * Determine the exit code of the command line tool from the execution summaries of multiple targets.
+     *
+     * @param summaries Summaries of the execution mapped by target, null if the execution failed with an error.
+     * @return Exit code indicating success, failed test cases at any target or an error.
+     */
+    public static int exitCode(Map<String, ExecutionSummary> summaries) {
+        return exitCode(summaries, 0);
+    }
+
+    /**
+     * Determine the exit code of the command line tool from the execution summaries of the requested targets. A
+     * target without summary has not been executed completely.
+     *
+     * @param summaries Summaries of the execution mapped by target, null if the execution failed with an error.
+     * @param targets Number of requested targets.
+     * @return Exit code indicating success, failed test cases at any target or an error.
+     */
+    public static int exitCode(Map<String, ExecutionSummary> summaries, int targets) {
+        if (summaries == null || summaries.size() < targets) {
+            return EXIT_ERROR;
+        }
+
+        int exitCode = EXIT_SUCCESS;
+        for (ExecutionSummary summary : summaries.values()) {
+            exitCode = Math.max(exitCode, exitCode(summary));
+        }
+
+        return exitCode;
     }
 
     public static void printTestResult(TestCase testCase, UniversalDatabaseConnector target) {
         printTestStatus(testCase.getIdentifier(), target.getIdentifier(), testCase.getStatus(target.getIdentifier()));
     }
 
+    /**
+     * Print the columns of the first row that did not pass, if any.
+     *
+     * @param result Result of a test case execution.
+     */
+    public static void printDiagnostics(ExecutionResult result) {
+        for (Map.Entry<String, String> column : result.getDiagnostics().entrySet()) {
+            System.out.println("    " + column.getKey() + " = " + column.getValue());
+        }
+    }
+
     public static void printTestStatus(StatusItem statusItem) {
         printTestStatus(statusItem.getTestCaseIdentifier(), statusItem.getTargetIdentifier(), statusItem.getStatus());
     }
 
     public static void printTestStatus(String testCaseIdentifier, String targetIdentifier, int statusIndicator) {
         String message = "Test case [" + testCaseIdentifier + "] executed at target [" + targetIdentifier + "]: " + translateStatusIndicator(statusIndicator);
-        if (statusIndicator == TestCase.TCS_FAILED || statusIndicator == TestCase.TCS_STOPPED) {
+        if (statusIndicator == TestCase.TCS_FAILED || statusIndicator == TestCase.TCS_STOPPED || statusIndicator == TestCase.TCS_TIMEOUT
+                || statusIndicator == TestCase.TCS_SKIPPED) {
             System.out.println(message);
         }
         else {
@@ -193,6 +717,12 @@ public class CmdClient {
         if (statusIndicator == TestCase.TCS_STOPPED)
             return "STOPPED";
 
+        if (statusIndicator == TestCase.TCS_TIMEOUT)
+            return "TIMEOUT";
+
+        if (statusIndicator == TestCase.TCS_SKIPPED)
+            return "SKIPPED";
+
 
         return "UNKNOWN";
 
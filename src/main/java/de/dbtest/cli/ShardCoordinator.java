@@ -0,0 +1,187 @@
+package de.dbtest.cli;
+
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.persistence.FilePersistence;
+import de.dbtest.persistence.StatusItem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The shard coordinator splits the execution of a test set across multiple worker processes. Each worker is a separate
+ * JVM running the command line client with the original options and "-worker index/count", so it executes only the
+ * test cases of its shard (see TestShard). Workers write their status items to a journal of their own within the shard
+ * directory of the project, the coordinator merges all shard journals into the status file with a single write once
+ * the workers have finished.<br />
+ * Workers on other machines sharing the project root directory can be started with "-worker index/count" by hand,
+ * their status items are merged with "-merge".
+ *
+ * @author Lennard Scheffler
+ */
+public class ShardCoordinator {
+
+    private static final Logger LOGGER = LogManager.getLogger(ShardCoordinator.class);
+
+    /**
+     * Options only meant for the coordinator, they are not passed on to the workers. Metrics are collected per JVM, so
+     * each worker would overwrite the file of the others.
+     */
+    private static final String[] COORDINATOR_OPTIONS = { "shards", "metrics" };
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final FilePersistence persistence;
+    private final int count;
+
+    /**
+     * @param persistence Persistence of the project root directory shared with the workers.
+     * @param count Number of shards, each executed by a worker process.
+     */
+    public ShardCoordinator(FilePersistence persistence, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid number of shards: " + count);
+        }
+
+        this.persistence = persistence;
+        this.count = count;
+    }
+
+    /**
+     * Start a worker process for each shard, wait for all of them to finish and merge their status items into the
+     * status file.
+     *
+     * @param args Arguments of the command line client, the workers are started with the same arguments.
+     * @return Highest exit code of all workers.
+     * @throws IOException If a worker could not be started or the status items could not be merged.
+     * @throws InterruptedException If the coordinator has been interrupted while waiting for the workers.
+     */
+    public int execute(String[] args) throws IOException, InterruptedException {
+        persistence.clearStatusShards();
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("java.class.path");
+
+        List<Process> workers = new ArrayList<Process>();
+        try {
+            for (int i = 0; i < count; i++) {
+                List<String> command = new ArrayList<String>();
+                command.add(java);
+                command.add("-cp");
+                command.add(classPath);
+                command.add(CmdClient.class.getName());
+                command.addAll(getWorkerArguments(args, i, count));
+
+                LOGGER.info("Starting worker for shard {}/{}", i, count);
+                workers.add(new ProcessBuilder(command).inheritIO().start());
+            }
+        } catch (IOException e) {
+            for (Process worker : workers) {
+                worker.destroy();
+            }
+            throw e;
+        }
+
+        int exitCode = CmdClient.EXIT_SUCCESS;
+        for (int i = 0; i < workers.size(); i++) {
+            int workerExitCode = workers.get(i).waitFor();
+            LOGGER.info("Worker for shard {}/{} finished with exit code {}", i, count, workerExitCode);
+            exitCode = Math.max(exitCode, workerExitCode);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Merge the status items of all shards into the status file and summarize them by target.
+     *
+     * @param persistence Persistence of the project root directory.
+     * @return Summary of the merged status items mapped by target identifier.
+     * @throws IOException If the status items could not be merged.
+     */
+    public static Map<String, ExecutionSummary> merge(FilePersistence persistence) throws IOException {
+        return merge(persistence, null, 0);
+    }
+
+    /**
+     * Merge the status items of all shards into the status file and summarize the status items of a single run by
+     * target.
+     *
+     * @param persistence Persistence of the project root directory.
+     * @param targetIdentifiers Identifiers of the targets of the run, null for all targets.
+     * @param since Start of the run in milliseconds since epoch, older status items are not summarized.
+     * @return Summary of the merged status items mapped by target identifier.
+     * @throws IOException If the status items could not be merged.
+     */
+    public static Map<String, ExecutionSummary> merge(FilePersistence persistence, Set<String> targetIdentifiers, long since)
+            throws IOException {
+        return summarize(persistence.mergeStatusShards(), targetIdentifiers, since);
+    }
+
+    /**
+     * Summarize status items by target.
+     *
+     * @param statusItems Status items of an execution.
+     * @param targetIdentifiers Identifiers of the targets to be summarized, null for all targets.
+     * @param since Status items set before this point in time (milliseconds since epoch) are not summarized.
+     * @return Summary mapped by target identifier.
+     */
+    public static Map<String, ExecutionSummary> summarize(Set<StatusItem> statusItems, Set<String> targetIdentifiers, long since) {
+        Map<String, ExecutionSummary> summaries = new TreeMap<String, ExecutionSummary>();
+
+        for (StatusItem statusItem : statusItems) {
+            if (statusItem.getTimestamp() < since
+                    || (targetIdentifiers != null && !targetIdentifiers.contains(statusItem.getTargetIdentifier()))) {
+                continue;
+            }
+
+            summaries.computeIfAbsent(statusItem.getTargetIdentifier(), k -> new ExecutionSummary()).record(statusItem.getStatus());
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Get the arguments a worker is started with, the arguments of the coordinator without the coordinator options
+     * and with the shard of the worker.
+     *
+     * @param args Arguments of the coordinator.
+     * @param index Index of the shard of the worker.
+     * @param count Number of shards.
+     * @return Arguments of the worker.
+     */
+    public static List<String> getWorkerArguments(String[] args, int index, int count) {
+        List<String> workerArgs = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i].replaceFirst("^--?", "");
+            boolean coordinatorOption = false;
+
+            for (String o : COORDINATOR_OPTIONS) {
+                if (option.equals(o)) {
+                    // Skip the value of the option as well.
+                    coordinatorOption = true;
+                    i++;
+                } else if (option.startsWith(o + "=")) {
+                    coordinatorOption = true;
+                }
+            }
+
+            if (!coordinatorOption) {
+                workerArgs.add(args[i]);
+            }
+        }
+
+        workerArgs.add("-worker");
+        workerArgs.add(index + "/" + count);
+
+        return workerArgs;
+    }
+}
@@ -0,0 +1,313 @@
+package de.dbtest.common;
+
+import de.dbtest.metrics.TargetMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The batch executor combines multiple test cases into a single statement, so they are executed at a target within
+ * one round trip. The query of each test case is wrapped into a labeled subquery and the subqueries are combined by
+ * UNION ALL:
+ * <pre>
+ * SELECT 0 AS dbtest_batch_index, bi.result FROM (query of test case 0) bi
+ * UNION ALL
+ * SELECT 1 AS dbtest_batch_index, bi.result FROM (query of test case 1) bi
+ * </pre>
+ * The label is used for assigning the returned rows to the test cases. Only test cases evaluated in single mode can
+ * be batched. If the batch fails with an SQL error, the test cases are executed one by one, so the error is assigned
+ * to the test case causing it. A batch exceeding its timeout is not repeated.
+ *
+ * @author Lennard Scheffler
+ */
+public class BatchExecutor {
+
+    /**
+     * Name of the column carrying the index of the test case within the batch.
+     */
+    public static final String BATCH_INDEX_COLUMN = "dbtest_batch_index";
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final ExecutionOptions options;
+
+
+    /**
+     * @param options Execution options applied to the batched test cases.
+     */
+    public BatchExecutor(ExecutionOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Check whether a test case can be part of a batch. Test cases in row mode need all of their rows, cached test
+     * cases are executed on their own so their cached result can be used. Test cases with setup or teardown
+     * statements need a session of their own. Test cases with an invalid timeout are executed on their own, so the
+     * error is reported for the test case.
+     *
+     * @param testCase Test case.
+     * @param options Execution options.
+     * @return true, if the test case can be batched.
+     */
+    public static boolean isBatchable(TestCase testCase, ExecutionOptions options) {
+        try {
+            // The timeout of the batch is derived from the timeouts of its test cases, an invalid one fails the batch.
+            testCase.getTimeout(options);
+
+            return testCase.getQuery() != null && testCase.getDescriptor().getStatements().size() == 1
+                    && TestCase.MODE_SINGLE.equals(testCase.getMode())
+                    && (options.getCache() == null || testCase.getCacheTtl(options) <= 0);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the statement combining the queries of the test cases.
+     *
+     * @param testCases Test cases, the position within the list is used as batch index.
+     * @return Batch statement.
+     */
+    public static String createBatchQuery(List<TestCase> testCases) {
+        return createBatchQuery(testCases, true);
+    }
+
+    /**
+     * Create the statement combining the queries of the test cases written in a specific dialect.
+     *
+     * @param testCases Test cases, the position within the list is used as batch index.
+     * @param backslashEscapes true, if a backslash escapes the following character within literals.
+     * @return Batch statement.
+     */
+    public static String createBatchQuery(List<TestCase> testCases, boolean backslashEscapes) {
+        StringBuilder query = new StringBuilder();
+
+        for (int i = 0; i < testCases.size(); i++) {
+            if (i > 0) {
+                query.append("\nUNION ALL\n");
+            }
+
+            // The query is placed on its own lines, so trailing line comments do not swallow the closing bracket.
+            query.append("SELECT ").append(i).append(" AS ").append(BATCH_INDEX_COLUMN).append(", bi.")
+                    .append(TestCase.RESULT_COLUMN).append(" FROM (\n")
+                    .append(testCases.get(i).getDescriptor(backslashEscapes).getQuery()).append("\n) bi");
+        }
+
+        return query.toString();
+    }
+
+    /**
+     * Execute the test cases as one batch at a target. Each test case passes if the first row labeled with its batch
+     * index passes and fails if there is no such row, the same way as a single execution. The batch is cancelled
+     * together with any of its test cases, a batch that timed out or has been cancelled is not repeated, all of its
+     * test cases time out.
+     *
+     * @param testCases Test cases to be executed.
+     * @param target Target object that is used for building a connection to the target database.
+     * @return Results of the test cases in the order of the given list.
+     */
+    public List<ExecutionResult> execute(List<TestCase> testCases, UniversalDatabaseConnector target) {
+        String targetIdentifier = target.getIdentifier();
+        TargetMetrics targetMetrics = options.getMetrics().getTarget(targetIdentifier);
+        List<TestCase.RunningStatement> executions = new ArrayList<TestCase.RunningStatement>();
+
+        for (TestCase t : testCases) {
+            t.setStatus(targetIdentifier, TestCase.TCS_RUNNING);
+            targetMetrics.executionStarted();
+            executions.add(t.beginExecution(targetIdentifier));
+        }
+
+        long start = System.currentTimeMillis();
+        long timeout = getTimeout(testCases);
+        String[] values = null;
+        SQLException error = null;
+
+        long acquireStart = System.nanoTime();
+        Connection connection = target.acquire();
+        targetMetrics.recordAcquire(System.nanoTime() - acquireStart, connection != null);
+
+        if (connection != null && options.getSetup() != null) {
+            try {
+                options.getSetup().apply(connection, timeout);
+            } catch (SQLException e) {
+                // The setup is attempted again by the single executions on a new connection.
+                closeQuietly(connection);
+                target.release(connection);
+                connection = null;
+            }
+        }
+
+        if (connection != null) {
+            long queryStart = System.nanoTime();
+            ScheduledFuture<?> watchdog = null;
+
+            try (PreparedStatement statement = connection.prepareStatement(createBatchQuery(testCases, target.isBackslashEscapes()))) {
+                for (TestCase.RunningStatement running : executions) {
+                    running.start(statement);
+                }
+
+                if (timeout > 0) {
+                    statement.setQueryTimeout((int) Math.max(1, (timeout + 999) / 1000));
+                    watchdog = TestCase.WATCHDOG.schedule(() -> cancel(testCases, targetIdentifier), timeout, TimeUnit.MILLISECONDS);
+                }
+
+                try (ResultSet result = statement.executeQuery()) {
+                    values = readResults(result, testCases.size());
+                }
+
+                targetMetrics.getQueryLatency().record(System.nanoTime() - queryStart);
+            } catch (SQLException e) {
+                values = null;
+                error = e;
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+                target.release(connection);
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+
+        // The single executions of a batch that timed out would time out as well, one after another.
+        boolean timedOut = error instanceof SQLTimeoutException || isCancelled(executions);
+        if (timedOut) {
+            targetMetrics.recordBatch(false);
+            return timeout(testCases, executions, targetIdentifier, targetMetrics, duration, error);
+        }
+
+        targetMetrics.recordBatch(values == null);
+        if (values == null) {
+            // The error is attributed to the failing test case by executing the test cases one by one.
+            return executeSeparately(testCases, executions, target, targetMetrics, duration);
+        }
+
+        // The duration of the batch says nothing about the duration of its single test cases, so their duration
+        // history is not updated.
+        List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase t = testCases.get(i);
+            boolean passed = values[i] != null && values[i].toLowerCase().equals(TestCase.RESULT_PASSED);
+
+            Map<String, String> diagnostics = Collections.emptyMap();
+            if (!passed && values[i] != null) {
+                diagnostics = Collections.singletonMap(TestCase.RESULT_COLUMN, values[i]);
+            }
+
+            int status = t.finishExecution(targetIdentifier, executions.get(i), passed ? TestCase.TCS_PASSED : TestCase.TCS_FAILED);
+            targetMetrics.executionFinished(status);
+
+            results.add(new ExecutionResult(t.getIdentifier(), targetIdentifier, status, duration, null,
+                    (values[i] == null) ? 0 : 1, diagnostics));
+        }
+
+        return results;
+    }
+
+    private List<ExecutionResult> executeSeparately(List<TestCase> testCases, List<TestCase.RunningStatement> executions,
+                                                    UniversalDatabaseConnector target, TargetMetrics targetMetrics,
+                                                    long duration) {
+        List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase t = testCases.get(i);
+
+            if (t.abandonExecution(target.getIdentifier(), executions.get(i))) {
+                // The single execution counts as an execution of its own.
+                targetMetrics.executionAborted();
+                results.add(t.executeWithResult(target, options));
+            } else {
+                // The test case has been cancelled in the meantime, it is not executed again.
+                int status = t.finishExecution(target.getIdentifier(), executions.get(i), TestCase.TCS_TIMEOUT);
+                targetMetrics.executionFinished(status);
+                results.add(new ExecutionResult(t.getIdentifier(), target.getIdentifier(), status, duration, null));
+            }
+        }
+
+        return results;
+    }
+
+    private static List<ExecutionResult> timeout(List<TestCase> testCases, List<TestCase.RunningStatement> executions,
+                                                 String targetIdentifier, TargetMetrics targetMetrics, long duration,
+                                                 SQLException error) {
+        List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase t = testCases.get(i);
+            int status = t.finishExecution(targetIdentifier, executions.get(i), TestCase.TCS_TIMEOUT);
+            targetMetrics.executionFinished(status);
+            results.add(new ExecutionResult(t.getIdentifier(), targetIdentifier, status, duration, error));
+        }
+
+        return results;
+    }
+
+    private static void cancel(List<TestCase> testCases, String targetIdentifier) {
+        for (TestCase t : testCases) {
+            t.cancel(targetIdentifier);
+        }
+    }
+
+    private static boolean isCancelled(List<TestCase.RunningStatement> executions) {
+        for (TestCase.RunningStatement running : executions) {
+            if (running.isCancelled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read the result of the first row of each test case.
+     */
+    private static String[] readResults(ResultSet result, int size) throws SQLException {
+        String[] values = new String[size];
+        boolean[] found = new boolean[size];
+        int indexColumn = result.findColumn(BATCH_INDEX_COLUMN);
+        int resultColumn = result.findColumn(TestCase.RESULT_COLUMN);
+
+        while (result.next()) {
+            int index = result.getInt(indexColumn);
+            if (index >= 0 && index < size && !found[index]) {
+                found[index] = true;
+                values[index] = result.getString(resultColumn);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * The batch may run as long as the test case with the longest timeout, without limit if one of them has none.
+     */
+    private long getTimeout(List<TestCase> testCases) {
+        long timeout = 0;
+
+        for (TestCase t : testCases) {
+            long testTimeout = t.getTimeout(options);
+            if (testTimeout <= 0) {
+                return 0;
+            }
+            timeout = Math.max(timeout, testTimeout);
+        }
+
+        return timeout;
+    }
+}
@@ -0,0 +1,151 @@
+package de.dbtest.common;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * The concurrency limiter adapts the number of test cases executed at the same time at a single target to the load of
+ * the target, following the AIMD scheme (additive increase, multiplicative decrease):
+ * <ul>
+ *     <li>As long as test cases finish in time, the limit grows by one test case per round of completed test cases,
+ *     but only while the limit is actually used.</li>
+ *     <li>If a test case timed out, lost its connection or ran into a transient database error, or if the smoothed
+ *     ratio between observed and expected duration exceeds the tolerance, the limit is reduced by the backoff factor.
+ *     The limit is reduced at most once per round, so a burst of slow test cases caused by the same overload is
+ *     answered once.</li>
+ * </ul>
+ * Test cases differ a lot in their duration, so latency is judged relative to the expected duration of each test case
+ * at the target (see TestScheduler.getExpectedDuration(...)). The limit always stays within the configured bounds.
+ *
+ * @author Lennard Scheffler
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Factor the limit is multiplied with on overload.
+     */
+    public static final double DEFAULT_BACKOFF = 0.75;
+
+    /**
+     * Smoothed ratio between observed and expected duration above which the target is considered overloaded.
+     */
+    public static final double DEFAULT_TOLERANCE = 2.0;
+
+    /**
+     * Weight of a new sample within the smoothed duration ratio.
+     */
+    private static final double SMOOTHING = 0.2;
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoff;
+    private final double tolerance;
+
+    private double limit;
+    private double ratio;
+    private int cooldown;
+
+
+    /**
+     * Create a limiter starting at the minimum limit with the default backoff and tolerance.
+     *
+     * @param minLimit Lower bound of the limit, at least 1.
+     * @param maxLimit Upper bound of the limit.
+     */
+    public ConcurrencyLimiter(int minLimit, int maxLimit) {
+        this(minLimit, maxLimit, DEFAULT_BACKOFF, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param minLimit Lower bound of the limit, at least 1.
+     * @param maxLimit Upper bound of the limit.
+     * @param backoff Factor between 0 and 1 the limit is multiplied with on overload.
+     * @param tolerance Ratio between observed and expected duration above which the target is considered overloaded.
+     * @throws IllegalArgumentException If the bounds or factors are out of range.
+     */
+    public ConcurrencyLimiter(int minLimit, int maxLimit, double backoff, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits " + minLimit + ".." + maxLimit);
+        }
+        if (backoff <= 0 || backoff >= 1 || tolerance <= 1) {
+            throw new IllegalArgumentException("Invalid backoff " + backoff + " or tolerance " + tolerance);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoff = backoff;
+        this.tolerance = tolerance;
+        this.limit = minLimit;
+        this.ratio = 1.0;
+        this.cooldown = 0;
+    }
+
+    /**
+     * @return Number of test cases that may be executed at the same time.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Adapt the limit to the execution of a test case or a batch of test cases.
+     *
+     * @param expectedDuration Expected duration in milliseconds.
+     * @param duration Observed duration in milliseconds.
+     * @param inFlight Number of test cases or batches executing at the target, including the finished one.
+     * @param overloaded true, if the execution failed because of the load of the target (see isOverloaded(...)).
+     */
+    public synchronized void record(long expectedDuration, long duration, int inFlight, boolean overloaded) {
+        if (!overloaded) {
+            ratio += SMOOTHING * ((double) duration / Math.max(1, expectedDuration) - ratio);
+        }
+
+        if (cooldown > 0) {
+            cooldown--;
+        }
+
+        if (overloaded || ratio > tolerance) {
+            if (cooldown == 0) {
+                limit = Math.max(minLimit, limit * backoff);
+                // Test cases started before the decrease still see the overload, wait for them to finish.
+                cooldown = (int) Math.ceil(limit);
+            }
+        } else if (inFlight >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Decide whether the result of an execution indicates an overloaded target rather than a failing test case.
+     *
+     * @param result Result of a test case execution.
+     * @return true, if the test case timed out, lost its connection or failed with a transient error.
+     */
+    public static boolean isOverloaded(ExecutionResult result) {
+        if (result.getStatus() == TestCase.TCS_TIMEOUT) {
+            return true;
+        }
+
+        Throwable error = result.getError();
+        return error instanceof SQLTransientException || error instanceof SQLRecoverableException
+                || error instanceof SQLNonTransientConnectionException;
+    }
+
+    /**
+     * @return Lower bound of the limit.
+     */
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * @return Upper bound of the limit.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+}
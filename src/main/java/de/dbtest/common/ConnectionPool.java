@@ -0,0 +1,302 @@
+package de.dbtest.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The connection pool keeps database connections to a single target open, so executing a test case does not need to
+ * run through the full connection handshake every time. The number of connections is bounded by the maximum pool
+ * size. Idle connections are validated when they are borrowed and closed after the idle timeout, unless they are
+ * needed to keep up the minimum pool size.<br />
+ * Each pooled connection has its own statement cache, which is closed together with the connection.
+ *
+ * @author Lennard Scheffler
+ */
+public class ConnectionPool {
+
+    private static final Logger LOGGER = LogManager.getLogger(ConnectionPool.class);
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final UniversalDatabaseConnector target;
+    private final PoolConfiguration configuration;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<IdleConnection> idleConnections;
+    private final Set<Connection> borrowedConnections;
+    private final Map<Connection, StatementCache> statementCaches;
+
+    private volatile boolean closed;
+
+
+    /**
+     * Create a connection pool for a target.
+     *
+     * @param target Target used for opening new connections.
+     * @param configuration Sizing and timing parameters of the pool.
+     */
+    public ConnectionPool(UniversalDatabaseConnector target, PoolConfiguration configuration) {
+        this.target = target;
+        this.configuration = configuration;
+        this.permits = new Semaphore(Math.max(1, configuration.getMaxSize()), true);
+        this.idleConnections = new LinkedBlockingDeque<IdleConnection>();
+        this.borrowedConnections = ConcurrentHashMap.newKeySet();
+        this.statementCaches = new ConcurrentHashMap<Connection, StatementCache>();
+        this.closed = false;
+    }
+
+    /**
+     * Borrow a connection from the pool. An idle connection will be reused if it is still valid, otherwise a new
+     * connection to the target will be opened. If the maximum number of connections is in use, the method waits for
+     * a connection to be released until the acquire timeout expires.
+     *
+     * @return JDBC Connection object or null if no connection could be established within the acquire timeout.
+     */
+    public Connection acquire() {
+        if (closed) {
+            LOGGER.warn("Connection pool for target {} has already been closed.", target.getIdentifier());
+            return null;
+        }
+
+        try {
+            if (!permits.tryAcquire(configuration.getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Timeout while waiting for a connection to target {}.", target.getIdentifier());
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        Connection connection = null;
+
+        try {
+            evictIdleConnections();
+
+            IdleConnection idleConnection;
+            while (connection == null && (idleConnection = idleConnections.pollFirst()) != null) {
+                if (isValid(idleConnection.connection)) {
+                    connection = idleConnection.connection;
+                } else {
+                    LOGGER.info("Discard invalid connection to target {}.", target.getIdentifier());
+                    closeQuietly(idleConnection.connection);
+                }
+            }
+
+            if (connection == null) {
+                LOGGER.info("Open new connection to target {}.", target.getIdentifier());
+                connection = openSession();
+            }
+        } finally {
+            if (connection == null) {
+                permits.release();
+            }
+        }
+
+        if (connection != null) {
+            borrowedConnections.add(connection);
+        }
+
+        return connection;
+    }
+
+    /**
+     * Return a borrowed connection to the pool. Connections that have been closed by the borrower or that do not
+     * belong to the pool will not be kept.
+     *
+     * @param connection Connection that has been borrowed from the pool before.
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+
+        if (!borrowedConnections.remove(connection)) {
+            LOGGER.warn("Connection released to target {} has not been borrowed from its pool.", target.getIdentifier());
+            closeQuietly(connection);
+            return;
+        }
+
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+            } else {
+                idleConnections.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+
+        evictIdleConnections();
+    }
+
+    /**
+     * Get the statement cache of a connection that has been borrowed from the pool.
+     *
+     * @param connection Borrowed connection.
+     * @return Statement cache of the connection.
+     */
+    public StatementCache getStatementCache(Connection connection) {
+        return statementCaches.computeIfAbsent(connection,
+                c -> new StatementCache(c, configuration.getStatementCacheSize()));
+    }
+
+    /**
+     * Open new connections until the pool holds the minimum number of connections, so the first test cases do not
+     * have to wait for the connection handshake. Pre-warming stops at the first connection that could not be
+     * established.
+     */
+    public void prewarm() {
+        int missing = Math.min(configuration.getMinSize(), Math.max(1, configuration.getMaxSize()))
+                - idleConnections.size() - borrowedConnections.size();
+
+        for (int i = 0; i < missing && !closed; i++) {
+            Connection connection = openSession();
+            if (connection == null) {
+                LOGGER.warn("Could not pre-warm connection pool for target {}.", target.getIdentifier());
+                return;
+            }
+
+            idleConnections.offerLast(new IdleConnection(connection, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Close all idle connections and prevent further connections from being borrowed. Connections that are still in
+     * use will be closed as soon as they are released.
+     */
+    public void close() {
+        closed = true;
+
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            closeQuietly(idleConnection.connection);
+        }
+    }
+
+    /**
+     * Close idle connections that exceeded the idle timeout while keeping at least the minimum number of connections.
+     * The least recently used connections are placed at the end of the idle queue and will be evicted first.
+     */
+    public void evictIdleConnections() {
+        long expiry = System.currentTimeMillis() - configuration.getIdleTimeout();
+
+        while (idleConnections.size() > configuration.getMinSize()) {
+            IdleConnection idleConnection = idleConnections.pollLast();
+            if (idleConnection == null) {
+                return;
+            }
+
+            if (idleConnection.idleSince > expiry) {
+                idleConnections.offerLast(idleConnection);
+                return;
+            }
+
+            LOGGER.info("Evict idle connection to target {}.", target.getIdentifier());
+            closeQuietly(idleConnection.connection);
+        }
+    }
+
+    /**
+     * @return true, if the pool has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return Number of open connections that are currently not in use.
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * @param connection Connection.
+     * @return true, if the connection has been borrowed from the pool and not been released yet.
+     */
+    public boolean isBorrowed(Connection connection) {
+        return borrowedConnections.contains(connection);
+    }
+
+    /**
+     * @return Number of connections that are currently borrowed.
+     */
+    public int getActiveCount() {
+        return borrowedConnections.size();
+    }
+
+    public PoolConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Open a new connection to the target and apply the session profile of the target to it. A connection the
+     * profile could not be applied to is closed.
+     *
+     * @return Connection or null if the connection could not be established or configured.
+     */
+    private Connection openSession() {
+        Connection connection = target.connect();
+        SessionProfile session = target.getSession();
+
+        if (connection != null && session != null) {
+            try {
+                session.apply(connection);
+            } catch (SQLException | IllegalArgumentException e) {
+                LOGGER.warn("Could not apply session profile to connection to target {}: {}", target.getIdentifier(), e.getMessage());
+                closeQuietly(connection);
+                return null;
+            }
+        }
+
+        return connection;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(configuration.getValidationTimeout());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        StatementCache statementCache = statementCaches.remove(connection);
+        if (statementCache != null) {
+            statementCache.close();
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Idle connection together with the point in time it has been returned to the pool.
+     */
+    private static class IdleConnection {
+
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.dbtest.common;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Helper for parsing durations used within test case annotations and command line options, e.g. "500ms", "30s",
+ * "15m", "2h" or "1d". A plain number is interpreted as seconds.
+ *
+ * @author Lennard Scheffler
+ */
+public final class Durations {
+
+    private static final Pattern PATTERN_DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h|d)?");
+
+    private Durations() {
+    }
+
+    /**
+     * Parse a duration into milliseconds.
+     *
+     * @param duration Duration including an optional unit (ms, s, m, h, d).
+     * @return Duration in milliseconds.
+     * @throws IllegalArgumentException if the duration is not well formatted.
+     */
+    public static long parse(String duration) {
+        if (duration == null) {
+            throw new IllegalArgumentException("Duration must not be null.");
+        }
+
+        Matcher matcher = PATTERN_DURATION.matcher(duration.trim().toLowerCase());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid duration: " + duration);
+        }
+
+        long value = Long.parseLong(matcher.group(1));
+        String unit = matcher.group(2);
+
+        if ("ms".equals(unit)) {
+            return value;
+        }
+        if ("m".equals(unit)) {
+            return value * 60000;
+        }
+        if ("h".equals(unit)) {
+            return value * 3600000;
+        }
+        if ("d".equals(unit)) {
+            return value * 86400000;
+        }
+
+        return value * 1000;
+    }
+}
@@ -1,5 +1,8 @@
 package de.dbtest.common;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * @author Lennard Scheffler
  */
@@ -17,4 +20,15 @@ public interface Executable {
      */
     public boolean execute(UniversalDatabaseConnector target);
 
+    /**
+     * Execute the executable object at a specific target without blocking the calling thread. The execution is run
+     * on the given executor, so the caller decides how many executions are run at the same time.
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param executor Executor running the execution (and nested executions).
+     * @return Future that is completed with the result of the execution. The future is completed regularly if the
+     * execution caused an error, the error is part of the result.
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(UniversalDatabaseConnector target, Executor executor);
+
 }
@@ -0,0 +1,260 @@
+package de.dbtest.common;
+
+import de.dbtest.metrics.ExecutionMetrics;
+import de.dbtest.persistence.ResultCache;
+
+/**
+ * The execution options capture the settings that apply to all test cases executed within a test set, unless a
+ * test case overrides them within its header.
+ *
+ * @author Lennard Scheffler
+ */
+public class ExecutionOptions {
+
+    /**
+     * Number of rows fetched per round trip when evaluating test cases in row mode.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private long testTimeout;
+    private int fetchSize;
+    private TestSelection selection;
+    private TestShard shard;
+    private ResultCache cache;
+    private long cacheTtl;
+    private int batchSize;
+    private SessionSetup setup;
+    private boolean snapshot;
+    private int minParallel;
+    private int loadParallelism;
+    private ExecutionMetrics metrics;
+
+
+    /**
+     * Default constructor for the ExecutionOptions class. No test timeout is applied by default, executions record to
+     * the global metrics.
+     */
+    public ExecutionOptions() {
+        this.testTimeout = 0;
+        this.fetchSize = DEFAULT_FETCH_SIZE;
+        this.selection = new TestSelection();
+        this.shard = null;
+        this.cache = null;
+        this.cacheTtl = 0;
+        this.batchSize = 1;
+        this.setup = null;
+        this.snapshot = false;
+        this.minParallel = 0;
+        this.loadParallelism = 0;
+        this.metrics = ExecutionMetrics.getGlobal();
+    }
+
+    /**
+     * @return Default timeout of a single test case in milliseconds, 0 if test cases may run without a time limit.
+     */
+    public long getTestTimeout() {
+        return testTimeout;
+    }
+
+    /**
+     * Set the default timeout of a single test case. Test cases can override the timeout with the @timeout annotation.
+     *
+     * @param testTimeout Timeout in milliseconds, 0 if test cases may run without a time limit.
+     */
+    public void setTestTimeout(long testTimeout) {
+        this.testTimeout = testTimeout;
+    }
+
+    /**
+     * @return Default number of rows fetched per round trip in row mode.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Set the default number of rows fetched per round trip in row mode. Test cases can override the fetch size with
+     * the @fetchsize annotation.
+     *
+     * @param fetchSize Number of rows.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return Selection of the test cases of a set that are executed at a target.
+     */
+    public TestSelection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Set the selection of the test cases of a set that are executed at a target, e.g. only the failed ones.
+     *
+     * @param selection Test selection, must not be null.
+     */
+    public void setSelection(TestSelection selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * @return Shard of the test set executed by this process or null if the whole set is executed.
+     */
+    public TestShard getShard() {
+        return shard;
+    }
+
+    /**
+     * Restrict the execution to a shard of the test set, e.g. for a worker of a sharded execution. The shard is
+     * applied on top of the selection.
+     *
+     * @param shard Shard or null to execute the whole set.
+     */
+    public void setShard(TestShard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * @return Cache of execution results or null if results are not cached.
+     */
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Set the cache of execution results. Executions are skipped as long as a cached result of the unchanged test case
+     * at the same target has not expired.
+     *
+     * @param cache Result cache or null to disable caching.
+     */
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return Default time in milliseconds a result is cached, 0 if only test cases declaring @cacheTtl are cached.
+     */
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * Set the default time a result is cached. Test cases can override it with the @cacheTtl annotation.
+     *
+     * @param cacheTtl Time in milliseconds, 0 if only test cases declaring @cacheTtl are cached.
+     */
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * @return Maximum number of test cases executed within one statement, 1 if test cases are not batched.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the maximum number of test cases executed within one statement. Only test cases in single mode are batched
+     * (see BatchExecutor).
+     *
+     * @param batchSize Number of test cases, 1 to disable batching.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return Setup executed once on each connection before test cases are executed on it or null if there is none.
+     */
+    public SessionSetup getSetup() {
+        return setup;
+    }
+
+    /**
+     * Set the setup executed once on each connection, e.g. for materializing intermediate results shared by the test
+     * cases of a set.
+     *
+     * @param setup Session setup or null if connections are used without setup.
+     */
+    public void setSetup(SessionSetup setup) {
+        this.setup = setup;
+    }
+
+    /**
+     * @return true, if the test cases of a set are executed within a single read-only snapshot at each target.
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Execute the test cases of a set within a single read-only snapshot transaction at each target, so all test cases
+     * see consistent data (see SnapshotSession). The test cases are executed one after another at each target.
+     *
+     * @param snapshot true, to execute within a snapshot.
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return true, if the number of test cases executed at the same time adapts to the load of each target.
+     */
+    public boolean isAdaptive() {
+        return minParallel > 0;
+    }
+
+    /**
+     * @return Lower bound of the adaptive concurrency limit, 0 if the concurrency is fixed.
+     */
+    public int getMinParallel() {
+        return minParallel;
+    }
+
+    /**
+     * Adapt the number of test cases executed at the same time at each target to its observed latency and error rate
+     * (see ConcurrencyLimiter). The parallelism of an execution becomes the upper bound of the limit.
+     *
+     * @param minParallel Lower bound of the limit, 0 for a fixed concurrency.
+     */
+    public void setMinParallel(int minParallel) {
+        this.minParallel = minParallel;
+    }
+
+    /**
+     * @return Number of threads reading the test case files of a set, 0 for the default of the persistence.
+     */
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    /**
+     * Set the number of threads reading and parsing the test case files of a set (see ParallelTestCaseLoader).
+     *
+     * @param loadParallelism Number of threads, 0 for one thread per available processor.
+     */
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
+    }
+
+    /**
+     * @return Metrics the executions record to.
+     */
+    public ExecutionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the metrics the executions record to, e.g. to collect the metrics of a single run separately.
+     *
+     * @param metrics Metrics, must not be null.
+     */
+    public void setMetrics(ExecutionMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
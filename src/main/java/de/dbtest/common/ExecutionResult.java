@@ -0,0 +1,158 @@
+package de.dbtest.common;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The execution result describes the outcome of executing an executable object at a specific target. Besides the
+ * resulting status it captures the duration and the error that caused the execution to stop, if any. The result of a
+ * test set contains the results of all nested test cases.
+ *
+ * @author Lennard Scheffler
+ */
+public class ExecutionResult {
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final String identifier;
+    private final String targetIdentifier;
+    private final int status;
+    private final long duration;
+    private final Throwable error;
+    private final List<ExecutionResult> results;
+    private final long rows;
+    private final Map<String, String> diagnostics;
+    private final boolean cached;
+
+
+    /**
+     * Create the result of a single execution.
+     *
+     * @param identifier Identifier of the executed object.
+     * @param targetIdentifier Identifier of the target the object has been executed at.
+     * @param status Resulting status indicator (see TestCase.TCS_*).
+     * @param duration Duration of the execution in milliseconds.
+     * @param error Error that caused the execution to stop or null.
+     */
+    public ExecutionResult(String identifier, String targetIdentifier, int status, long duration, Throwable error) {
+        this(identifier, targetIdentifier, status, duration, error, Collections.<ExecutionResult>emptyList());
+    }
+
+    /**
+     * Create the result of an execution including the results of nested executions.
+     *
+     * @param identifier Identifier of the executed object.
+     * @param targetIdentifier Identifier of the target the object has been executed at.
+     * @param status Resulting status indicator (see TestCase.TCS_*).
+     * @param duration Duration of the execution in milliseconds.
+     * @param error Error that caused the execution to stop or null.
+     * @param results Results of the nested executions.
+     */
+    public ExecutionResult(String identifier, String targetIdentifier, int status, long duration, Throwable error,
+                           List<ExecutionResult> results) {
+        this(identifier, targetIdentifier, status, duration, error, results, 0, Collections.<String, String>emptyMap(), false);
+    }
+
+    /**
+     * Create the result of a test case execution including the evaluated rows.
+     *
+     * @param identifier Identifier of the executed object.
+     * @param targetIdentifier Identifier of the target the object has been executed at.
+     * @param status Resulting status indicator (see TestCase.TCS_*).
+     * @param duration Duration of the execution in milliseconds.
+     * @param error Error that caused the execution to stop or null.
+     * @param rows Number of result rows evaluated.
+     * @param diagnostics Columns of the first row that did not pass, mapped by column label.
+     */
+    public ExecutionResult(String identifier, String targetIdentifier, int status, long duration, Throwable error,
+                           long rows, Map<String, String> diagnostics) {
+        this(identifier, targetIdentifier, status, duration, error, Collections.<ExecutionResult>emptyList(), rows, diagnostics, false);
+    }
+
+    /**
+     * Create the result of a test case whose execution has been skipped, because a cached result was still valid.
+     *
+     * @param identifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Cached status indicator (see TestCase.TCS_*).
+     */
+    public ExecutionResult(String identifier, String targetIdentifier, int status) {
+        this(identifier, targetIdentifier, status, 0, null, Collections.<ExecutionResult>emptyList(), 0,
+                Collections.<String, String>emptyMap(), true);
+    }
+
+    private ExecutionResult(String identifier, String targetIdentifier, int status, long duration, Throwable error,
+                            List<ExecutionResult> results, long rows, Map<String, String> diagnostics, boolean cached) {
+        this.identifier = identifier;
+        this.targetIdentifier = targetIdentifier;
+        this.status = status;
+        this.duration = duration;
+        this.error = error;
+        this.results = Collections.unmodifiableList(results);
+        this.rows = rows;
+        this.diagnostics = Collections.unmodifiableMap(diagnostics);
+        this.cached = cached;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getTargetIdentifier() {
+        return targetIdentifier;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Duration of the execution in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return Error that caused the execution to stop or null if the execution finished regularly.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return Results of the nested executions, e.g. the test cases of a test set.
+     */
+    public List<ExecutionResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return Number of result rows evaluated before the execution finished.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Columns of the first result row that did not pass mapped by column label, empty if all rows passed.
+     */
+    public Map<String, String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return true, if the status has been taken from the result cache instead of executing the test case.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return true, if the execution finished with the status passed.
+     */
+    public boolean isPassed() {
+        return status == TestCase.TCS_PASSED;
+    }
+}
@@ -0,0 +1,145 @@
+package de.dbtest.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The execution summary counts the results of the test cases executed within a single run together with the wall
+ * time of the run. Results may be recorded concurrently by multiple threads.
+ *
+ * @author Lennard Scheffler
+ */
+public class ExecutionSummary {
+
+    private final AtomicInteger passed;
+    private final AtomicInteger failed;
+    private final AtomicInteger stopped;
+    private final AtomicInteger timedOut;
+    private final AtomicInteger skipped;
+
+    private volatile long wallTime;
+    private volatile long predictedWallTime;
+    private volatile Throwable error;
+
+
+    public ExecutionSummary() {
+        this.passed = new AtomicInteger();
+        this.failed = new AtomicInteger();
+        this.stopped = new AtomicInteger();
+        this.timedOut = new AtomicInteger();
+        this.skipped = new AtomicInteger();
+        this.wallTime = 0;
+        this.predictedWallTime = 0;
+        this.error = null;
+    }
+
+    /**
+     * Record the final status of an executed test case.
+     *
+     * @param statusIndicator Status of the test case after the execution.
+     */
+    public void record(int statusIndicator) {
+        if (statusIndicator == TestCase.TCS_PASSED) {
+            passed.incrementAndGet();
+        }
+        else if (statusIndicator == TestCase.TCS_FAILED) {
+            failed.incrementAndGet();
+        }
+        else if (statusIndicator == TestCase.TCS_TIMEOUT) {
+            timedOut.incrementAndGet();
+        }
+        else if (statusIndicator == TestCase.TCS_SKIPPED) {
+            skipped.incrementAndGet();
+        }
+        else {
+            stopped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record a test case that did not finish before the timeout of the run expired. Test cases that exceeded their own
+     * timeout are recorded with the status timeout instead.
+     */
+    public void recordTimedOut() {
+        timedOut.incrementAndGet();
+    }
+
+    public int getPassed() {
+        return passed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getStopped() {
+        return stopped.get();
+    }
+
+    public int getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return Number of test cases that have been skipped because a test case they depend on did not pass.
+     */
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return Number of all recorded test cases.
+     */
+    public int getTotal() {
+        return getPassed() + getFailed() + getStopped() + getTimedOut() + getSkipped();
+    }
+
+    /**
+     * @return Wall time of the run in milliseconds.
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public void setWallTime(long wallTime) {
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * @return Wall time of the run in milliseconds predicted from the expected durations of the test cases before the
+     * run started, 0 if no prediction has been made.
+     */
+    public long getPredictedWallTime() {
+        return predictedWallTime;
+    }
+
+    public void setPredictedWallTime(long predictedWallTime) {
+        this.predictedWallTime = predictedWallTime;
+    }
+
+    /**
+     * @return Error that aborted the run, null if the run was not aborted.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public void setError(Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * @return true, if the run has not been aborted and all recorded test cases passed.
+     */
+    public boolean isSuccessful() {
+        return error == null && getPassed() == getTotal();
+    }
+
+    @Override
+    public String toString() {
+        String predicted = (predictedWallTime > 0) ? " (predicted " + predictedWallTime + " ms)" : "";
+        String aborted = (error != null) ? ", aborted by " + error : "";
+
+        return getTotal() + " test cases executed in " + wallTime + " ms" + predicted + ": " + getPassed() + " passed, " + getFailed()
+                + " failed, " + getStopped() + " stopped, " + getTimedOut() + " timed out, " + getSkipped() + " skipped" + aborted;
+    }
+}
@@ -0,0 +1,105 @@
+package de.dbtest.common;
+
+/**
+ * The pool configuration captures the sizing and timing parameters of the connection pool that is maintained for a
+ * single target. It is stored together with the target inside the project configuration file (dbtest.json).
+ *
+ * @author Lennard Scheffler
+ */
+public class PoolConfiguration {
+
+    /* DEFAULT VALUES *************************************************************************************************/
+
+    public static final int DEFAULT_MIN_SIZE            = 0;
+    public static final int DEFAULT_MAX_SIZE            = 10;
+    public static final long DEFAULT_IDLE_TIMEOUT       = 600000;
+    public static final long DEFAULT_ACQUIRE_TIMEOUT    = 30000;
+    public static final int DEFAULT_VALIDATION_TIMEOUT  = 5;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 20;
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private int minSize;
+    private int maxSize;
+    private long idleTimeout;
+    private long acquireTimeout;
+    private int validationTimeout;
+    private int statementCacheSize;
+
+    /**
+     * Default constructor for the PoolConfiguration class using the default values.
+     */
+    public PoolConfiguration() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT, DEFAULT_VALIDATION_TIMEOUT);
+    }
+
+    /**
+     * Explicit constructor for the PoolConfiguration class.
+     *
+     * @param minSize Number of idle connections that are kept open, even if they exceeded the idle timeout.
+     * @param maxSize Maximum number of connections that may be open to the target at the same time.
+     * @param idleTimeout Time in milliseconds after which an idle connection will be closed.
+     * @param acquireTimeout Time in milliseconds to wait for a free connection before giving up.
+     * @param validationTimeout Time in seconds the validation of a connection on borrow may take.
+     */
+    public PoolConfiguration(int minSize, int maxSize, long idleTimeout, long acquireTimeout, int validationTimeout) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.acquireTimeout = acquireTimeout;
+        this.validationTimeout = validationTimeout;
+        this.statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * @return Maximum number of prepared statements cached for each connection, 0 if statements are not cached.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+}
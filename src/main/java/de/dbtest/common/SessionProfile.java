@@ -0,0 +1,188 @@
+package de.dbtest.common;
+
+import org.codehaus.jackson.annotate.JsonIgnore;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The session profile captures the session settings applied to each connection opened to a single target, e.g.
+ * read-only mode, isolation level or dialect specific session statements like "SET SESSION ..." or
+ * "ALTER SESSION ...". It is stored together with the target inside the project configuration file (dbtest.json).
+ * The default profile keeps the defaults of the driver.
+ *
+ * @author Lennard Scheffler
+ */
+public class SessionProfile {
+
+    /* ISOLATION LEVELS ***********************************************************************************************/
+
+    public static final String ISOLATION_READ_UNCOMMITTED = "read_uncommitted";
+    public static final String ISOLATION_READ_COMMITTED = "read_committed";
+    public static final String ISOLATION_REPEATABLE_READ = "repeatable_read";
+    public static final String ISOLATION_SERIALIZABLE = "serializable";
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private boolean readOnly;
+    private String isolation;
+    private int fetchSize;
+    private boolean cursorFetch;
+    private long connectTimeout;
+    private long networkTimeout;
+    private List<String> statements;
+
+    /**
+     * Default constructor for the SessionProfile class keeping the driver defaults.
+     */
+    public SessionProfile() {
+        this.readOnly = false;
+        this.isolation = null;
+        this.fetchSize = 0;
+        this.cursorFetch = false;
+        this.connectTimeout = 0;
+        this.networkTimeout = 0;
+        this.statements = new ArrayList<String>();
+    }
+
+    /**
+     * @return true, if connections are switched to read-only mode, so the database may use cheaper read paths.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return Isolation level of the connections, e.g. read_committed, or null for the default of the database.
+     */
+    public String getIsolation() {
+        return isolation;
+    }
+
+    public void setIsolation(String isolation) {
+        this.isolation = isolation;
+    }
+
+    /**
+     * @return Number of rows fetched per round trip by statements that do not set a fetch size, 0 for the driver
+     * default.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return true, if MySQL connections fetch results through server side cursors, so the fetch size of test cases
+     * in row mode is effective. Each query is materialized in a temporary table at the server then, so it should only
+     * be enabled for targets mainly checked in row mode.
+     */
+    public boolean isCursorFetch() {
+        return cursorFetch;
+    }
+
+    public void setCursorFetch(boolean cursorFetch) {
+        this.cursorFetch = cursorFetch;
+    }
+
+    /**
+     * @return Time in milliseconds establishing a connection may take, 0 for the driver default.
+     */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return Time in milliseconds to wait for a reply of the database before the connection is considered broken,
+     * 0 for no limit.
+     */
+    public long getNetworkTimeout() {
+        return networkTimeout;
+    }
+
+    public void setNetworkTimeout(long networkTimeout) {
+        this.networkTimeout = networkTimeout;
+    }
+
+    /**
+     * @return Session statements executed on each new connection in the order of the list.
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    public void setStatements(List<String> statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Get the JDBC constant of the isolation level.
+     *
+     * @return Isolation level as defined by java.sql.Connection or -1 if the default of the database is used.
+     * @throws IllegalArgumentException If the isolation level is unknown.
+     */
+    @JsonIgnore
+    public int getIsolationLevel() {
+        if (isolation == null) {
+            return -1;
+        }
+
+        switch (isolation.toLowerCase()) {
+            case ISOLATION_READ_UNCOMMITTED:
+                return Connection.TRANSACTION_READ_UNCOMMITTED;
+            case ISOLATION_READ_COMMITTED:
+                return Connection.TRANSACTION_READ_COMMITTED;
+            case ISOLATION_REPEATABLE_READ:
+                return Connection.TRANSACTION_REPEATABLE_READ;
+            case ISOLATION_SERIALIZABLE:
+                return Connection.TRANSACTION_SERIALIZABLE;
+            default:
+                throw new IllegalArgumentException("Unknown isolation level: " + isolation);
+        }
+    }
+
+    /**
+     * Apply the profile to a newly opened connection.
+     *
+     * @param connection Connection to the target of the profile.
+     * @throws SQLException If a setting has been rejected or a session statement failed.
+     */
+    public void apply(Connection connection) throws SQLException {
+        if (readOnly) {
+            connection.setReadOnly(true);
+        }
+
+        int isolationLevel = getIsolationLevel();
+        if (isolationLevel >= 0) {
+            connection.setTransactionIsolation(isolationLevel);
+        }
+
+        if (networkTimeout > 0) {
+            // The executor is only used for aborting the connection after the timeout, no thread is needed for that.
+            connection.setNetworkTimeout(Runnable::run, (int) Math.min(networkTimeout, Integer.MAX_VALUE));
+        }
+
+        if (statements != null) {
+            for (String query : statements) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(query);
+                }
+            }
+        }
+    }
+}
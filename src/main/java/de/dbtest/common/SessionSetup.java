@@ -0,0 +1,86 @@
+package de.dbtest.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The session setup prepares the sessions of a target for all test cases of a set, e.g. by materializing a shared
+ * staging table as temporary table. The statements are executed once on each pooled connection, before the first test
+ * case is executed on it, so the test cases can reuse expensive intermediate results of their session.<br />
+ * A connection whose setup failed is not marked as prepared, the setup is executed again by the next test case.
+ *
+ * @author Lennard Scheffler
+ */
+public class SessionSetup {
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final List<String> statements;
+    private final Map<Connection, Boolean> sessions;
+
+
+    /**
+     * @param statements Statements executed on each connection in the order of the list.
+     */
+    public SessionSetup(List<String> statements) {
+        this.statements = Collections.unmodifiableList(statements);
+        this.sessions = Collections.synchronizedMap(new WeakHashMap<Connection, Boolean>());
+    }
+
+    /**
+     * Load the setup from an SQL file. All statements of the file are executed, sections are not distinguished.
+     *
+     * @param path Path to the SQL file.
+     * @return Session setup executing the statements of the file.
+     * @throws IOException If the file could not be read.
+     */
+    public static SessionSetup load(Path path) throws IOException {
+        return new SessionSetup(TestCaseParser.parse(path).getStatements());
+    }
+
+    /**
+     * Execute the setup on a connection, unless it has been executed on it before. A connection is used by a single
+     * test case at a time, so the setup does not run concurrently on the same connection.
+     *
+     * @param connection Connection borrowed from a target pool.
+     * @param timeout Maximum time in milliseconds for each statement, 0 for no time limit.
+     * @throws SQLException If a statement of the setup failed.
+     */
+    public void apply(Connection connection, long timeout) throws SQLException {
+        if (sessions.containsKey(connection)) {
+            return;
+        }
+
+        for (String query : statements) {
+            try (Statement statement = connection.createStatement()) {
+                if (timeout > 0) {
+                    statement.setQueryTimeout((int) Math.max(1, (timeout + 999) / 1000));
+                }
+                statement.execute(query);
+            }
+        }
+
+        sessions.put(connection, Boolean.TRUE);
+    }
+
+    /**
+     * @return Statements executed on each connection.
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return Number of open connections the setup has been executed on.
+     */
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,217 @@
+package de.dbtest.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The snapshot session runs all test cases of a set at a target within a single read-only transaction, so all checks
+ * see the data of the same point in time. The session borrows one connection from the pool of the target and hands it
+ * out to one test case at a time, it can be used in place of the target:
+ * <ul>
+ *     <li>MySQL: the transaction is started WITH CONSISTENT SNAPSHOT at isolation level repeatable read.</li>
+ *     <li>Oracle: the transaction is a read-only transaction, which is read consistent as a whole.</li>
+ * </ul>
+ * The transaction is rolled back when the session ends, the connection is returned to the pool with its previous
+ * settings. Statements committing implicitly, e.g. DDL within setup sections, end the snapshot early.
+ *
+ * @author Lennard Scheffler
+ */
+public class SnapshotSession extends UniversalDatabaseConnector {
+
+    private static final Logger LOGGER = LogManager.getLogger(SnapshotSession.class);
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final UniversalDatabaseConnector target;
+    private final Semaphore lock;
+
+    private Connection connection;
+    private boolean autoCommit;
+    private int isolation;
+
+
+    /**
+     * @param target Target the snapshot is taken at.
+     */
+    public SnapshotSession(UniversalDatabaseConnector target) {
+        super(target.getDatabaseType(), target.getHost(), target.getPort(), target.getDatabase(),
+                target.getUsername(), target.getPassword());
+        setPool(target.getPool());
+        setSession(target.getSession());
+
+        this.target = target;
+        this.lock = new Semaphore(1);
+    }
+
+    /**
+     * Borrow a connection from the target and start the snapshot transaction on it.
+     *
+     * @return true, if the snapshot has been started.
+     */
+    public synchronized boolean begin() {
+        connection = target.acquire();
+        if (connection == null) {
+            LOGGER.warn("No connection available for a snapshot at target {}.", target.getIdentifier());
+            return false;
+        }
+
+        try {
+            autoCommit = connection.getAutoCommit();
+            isolation = connection.getTransactionIsolation();
+
+            connection.setAutoCommit(false);
+
+            if (getDatabaseType() == DBT_MYSQL) {
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+            } else if (getDatabaseType() == DBT_ORACLE) {
+                execute("SET TRANSACTION READ ONLY");
+            } else {
+                connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            end();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Roll back the snapshot transaction and return the connection to the target. A test case still using the
+     * connection is waited for up to the acquire timeout of the target, if it does not finish the connection is closed
+     * instead of being rolled back, as it must not be used by two threads at the same time.
+     */
+    public void end() {
+        boolean idle = false;
+        try {
+            idle = lock.tryAcquire(getAcquireTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            end(idle);
+        } finally {
+            if (idle) {
+                lock.release();
+            }
+        }
+    }
+
+    private synchronized void end(boolean idle) {
+        if (connection == null) {
+            return;
+        }
+
+        if (!idle) {
+            LOGGER.warn("Snapshot connection to target {} is still in use, closing it.", target.getIdentifier());
+            closeQuietly();
+            target.release(connection);
+            connection = null;
+            return;
+        }
+
+        try {
+            if (!connection.isClosed()) {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            // A connection with unknown transaction settings must not be reused.
+            e.printStackTrace();
+            closeQuietly();
+        }
+
+        target.release(connection);
+        connection = null;
+    }
+
+    /**
+     * Hand out the connection of the snapshot, waiting for the test case currently using it up to the acquire timeout
+     * of the target.
+     *
+     * @return Connection of the snapshot or null if the snapshot is not active or the connection is still in use.
+     */
+    @Override
+    public Connection acquire() {
+        try {
+            if (!lock.tryAcquire(getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        Connection current = getConnection();
+        try {
+            if (current != null && !current.isClosed()) {
+                return current;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        lock.release();
+        return null;
+    }
+
+    @Override
+    public void release(Connection connection) {
+        if (connection != null) {
+            lock.release();
+        }
+    }
+
+    @Override
+    public StatementCache getStatementCache(Connection connection) {
+        return target.getStatementCache(connection);
+    }
+
+    @Override
+    public ConnectionPool getConnectionPool() {
+        return target.getConnectionPool();
+    }
+
+    @Override
+    public Connection connect() {
+        return null;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return target.getIdentifier();
+    }
+
+    private synchronized Connection getConnection() {
+        return connection;
+    }
+
+    private long getAcquireTimeout() {
+        return (getPool() != null) ? getPool().getAcquireTimeout() : PoolConfiguration.DEFAULT_ACQUIRE_TIMEOUT;
+    }
+
+    private void closeQuietly() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void execute(String query) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(query);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.dbtest.common;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The statement cache keeps the prepared statements of a single pooled connection open, so executing the same query
+ * again does not make the database parse it again. Statements are cached by their query text, the least recently
+ * used statement is closed as soon as the cache exceeds its capacity.<br />
+ * A statement taken from the cache has to be returned by release(...) instead of being closed. Statements that are in
+ * use are never evicted, a query that is already in use is prepared once more without being cached.
+ *
+ * @author Lennard Scheffler
+ */
+public class StatementCache {
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final Set<PreparedStatement> borrowed;
+
+    private long hits;
+    private long misses;
+
+
+    /**
+     * Create a statement cache for a connection.
+     *
+     * @param connection Connection the statements are prepared at.
+     * @param capacity Maximum number of cached statements, 0 to disable caching.
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+        this.borrowed = Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>());
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Get a prepared statement for a query, either from the cache or prepared at the connection.
+     *
+     * @param query Query text.
+     * @return Prepared statement, which has to be returned by release(...).
+     * @throws SQLException If the statement could not be prepared.
+     */
+    public synchronized PreparedStatement prepare(String query) throws SQLException {
+        PreparedStatement statement = statements.get(query);
+
+        if (statement != null && !borrowed.contains(statement)) {
+            if (!statement.isClosed()) {
+                hits++;
+                borrowed.add(statement);
+                return statement;
+            }
+
+            statements.remove(query);
+            statement = null;
+        }
+
+        misses++;
+        PreparedStatement prepared = connection.prepareStatement(query);
+        borrowed.add(prepared);
+
+        // A statement for the same query that is still in use stays cached, the additional one is closed on release.
+        if (statement == null && capacity > 0) {
+            statements.put(query, prepared);
+            evict();
+        }
+
+        return prepared;
+    }
+
+    /**
+     * Return a statement taken from the cache. Statements that are not cached are closed.
+     *
+     * @param statement Statement returned by prepare(...).
+     */
+    public synchronized void release(PreparedStatement statement) {
+        borrowed.remove(statement);
+
+        if (!statements.containsValue(statement)) {
+            closeQuietly(statement);
+        }
+
+        evict();
+    }
+
+    /**
+     * Remove a statement from the cache and close it, e.g. because its execution failed and it may be in an
+     * undefined state.
+     *
+     * @param statement Statement returned by prepare(...).
+     */
+    public synchronized void invalidate(PreparedStatement statement) {
+        borrowed.remove(statement);
+        statements.values().removeIf(s -> s == statement);
+        closeQuietly(statement);
+    }
+
+    /**
+     * Close all cached statements.
+     */
+    public synchronized void close() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+
+        statements.clear();
+    }
+
+    /**
+     * @return Number of cached statements.
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * @return Number of queries served by a cached statement.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of queries that had to be prepared at the connection.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Close the least recently used statements that are not in use until the cache fits its capacity.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = statements.entrySet().iterator();
+
+        while (statements.size() > capacity && iterator.hasNext()) {
+            PreparedStatement statement = iterator.next().getValue();
+            if (!borrowed.contains(statement)) {
+                iterator.remove();
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
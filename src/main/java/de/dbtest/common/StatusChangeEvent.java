@@ -0,0 +1,65 @@
+package de.dbtest.common;
+
+/**
+ * A status change event describes a single status transition of a test case at a specific target.
+ *
+ * @author Lennard Scheffler
+ */
+public final class StatusChangeEvent {
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final TestCase testCase;
+    private final String targetIdentifier;
+    private final Integer previousStatus;
+    private final int status;
+
+
+    /**
+     * Create a status change event.
+     *
+     * @param testCase Test case whose status has changed.
+     * @param targetIdentifier Identifier of the target the status refers to.
+     * @param previousStatus Status before the change or null if the test case had no status at the target.
+     * @param status Status after the change.
+     */
+    public StatusChangeEvent(TestCase testCase, String targetIdentifier, Integer previousStatus, int status) {
+        this.testCase = testCase;
+        this.targetIdentifier = targetIdentifier;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    /**
+     * @return Test case whose status has changed.
+     */
+    public TestCase getTestCase() {
+        return testCase;
+    }
+
+    /**
+     * @return Identifier of the target the status refers to.
+     */
+    public String getTargetIdentifier() {
+        return targetIdentifier;
+    }
+
+    /**
+     * @return Status before the change or null if the test case had no status at the target.
+     */
+    public Integer getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * @return Status after the change.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return testCase.getIdentifier() + "@" + targetIdentifier + ": " + previousStatus + " -> " + status;
+    }
+}
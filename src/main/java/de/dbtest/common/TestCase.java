@@ -1,14 +1,26 @@
 package de.dbtest.common;
 
+import de.dbtest.metrics.TargetMetrics;
+import de.dbtest.persistence.CachedResult;
+import de.dbtest.persistence.ResultCache;
 import de.dbtest.persistence.StatusItem;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A test is an element that can be executed on a specific database target and provides information about the database.
@@ -18,7 +30,7 @@ import java.util.regex.Pattern;
  *
  * @author Lennard Scheffler
  */
-public class TestCase extends Observable implements Executable {
+public class TestCase implements Executable {
 
     /* STATUS INDICATORS **********************************************************************************************/
 
@@ -27,6 +39,8 @@ public class TestCase extends Observable implements Executable {
     public static final int TCS_STOPPED         = 2;
     public static final int TCS_PASSED          = 3;
     public static final int TCS_FAILED          = 4;
+    public static final int TCS_TIMEOUT         = 5;
+    public static final int TCS_SKIPPED         = 6;
 
 
     /* ANNOTATION INFORMATION *****************************************************************************************/
@@ -41,17 +55,108 @@ public class TestCase extends Observable implements Executable {
      */
     public static final String ANNOT_NAME = "@test";
 
+    /**
+     * Annotation used for declaring the maximum execution time of a test case, e.g. "@timeout 30s".
+     */
+    public static final String ANNOT_TIMEOUT = "@timeout";
+
+    /**
+     * Annotation used for declaring how the result of a test case is evaluated, either "single" or "rows".
+     */
+    public static final String ANNOT_MODE = "@mode";
+
+    /**
+     * Annotation used for declaring the number of rows fetched per round trip in row mode, e.g. "@fetchsize 10000".
+     */
+    public static final String ANNOT_FETCH_SIZE = "@fetchsize";
+
+    /**
+     * Annotation used for declaring how long the result of a test case may be reused, e.g. "@cacheTtl 15m".
+     */
+    public static final String ANNOT_CACHE_TTL = "@cacheTtl";
+
+    /**
+     * Annotation used for declaring test cases that have to pass before a test case is executed, e.g.
+     * "@depends de.tests.RowCount". Multiple identifiers are separated by commas or declared in multiple lines.
+     */
+    public static final String ANNOT_DEPENDS = "@depends";
+
+
+    /* BODY SECTIONS **************************************************************************************************/
+
+    /**
+     * Section of statements preparing the session, e.g. creating a temporary table. Sections are declared by a line
+     * comment in front of their first statement, e.g. "-- @setup".
+     */
+    public static final String SECTION_SETUP = "@setup";
+
+    /**
+     * Section of the query returning the result. Statements without a section belong to the check section, all of them
+     * except the last one are executed as setup.
+     */
+    public static final String SECTION_CHECK = "@check";
+
+    /**
+     * Section of statements cleaning up the session. They are executed after the query, even if it failed.
+     */
+    public static final String SECTION_TEARDOWN = "@teardown";
+
+    /**
+     * All sections in the order of their execution.
+     */
+    public static final List<String> SECTIONS = Collections.unmodifiableList(
+            Arrays.asList(SECTION_SETUP, SECTION_CHECK, SECTION_TEARDOWN));
+
+
+    /* EVALUATION MODES ***********************************************************************************************/
+
+    /**
+     * Only the first row is evaluated, the test case passes if its result column is "passed". This is the default.
+     */
+    public static final String MODE_SINGLE = "single";
+
+    /**
+     * All rows are streamed and evaluated, the test case passes if the result column of each row is "passed". The
+     * evaluation stops at the first row that did not pass.
+     */
+    public static final String MODE_ROWS = "rows";
+
+    /**
+     * Name of the column that carries the result of a test case.
+     */
+    public static final String RESULT_COLUMN = "result";
+
+    /**
+     * Value of the result column indicating that a row passed.
+     */
+    public static final String RESULT_PASSED = "passed";
+
+
+    /* DURATION HISTORY ***********************************************************************************************/
+
+    /**
+     * Weight of the latest execution duration within the expected duration. The expected duration is an exponentially
+     * weighted moving average, so it follows changes of the data volume without overreacting to single outliers.
+     */
+    public static final double DURATION_SMOOTHING = 0.3;
+
 
     /* BODY PARSING EXPRESSIONS ***************************************************************************************/
 
     /**
      * Regular Expression that can be used for extracting the header out of a test case body.
+     *
+     * @deprecated Backtracks heavily on large bodies, use TestCaseParser instead.
      */
+    @Deprecated
     public static final String REGEXP_HEAD = "(\\/\\*{2}(\\r\\n|\\n)((.|\\r\\n|\\n)*)\\*\\/)";
 
     /**
      * Regular Expression that can be used for extracting the query out ot the test case body.
+     *
+     * @deprecated Backtracks heavily on large bodies and does not separate statements, use TestCaseParser instead.
      */
+    @Deprecated
     public static final String REGEXP_QUERY = "\\*\\/((.|\\r\\n|\\n)*);";
 
     /**
@@ -65,10 +170,21 @@ public class TestCase extends Observable implements Executable {
     public static final String REGEXP_NAME = ANNOT_NAME + " (.*)";
 
 
+    /**
+     * Watchdog cancelling statements that exceeded the test case timeout, shared with batched executions.
+     */
+    static final ScheduledThreadPoolExecutor WATCHDOG = createWatchdog();
+
+
     /* Private POJO attributes ****************************************************************************************/
 
-    private String body;
-    private Map<String, Integer> status;
+    private volatile String body;
+    private volatile TestCaseDescriptor descriptor;
+    private volatile TestCaseDescriptor plainDescriptor;
+    private Map<String, TargetStatus> status;
+    private Map<String, Long> expectedDurations;
+    private Map<String, RunningStatement> runningStatements;
+    private List<ListenerRegistration> listeners;
 
 
 
@@ -79,7 +195,86 @@ public class TestCase extends Observable implements Executable {
      */
     public TestCase(String body) {
         this.body = body;
-        this.status = new HashMap<String, Integer>();
+        this.status = new ConcurrentHashMap<String, TargetStatus>();
+        this.expectedDurations = new ConcurrentHashMap<String, Long>();
+        this.runningStatements = new ConcurrentHashMap<String, RunningStatement>();
+        this.listeners = new CopyOnWriteArrayList<ListenerRegistration>();
+    }
+
+    /**
+     * Create a test case based on an already parsed body.
+     *
+     * @param descriptor Descriptor of the full test case body.
+     */
+    public TestCase(TestCaseDescriptor descriptor) {
+        this(descriptor.getBody());
+        if (descriptor.isBackslashEscapes()) {
+            this.descriptor = descriptor;
+        } else {
+            this.plainDescriptor = descriptor;
+        }
+    }
+
+    /**
+     * Register a listener that is notified synchronously by the thread changing the test case.
+     *
+     * @param listener Listener to register.
+     */
+    public void addListener(TestCaseListener listener) {
+        addListener(listener, null);
+    }
+
+    /**
+     * Register a listener that is notified asynchronously. Notifications are handed over to the executor, so the
+     * thread changing the test case does not wait for the listener. Notifications may be delivered out of order.
+     *
+     * @param listener Listener to register.
+     * @param executor Executor running the notifications or null for synchronous notifications.
+     */
+    public void addListener(TestCaseListener listener, Executor executor) {
+        listeners.add(new ListenerRegistration(listener, executor));
+    }
+
+    /**
+     * Remove all registrations of a listener.
+     *
+     * @param listener Listener to remove.
+     * @return True if the listener had been registered.
+     */
+    public boolean removeListener(TestCaseListener listener) {
+        return listeners.removeIf(r -> r.listener == listener);
+    }
+
+    /**
+     * Get the parsed representation of the test case body. The body is parsed only once, the descriptor will be
+     * cached until the body is changed by setBody(...) or setQuery(...).
+     *
+     * @return Descriptor of the current test case body.
+     */
+    public TestCaseDescriptor getDescriptor() {
+        return getDescriptor(true);
+    }
+
+    /**
+     * Get the parsed representation of the test case body in the dialect of a target. The descriptors of both
+     * dialects are cached separately, so test sets executed at MySQL and Oracle targets do not parse alternately.
+     *
+     * @param backslashEscapes true, if a backslash escapes the following character within literals.
+     * @return Descriptor of the current test case body.
+     */
+    public TestCaseDescriptor getDescriptor(boolean backslashEscapes) {
+        TestCaseDescriptor currentDescriptor = backslashEscapes ? descriptor : plainDescriptor;
+
+        if (currentDescriptor == null || currentDescriptor.getBody() != body) {
+            currentDescriptor = TestCaseDescriptor.parse(body, backslashEscapes);
+            if (backslashEscapes) {
+                descriptor = currentDescriptor;
+            } else {
+                plainDescriptor = currentDescriptor;
+            }
+        }
+
+        return currentDescriptor;
     }
 
     /**
@@ -89,14 +284,7 @@ public class TestCase extends Observable implements Executable {
      * @return Full header including multi-line comment elements.
      */
     public String getHead() {
-        Pattern headPattern = Pattern.compile(REGEXP_HEAD);
-        Matcher headMatcher = headPattern.matcher(body);
-
-        if (headMatcher.find()) {
-            return headMatcher.group(1).trim();
-        }
-
-        return null;
+        return getDescriptor().getHead();
     }
 
     /**
@@ -106,18 +294,7 @@ public class TestCase extends Observable implements Executable {
      * @return The full package name of the test case (without identifying annotion).
      */
     public String getPackage() {
-        if (getHead() == null) {
-            return null;
-        }
-
-        Pattern packagePattern = Pattern.compile(REGEXP_PACKAGE);
-        Matcher packageMatcher = packagePattern.matcher(getHead());
-
-        if (packageMatcher.find()) {
-            return packageMatcher.group(1).trim();
-        }
-
-        return null;
+        return getDescriptor().getPackage();
     }
 
     /**
@@ -127,18 +304,39 @@ public class TestCase extends Observable implements Executable {
      * @return The full name of the test case (without identifying annotation).
      */
     public String getName() {
-        if (getHead() == null) {
-            return null;
-        }
+        return getDescriptor().getName();
+    }
+
+    /**
+     * Get the value of an annotation from the header, e.g. getAnnotation("@test") returns the test case name.
+     *
+     * @param annotation Annotation including the leading @.
+     * @return Value of the annotation or null if the header does not declare the annotation.
+     */
+    public String getAnnotation(String annotation) {
+        return getDescriptor().getAnnotation(annotation);
+    }
 
-        Pattern namePattern = Pattern.compile(REGEXP_NAME);
-        Matcher nameMatcher = namePattern.matcher(getHead());
+    /**
+     * Get the identifiers of the test cases this test case depends on. Identifiers without package refer to a test
+     * case within the package of this test case.
+     *
+     * @return Full qualified identifiers of the dependencies, which is empty if the header does not declare any.
+     */
+    public Set<String> getDependencies() {
+        Set<String> dependencies = new LinkedHashSet<String>();
 
-        if (nameMatcher.find()) {
-            return nameMatcher.group(1).trim();
+        for (String value : getDescriptor().getAnnotations(ANNOT_DEPENDS)) {
+            for (String identifier : value.split("[,\\s]+")) {
+                if (identifier.isEmpty()) {
+                    continue;
+                }
+
+                dependencies.add(identifier.contains(".") ? identifier : getPackage() + "." + identifier);
+            }
         }
 
-        return null;
+        return dependencies;
     }
 
     /**
@@ -147,14 +345,7 @@ public class TestCase extends Observable implements Executable {
      * @return query that can be executed.
      */
     public String getQuery() {
-        Pattern queryPattern = Pattern.compile(REGEXP_QUERY);
-        Matcher queryMatcher = queryPattern.matcher(body);
-
-        if (queryMatcher.find()) {
-            return queryMatcher.group(1).trim();
-        }
-
-        return null;
+        return getDescriptor().getQuery();
     }
 
     /**
@@ -164,7 +355,7 @@ public class TestCase extends Observable implements Executable {
      * @param query Well formatted test query.
      */
     public void setQuery(String query) {
-        body = getHead() + System.getProperty("line.separator") + query;
+        setBody(getHead() + System.getProperty("line.separator") + query);
     }
 
     /**
@@ -174,7 +365,7 @@ public class TestCase extends Observable implements Executable {
      * @return Identifier including package and name.
      */
     public String getIdentifier() {
-        return getPackage() + "." + getName();
+        return getDescriptor().getIdentifier();
     }
 
     /**
@@ -184,10 +375,69 @@ public class TestCase extends Observable implements Executable {
      * @param targetIdentifier Identifyer of the target. A target identifyier is usually made up from the user,
      *                         host/port and database that it connects to.
      *
-     * @return Status at the given target or null if the test case has never been executed at the given target.
+     * @return Status at the given target, pending if the test case has never been executed at the given target.
      */
     public int getStatus(String targetIdentifier) {
-        return status.get(targetIdentifier);
+        TargetStatus targetStatus = status.get(targetIdentifier);
+        return (targetStatus == null) ? TCS_PENDING : targetStatus.status;
+    }
+
+    /**
+     * Get the time the current status at a target has been reached.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Time in milliseconds since the epoch, 0 if the test case has never been executed at the target or the
+     * time is unknown.
+     */
+    public long getStatusTimestamp(String targetIdentifier) {
+        TargetStatus targetStatus = status.get(targetIdentifier);
+        return (targetStatus == null) ? 0 : targetStatus.timestamp;
+    }
+
+    /**
+     * Get the expected execution duration at a target based on the previous executions at the target.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Expected duration in milliseconds, 0 if the test case has never been executed at the target.
+     */
+    public long getExpectedDuration(String targetIdentifier) {
+        Long duration = expectedDurations.get(targetIdentifier);
+        return (duration == null) ? 0 : duration;
+    }
+
+    /**
+     * Set the expected execution duration at a target, e.g. when restoring a persisted status.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param duration Expected duration in milliseconds.
+     */
+    public void setExpectedDuration(String targetIdentifier, long duration) {
+        expectedDurations.put(targetIdentifier, duration);
+    }
+
+    /**
+     * Add the duration of an execution to the expected duration at a target (see DURATION_SMOOTHING).
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param duration Duration of the execution in milliseconds.
+     */
+    public void recordDuration(String targetIdentifier, long duration) {
+        expectedDurations.merge(targetIdentifier, duration,
+                (expected, latest) -> Math.round(DURATION_SMOOTHING * latest + (1 - DURATION_SMOOTHING) * expected));
+    }
+
+    /**
+     * Get the current statuses of the test case at all targets it has been executed at.
+     *
+     * @return Unmodifiable snapshot mapping the target identifier to the status indicator.
+     */
+    public Map<String, Integer> getStatuses() {
+        Map<String, Integer> statuses = new HashMap<String, Integer>();
+        for (Map.Entry<String, TargetStatus> targetStatus : status.entrySet()) {
+            statuses.put(targetStatus.getKey(), targetStatus.getValue().status);
+        }
+
+        return Collections.unmodifiableMap(statuses);
     }
 
     /**
@@ -200,9 +450,28 @@ public class TestCase extends Observable implements Executable {
      *                        available statuses are captured within static attributes of the class.
      */
     public void setStatus(String targetIdentifier, int statusIndicator) {
-        status.put(targetIdentifier, statusIndicator);
-        setChanged();
-        notifyObservers();
+        setStatus(targetIdentifier, statusIndicator, System.currentTimeMillis());
+    }
+
+    /**
+     * Set the status of the test case for a specific target including the time the status has been reached, e.g. when
+     * restoring a persisted status. Status and time are replaced together, so readers never see the status of one
+     * execution with the time of another.
+     *
+     * @param targetIdentifier Identifyer of the target.
+     * @param statusIndicator The status indicator (see TCS_*).
+     * @param timestamp Time the status has been reached in milliseconds since the epoch, 0 if unknown.
+     */
+    public void setStatus(String targetIdentifier, int statusIndicator, long timestamp) {
+        TargetStatus previousStatus = status.put(targetIdentifier, new TargetStatus(statusIndicator, timestamp));
+
+        if (!listeners.isEmpty()) {
+            StatusChangeEvent event = new StatusChangeEvent(this, targetIdentifier,
+                    (previousStatus == null) ? null : previousStatus.status, statusIndicator);
+            for (ListenerRegistration registration : listeners) {
+                registration.dispatch(() -> registration.listener.statusChanged(event));
+            }
+        }
     }
 
     /**
@@ -219,54 +488,532 @@ public class TestCase extends Observable implements Executable {
      */
     public void setBody(String body) {
         this.body = body;
+        this.descriptor = null;
+        this.plainDescriptor = null;
+
+        for (ListenerRegistration registration : listeners) {
+            registration.dispatch(() -> registration.listener.bodyChanged(this));
+        }
     }
 
 
     @Override
     public boolean execute(UniversalDatabaseConnector target) {
-        setStatus(target.getIdentifier(), TCS_RUNNING);
+        return executeWithResult(target).isPassed();
+    }
 
+    @Override
+    public CompletableFuture<ExecutionResult> executeAsync(UniversalDatabaseConnector target, Executor executor) {
+        return executeAsync(target, executor, new ExecutionOptions());
+    }
+
+    /**
+     * See explanation of Executable.executeAsync(...).
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param executor Executor running the execution.
+     * @param options Execution options, e.g. the default timeout.
+     * @return Future that is completed with the result of the execution.
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(UniversalDatabaseConnector target, Executor executor,
+                                                           ExecutionOptions options) {
+        return CompletableFuture.supplyAsync(() -> executeWithResult(target, options), executor);
+    }
+
+    /**
+     * Execute the test case at a specific target and return a structured result. (See also Executable.execute(...))
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @return Result including the status, the duration and the error that caused the test case to stop.
+     */
+    public ExecutionResult executeWithResult(UniversalDatabaseConnector target) {
+        return executeWithResult(target, new ExecutionOptions());
+    }
+
+    /**
+     * Execute the test case at a specific target and return a structured result. If the test case exceeds its
+     * timeout, the statement is cancelled at the database and the test case gets the status timeout.
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param options Execution options, e.g. the default timeout.
+     * @return Result including the status, the duration and the error that caused the test case to stop.
+     */
+    public ExecutionResult executeWithResult(UniversalDatabaseConnector target, ExecutionOptions options) {
+        String targetIdentifier = target.getIdentifier();
+        TargetMetrics targetMetrics = options.getMetrics().getTarget(targetIdentifier);
+
+        // The cache key is derived from the body, so the same body has to be used for looking up and storing.
+        String executedBody = body;
+        ResultCache cache = options.getCache();
+        long cacheTtl = (cache == null) ? 0 : getCacheTtl(options);
+        String session = (cacheTtl > 0) ? getCacheSession(target, options) : null;
+
+        if (cacheTtl > 0) {
+            CachedResult cachedResult = cache.get(executedBody, session, targetIdentifier);
+            if (cachedResult != null) {
+                setStatus(targetIdentifier, cachedResult.getStatus(), cachedResult.getTimestamp());
+                targetMetrics.recordCacheHit();
+                return new ExecutionResult(getIdentifier(), targetIdentifier, cachedResult.getStatus());
+            }
+        }
+
+        setStatus(targetIdentifier, TCS_RUNNING);
+        targetMetrics.executionStarted();
+
+        // The execution can be cancelled from now on, even while it is still waiting for a connection.
+        RunningStatement running = beginExecution(targetIdentifier);
+
+        long start = System.currentTimeMillis();
         int resultStatus = TCS_FAILED;
+        Throwable error = null;
 
-        Connection connection = target.connect();
-        if (connection != null) {
-            try {
-                // Try to execute the test statement at the target and grep the return result-parameter.
+        RowEvaluation evaluation = null;
 
-                PreparedStatement statement = connection.prepareStatement(getQuery());
-                ResultSet result = statement.executeQuery();
+        try {
+            long timeout = getTimeout(options);
+            boolean rowMode = MODE_ROWS.equals(getMode());
+
+            // Borrow a connection from the target pool, it has to be returned before exiting the method.
+            long acquireStart = System.nanoTime();
+            Connection connection = target.acquire();
+            targetMetrics.recordAcquire(System.nanoTime() - acquireStart, connection != null);
+
+            if (connection != null) {
+                StatementCache statements = target.getStatementCache(connection);
+                TestCaseDescriptor executedDescriptor = getDescriptor(target.isBackslashEscapes());
+                PreparedStatement statement = null;
+                ScheduledFuture<?> watchdog = null;
+                boolean reusable = true;
+                long queryStart = System.nanoTime();
 
-                if (result.next()) {
-                    if (result.getString("result").toLowerCase().equals("passed")) {
-                        resultStatus = TCS_PASSED;
+                // Try to execute the test statement at the target and grep the return result-parameter. The setup,
+                // the query and the teardown are executed on the same connection. The statement is taken from the
+                // statement cache of the connection and has to be returned to it, the result has to be closed
+                // explicitly as the connection will be reused.
+                try {
+                    if (timeout > 0) {
+                        // The driver timeout is enforced by the database, the watchdog covers drivers that ignore it.
+                        watchdog = WATCHDOG.schedule(() -> cancel(targetIdentifier), timeout, TimeUnit.MILLISECONDS);
+                    }
+
+                    if (options.getSetup() != null) {
+                        try {
+                            options.getSetup().apply(connection, timeout);
+                        } catch (SQLException e) {
+                            // A session with an incomplete setup may not be prepared again, so it is not reused.
+                            reusable = false;
+                            throw e;
+                        }
+                    }
+
+                    executeStatements(connection, executedDescriptor.getSetupStatements(), running, timeout);
+
+                    statement = statements.prepare(executedDescriptor.getQuery());
+                    running.start(statement);
+
+                    // Cached statements keep their settings, so all of them are applied on every execution.
+                    statement.setQueryTimeout((timeout > 0) ? (int) Math.max(1, (timeout + 999) / 1000) : 0);
+
+                    if (rowMode) {
+                        // Stream the rows instead of buffering the whole result at the client.
+                        statement.setMaxRows(0);
+                        statement.setFetchSize(getFetchSize(options, target.getSession()));
                     } else {
-                        resultStatus = TCS_FAILED;
+                        statement.setMaxRows(1);
                     }
+
+                    try (ResultSet result = statement.executeQuery()) {
+                        evaluation = rowMode ? evaluateRows(result) : evaluateSingle(result);
+                        resultStatus = evaluation.status;
+                    }
+                } catch (SQLException e) {
+                    if (e instanceof SQLTimeoutException || running.cancelled) {
+                        // Return "Timeout" if the statement has been cancelled because it exceeded its time limit.
+                        resultStatus = TCS_TIMEOUT;
+                    } else {
+                        // Return "Stopped" if the test cases results in an SQL error.
+                        e.printStackTrace();
+                        resultStatus = TCS_STOPPED;
+                    }
+                    error = e;
+                } finally {
+                    if (watchdog != null) {
+                        watchdog.cancel(false);
+                    }
+
+                    // A statement that failed or has been cancelled is not reused.
+                    if (statement != null) {
+                        if (error == null) {
+                            statements.release(statement);
+                        } else {
+                            statements.invalidate(statement);
+                        }
+                    }
+
+                    // The teardown is executed even if the query failed, a session that could not be cleaned up is
+                    // closed instead of being returned to the pool.
+                    try {
+                        executeStatements(connection, executedDescriptor.getTeardownStatements(), null, timeout);
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                        reusable = false;
+                    }
+
+                    if (!reusable) {
+                        closeQuietly(connection);
+                    }
+                    target.release(connection);
                 }
-            } catch (SQLException e) {
-                // Return "Stopped" if the test cases results in an SQL error.
-                e.printStackTrace();
+
+                long queryDuration = System.nanoTime() - queryStart;
+                options.getMetrics().recordQuery(getIdentifier(), targetIdentifier, queryDuration);
+
+                // Only regular results and timeouts tell anything about the duration of the test case, the time
+                // waiting for a connection depends on the load of the target instead.
+                if (error == null || resultStatus == TCS_TIMEOUT) {
+                    recordDuration(targetIdentifier, TimeUnit.NANOSECONDS.toMillis(queryDuration));
+                }
+            }
+            else {
+                // Return "Stopped" as the test case could not be executed at all.
                 resultStatus = TCS_STOPPED;
+                error = new SQLTransientConnectionException("No connection available to target " + targetIdentifier);
             }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            resultStatus = TCS_STOPPED;
+            error = e;
+        }
+
+        long duration = System.currentTimeMillis() - start;
+
+        resultStatus = finishExecution(targetIdentifier, running, resultStatus);
+        targetMetrics.executionFinished(resultStatus);
+
+        // Only regular results are cached, errors and timeouts may be resolved by simply executing again.
+        if (cacheTtl > 0 && error == null && (resultStatus == TCS_PASSED || resultStatus == TCS_FAILED)) {
+            cache.put(executedBody, session, getIdentifier(), targetIdentifier, resultStatus,
+                    getStatusTimestamp(targetIdentifier), cacheTtl);
+        }
+
+        if (evaluation == null) {
+            return new ExecutionResult(getIdentifier(), targetIdentifier, resultStatus, duration, error);
+        }
+
+        return new ExecutionResult(getIdentifier(), targetIdentifier, resultStatus, duration, error,
+                evaluation.rows, evaluation.diagnostics);
+    }
+
+    /**
+     * Get the time the result of the test case is cached. The TTL declared by the @cacheTtl annotation takes
+     * precedence over the default TTL of the execution options. An invalid annotation disables caching for the test
+     * case.
+     *
+     * @param options Execution options including the default cache TTL.
+     * @return TTL in milliseconds, 0 if the result is not cached.
+     */
+    public long getCacheTtl(ExecutionOptions options) {
+        String cacheTtl = getAnnotation(ANNOT_CACHE_TTL);
+
+        if (cacheTtl != null) {
+            try {
+                return Durations.parse(cacheTtl);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                return 0;
+            }
+        }
+
+        return options.getCacheTtl();
+    }
+
+    /**
+     * Describe the session the test case is executed in, as far as it may change the result: the session profile of
+     * the target and the session setup of the execution options. A result is only taken from the cache, if it has
+     * been executed in the same session.
+     *
+     * @return Description of the session, used as part of the cache key.
+     */
+    private static String getCacheSession(UniversalDatabaseConnector target, ExecutionOptions options) {
+        StringBuilder session = new StringBuilder();
+
+        SessionProfile profile = target.getSession();
+        if (profile != null) {
+            session.append(profile.isReadOnly()).append('\n')
+                    .append(profile.getIsolation()).append('\n')
+                    .append(profile.getStatements()).append('\n');
+        }
+
+        if (options.getSetup() != null) {
+            session.append(options.getSetup().getStatements());
+        }
+
+        return session.toString();
+    }
+
+    /**
+     * Get the evaluation mode of the test case declared by the @mode annotation.
+     *
+     * @return MODE_SINGLE or MODE_ROWS.
+     * @throws IllegalArgumentException If the declared mode is unknown.
+     */
+    public String getMode() {
+        String mode = getAnnotation(ANNOT_MODE);
+
+        if (mode == null) {
+            return MODE_SINGLE;
+        }
+
+        mode = mode.toLowerCase();
+        if (!mode.equals(MODE_SINGLE) && !mode.equals(MODE_ROWS)) {
+            throw new IllegalArgumentException("Unknown evaluation mode: " + mode);
+        }
+
+        return mode;
+    }
+
+    /**
+     * Get the number of rows fetched per round trip in row mode. The fetch size declared by the @fetchsize annotation
+     * takes precedence over the default fetch size of the execution options.
+     *
+     * @param options Execution options including the default fetch size.
+     * @return Number of rows.
+     */
+    public int getFetchSize(ExecutionOptions options) {
+        String fetchSize = getAnnotation(ANNOT_FETCH_SIZE);
+
+        if (fetchSize != null) {
+            return Integer.parseInt(fetchSize);
+        }
+
+        return options.getFetchSize();
+    }
+
+    /**
+     * Get the number of rows fetched per round trip in row mode at a target. The fetch size declared by the
+     * @fetchsize annotation takes precedence over the fetch size of the session profile of the target, which takes
+     * precedence over the default fetch size of the execution options.
+     *
+     * @param options Execution options including the default fetch size.
+     * @param session Session profile of the target, may be null.
+     * @return Number of rows.
+     */
+    public int getFetchSize(ExecutionOptions options, SessionProfile session) {
+        if (getAnnotation(ANNOT_FETCH_SIZE) == null && session != null && session.getFetchSize() > 0) {
+            return session.getFetchSize();
         }
 
-        setStatus(target.getIdentifier(), resultStatus);
+        return getFetchSize(options);
+    }
 
-        // Try to close the connection before exiting the method
+    /**
+     * Execute setup or teardown statements of the test case one after another. Each statement may run as long as the
+     * timeout of the test case.
+     *
+     * @param connection Connection the query is executed on.
+     * @param queries Statements to be executed.
+     * @param running Running statement cancelled by the watchdog or null if the statements cannot be cancelled.
+     * @param timeout Timeout in milliseconds, 0 for no time limit.
+     * @throws SQLException If a statement failed or the execution has been cancelled.
+     */
+    private static void executeStatements(Connection connection, List<String> queries, RunningStatement running,
+                                          long timeout) throws SQLException {
+        for (String query : queries) {
+            try (Statement statement = connection.createStatement()) {
+                if (running != null) {
+                    running.start(statement);
+                }
+                if (timeout > 0) {
+                    statement.setQueryTimeout((int) Math.max(1, (timeout + 999) / 1000));
+                }
+                statement.execute(query);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
         try {
             connection.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
+    }
 
-        return (resultStatus == TCS_PASSED);
+    private static RowEvaluation evaluateSingle(ResultSet result) throws SQLException {
+        RowEvaluation evaluation = new RowEvaluation();
+
+        if (result.next()) {
+            evaluation.rows = 1;
+            if (isPassed(result.getString(result.findColumn(RESULT_COLUMN)))) {
+                evaluation.status = TCS_PASSED;
+            } else {
+                evaluation.diagnostics = describeRow(result);
+            }
+        }
+
+        return evaluation;
+    }
+
+    private static RowEvaluation evaluateRows(ResultSet result) throws SQLException {
+        RowEvaluation evaluation = new RowEvaluation();
+        int column = result.findColumn(RESULT_COLUMN);
+
+        // A result without rows passes, as there is no row that failed.
+        evaluation.status = TCS_PASSED;
+        while (result.next()) {
+            evaluation.rows++;
+            if (!isPassed(result.getString(column))) {
+                evaluation.status = TCS_FAILED;
+                evaluation.diagnostics = describeRow(result);
+                break;
+            }
+        }
+
+        return evaluation;
+    }
+
+    private static boolean isPassed(String value) {
+        return value != null && value.toLowerCase().equals(RESULT_PASSED);
+    }
+
+    private static Map<String, String> describeRow(ResultSet result) throws SQLException {
+        ResultSetMetaData metaData = result.getMetaData();
+        Map<String, String> row = new LinkedHashMap<String, String>();
+
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            row.put(metaData.getColumnLabel(i), result.getString(i));
+        }
+
+        return row;
+    }
+
+    /**
+     * Get the timeout of the test case. The timeout declared by the @timeout annotation takes precedence over the
+     * default timeout of the execution options.
+     *
+     * @param options Execution options including the default timeout.
+     * @return Timeout in milliseconds, 0 if the test case may run without a time limit.
+     */
+    public long getTimeout(ExecutionOptions options) {
+        String timeout = getAnnotation(ANNOT_TIMEOUT);
+
+        if (timeout != null) {
+            return Durations.parse(timeout);
+        }
+
+        return options.getTestTimeout();
+    }
+
+    /**
+     * Register an execution of the test case at a target, so it can be cancelled from now on (see cancel(...)). The
+     * execution has to be finished by finishExecution(...) or abandonExecution(...).
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Handle of the execution.
+     */
+    RunningStatement beginExecution(String targetIdentifier) {
+        RunningStatement running = new RunningStatement(null);
+
+        // A worker interrupted by its test set has missed the cancellation if it was not registered yet.
+        running.cancelled = Thread.currentThread().isInterrupted();
+        runningStatements.put(targetIdentifier, running);
+        return running;
+    }
+
+    /**
+     * Set the status of a finished execution and unregister it. An execution cancelled by its test set has already
+     * been reported as timed out, so a result arriving late does not overwrite that status.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param running Handle of the execution.
+     * @param status Status the execution finished with.
+     * @return Status that has been set, timeout if the execution has been cancelled.
+     */
+    int finishExecution(String targetIdentifier, RunningStatement running, int status) {
+        synchronized (running) {
+            int finalStatus = running.cancelled ? TCS_TIMEOUT : status;
+            setStatus(targetIdentifier, finalStatus);
+            runningStatements.remove(targetIdentifier, running);
+            return finalStatus;
+        }
+    }
+
+    /**
+     * Unregister an execution without setting a status, e.g. because the test case is executed again on its own.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param running Handle of the execution.
+     * @return false, if the execution has been cancelled and has to be finished with a status instead.
+     */
+    boolean abandonExecution(String targetIdentifier, RunningStatement running) {
+        synchronized (running) {
+            if (running.cancelled) {
+                return false;
+            }
+            runningStatements.remove(targetIdentifier, running);
+            return true;
+        }
+    }
+
+    /**
+     * Cancel the execution of the test case that is currently running at a specific target. A running statement is
+     * cancelled at the database, so the database releases the resources used by the statement, an execution still
+     * waiting for a connection does not start any statement. The execution of a cancelled test case finishes with the
+     * status timeout.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return true, if a running execution has been cancelled, false if there is none or it already has its status.
+     */
+    public boolean cancel(String targetIdentifier) {
+        RunningStatement running = runningStatements.get(targetIdentifier);
+
+        if (running == null) {
+            return false;
+        }
+
+        synchronized (running) {
+            if (runningStatements.get(targetIdentifier) != running) {
+                return false;
+            }
+            running.cancelled = true;
+        }
+
+        Statement statement = running.statement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the status item of the test case at a single target.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Current status at the target or null if the test case has no status at the target.
+     */
+    public StatusItem getStatusItem(String targetIdentifier) {
+        TargetStatus targetStatus = status.get(targetIdentifier);
+
+        if (targetStatus == null) {
+            return null;
+        }
+
+        return new StatusItem(getIdentifier(), targetIdentifier, targetStatus.status, targetStatus.timestamp,
+                getExpectedDuration(targetIdentifier));
     }
 
     public Set<StatusItem> getStatusSet() {
         Set<StatusItem> statusItemSet = new HashSet<StatusItem>();
 
-        for (String targetIdentifier : status.keySet()) {
-            StatusItem statusItem = new StatusItem(getIdentifier(), targetIdentifier, status.get(targetIdentifier));
+        for (Map.Entry<String, TargetStatus> targetStatus : status.entrySet()) {
+            TargetStatus value = targetStatus.getValue();
+            StatusItem statusItem = new StatusItem(getIdentifier(), targetStatus.getKey(), value.status,
+                    value.timestamp, getExpectedDuration(targetStatus.getKey()));
             statusItemSet.add(statusItem);
         }
 
@@ -275,7 +1022,94 @@ public class TestCase extends Observable implements Executable {
 
     public void setStatus(Set<StatusItem> statusItemSet) {
         for (StatusItem statusItem : statusItemSet) {
-            setStatus(statusItem.getTargetIdentifier(), statusItem.getStatus());
+            if (statusItem.getDuration() > 0) {
+                setExpectedDuration(statusItem.getTargetIdentifier(), statusItem.getDuration());
+            }
+            setStatus(statusItem.getTargetIdentifier(), statusItem.getStatus(), statusItem.getTimestamp());
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dbtest-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+
+        return watchdog;
+    }
+
+    /**
+     * Listener together with the executor it is notified on, null if it is notified on the calling thread.
+     */
+    private static class ListenerRegistration {
+
+        private final TestCaseListener listener;
+        private final Executor executor;
+
+        private ListenerRegistration(TestCaseListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        private void dispatch(Runnable notification) {
+            if (executor == null) {
+                notification.run();
+            } else {
+                executor.execute(notification);
+            }
+        }
+    }
+
+    /**
+     * Status of the test case at a target together with the time it has been reached.
+     */
+    private static final class TargetStatus {
+
+        private final int status;
+        private final long timestamp;
+
+        private TargetStatus(int status, long timestamp) {
+            this.status = status;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class RowEvaluation {
+
+        private int status = TCS_FAILED;
+        private long rows;
+        private Map<String, String> diagnostics = Collections.emptyMap();
+    }
+
+    /**
+     * Statement that is currently executed at a target together with the information whether it has been cancelled.
+     */
+    static class RunningStatement {
+
+        private volatile Statement statement;
+        private volatile boolean cancelled;
+
+        private RunningStatement(Statement statement) {
+            this.statement = statement;
+            this.cancelled = false;
+        }
+
+        /**
+         * Switch to the next statement of the execution. An execution that has been cancelled in between two
+         * statements does not start another one.
+         */
+        void start(Statement next) throws SQLException {
+            statement = next;
+
+            if (cancelled) {
+                throw new SQLTimeoutException("Execution has been cancelled.");
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelled;
         }
     }
 }
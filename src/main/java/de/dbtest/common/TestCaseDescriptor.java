@@ -0,0 +1,229 @@
+package de.dbtest.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The test case descriptor is the parsed, immutable representation of a test case body. It captures the header, the
+ * statements and all annotations of the header, so the body does not have to be parsed again whenever one of these
+ * elements is accessed. Bodies are split by the TestCaseParser.
+ *
+ * @author Lennard Scheffler
+ */
+public final class TestCaseDescriptor {
+
+    /* PRECOMPILED HEADER PARSING EXPRESSIONS *************************************************************************/
+
+    private static final Pattern PATTERN_ANNOTATION = Pattern.compile("(@\\w+)[ \\t]+(.*)");
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final String body;
+    private final String head;
+    private final List<String> statements;
+    private final List<String> sections;
+    private final String pack;
+    private final String name;
+    private final String identifier;
+    private final Map<String, List<String>> annotations;
+    private final boolean backslashEscapes;
+
+
+    private TestCaseDescriptor(String body, String head, List<String> statements, List<String> sections,
+                               Map<String, List<String>> annotations, boolean backslashEscapes) {
+        this.body = body;
+        this.backslashEscapes = backslashEscapes;
+        this.head = head;
+        this.statements = statements;
+        this.sections = sections;
+        this.annotations = annotations;
+        this.pack = getAnnotation(TestCase.ANNOT_PACKAGE);
+        this.name = getAnnotation(TestCase.ANNOT_NAME);
+        this.identifier = pack + "." + name;
+    }
+
+    /**
+     * Parse a test case body into a descriptor. The header is identified by a multi-line documentation comment, each
+     * line of the header starting with an annotation (e.g. @test) is captured as annotation.
+     *
+     * @param body Full test case body.
+     * @return Descriptor of the given body.
+     */
+    public static TestCaseDescriptor parse(String body) {
+        return TestCaseParser.parse(body);
+    }
+
+    /**
+     * Parse a test case body written in a specific dialect into a descriptor.
+     *
+     * @param body Full test case body.
+     * @param backslashEscapes true, if a backslash escapes the following character within literals.
+     * @return Descriptor of the given body.
+     */
+    public static TestCaseDescriptor parse(String body, boolean backslashEscapes) {
+        return TestCaseParser.parse(body, backslashEscapes);
+    }
+
+    /**
+     * Create a descriptor out of the elements found by the parser.
+     *
+     * @param body Full test case body.
+     * @param head Full header or null if the body has no header.
+     * @param statements Statements of the body without their terminators.
+     * @param sections Section of each statement.
+     * @param backslashEscapes true, if the body has been parsed with backslash escapes.
+     * @return Descriptor of the given body.
+     */
+    static TestCaseDescriptor create(String body, String head, List<String> statements, List<String> sections,
+                                     boolean backslashEscapes) {
+        Map<String, List<String>> annotations = new LinkedHashMap<String, List<String>>();
+        if (head != null) {
+            Matcher annotationMatcher = PATTERN_ANNOTATION.matcher(head);
+            while (annotationMatcher.find()) {
+                annotations.computeIfAbsent(annotationMatcher.group(1), a -> new ArrayList<String>())
+                        .add(annotationMatcher.group(2).trim());
+            }
+        }
+
+        return new TestCaseDescriptor(body, head, Collections.unmodifiableList(new ArrayList<String>(statements)),
+                Collections.unmodifiableList(new ArrayList<String>(sections)), Collections.unmodifiableMap(annotations),
+                backslashEscapes);
+    }
+
+    /**
+     * @return The body this descriptor has been parsed from.
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @return true, if a backslash has been treated as escape character within literals.
+     */
+    public boolean isBackslashEscapes() {
+        return backslashEscapes;
+    }
+
+    /**
+     * @return Full header including multi-line comment elements or null if the body has no header.
+     */
+    public String getHead() {
+        return head;
+    }
+
+    /**
+     * Get the query evaluated by the test case. The query is the last statement of the check section, as it is the
+     * one returning the result.
+     *
+     * @return Query of the test case or null if the body does not contain a query.
+     */
+    public String getQuery() {
+        List<String> check = getStatements(TestCase.SECTION_CHECK);
+        return check.isEmpty() ? null : check.get(check.size() - 1);
+    }
+
+    /**
+     * @return All statements of the body in the order of their declaration, without terminators.
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Get the statements of a section in the order of their declaration.
+     *
+     * @param section Section, e.g. TestCase.SECTION_SETUP.
+     * @return List of statements, which is empty if the section has no statements.
+     */
+    public List<String> getStatements(String section) {
+        List<String> sectionStatements = new ArrayList<String>();
+
+        for (int i = 0; i < statements.size(); i++) {
+            if (sections.get(i).equals(section)) {
+                sectionStatements.add(statements.get(i));
+            }
+        }
+
+        return sectionStatements;
+    }
+
+    /**
+     * Get the statements executed in front of the query: the setup section followed by the statements of the check
+     * section preceding the query.
+     *
+     * @return List of statements, which is empty if the query is executed on its own.
+     */
+    public List<String> getSetupStatements() {
+        List<String> setup = getStatements(TestCase.SECTION_SETUP);
+        List<String> check = getStatements(TestCase.SECTION_CHECK);
+
+        if (check.size() > 1) {
+            setup.addAll(check.subList(0, check.size() - 1));
+        }
+
+        return setup;
+    }
+
+    /**
+     * @return Statements of the teardown section, executed after the query even if it failed.
+     */
+    public List<String> getTeardownStatements() {
+        return getStatements(TestCase.SECTION_TEARDOWN);
+    }
+
+    /**
+     * @return Value of the @package annotation or null if it is not declared.
+     */
+    public String getPackage() {
+        return pack;
+    }
+
+    /**
+     * @return Value of the @test annotation or null if it is not declared.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Identifier including package and name.
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Get the value of an annotation. If the annotation has been declared multiple times, the first value is returned.
+     *
+     * @param annotation Annotation including the leading @, e.g. @test.
+     * @return Value of the annotation or null if it is not declared.
+     */
+    public String getAnnotation(String annotation) {
+        List<String> values = annotations.get(annotation);
+        return (values == null) ? null : values.get(0);
+    }
+
+    /**
+     * Get all values of an annotation in the order of their declaration.
+     *
+     * @param annotation Annotation including the leading @, e.g. @test.
+     * @return List of values, which is empty if the annotation is not declared.
+     */
+    public List<String> getAnnotations(String annotation) {
+        List<String> values = annotations.get(annotation);
+        return (values == null) ? Collections.<String>emptyList() : Collections.unmodifiableList(values);
+    }
+
+    /**
+     * @return All annotations of the header with their values.
+     */
+    public Map<String, List<String>> getAnnotations() {
+        return annotations;
+    }
+}
@@ -0,0 +1,27 @@
+package de.dbtest.common;
+
+/**
+ * A test case listener is notified about changes of a test case. Listeners are registered at the test case via
+ * addListener(...), either to be notified synchronously by the thread changing the test case or asynchronously by an
+ * executor.
+ *
+ * @author Lennard Scheffler
+ */
+public interface TestCaseListener {
+
+    /**
+     * Called whenever the status of a test case at a target has been set.
+     *
+     * @param event Event describing the status change.
+     */
+    void statusChanged(StatusChangeEvent event);
+
+    /**
+     * Called whenever the body of a test case has been replaced. As a consequence the identifier of the test case may
+     * have changed.
+     *
+     * @param testCase Test case whose body has been replaced.
+     */
+    default void bodyChanged(TestCase testCase) {
+    }
+}
@@ -0,0 +1,409 @@
+package de.dbtest.common;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The test case parser is a hand-written lexer splitting a test case body into its header and its statements. The
+ * body is read exactly once, each character is looked at a single time, so parsing time and memory grow linearly with
+ * the size of the body, even for generated test files of several megabytes.<br />
+ * The lexer understands the following elements:
+ * <ul>
+ *     <li>The header, the first multi-line documentation comment (/** followed by a line break) outside of a
+ *     statement.</li>
+ *     <li>Block comments (/* ... *&#47;) and line comments (-- ...). Comments in front of a statement are not part of
+ *     the statement, comments within a statement are kept.</li>
+ *     <li>String literals ('...'), quoted identifiers ("..." and `...`), a doubled quote within a literal is an
+ *     escaped quote. Whether a backslash escapes the following character within '...' and "..." depends on the
+ *     dialect: MySQL treats it as escape character, Oracle as a regular character, so a literal like 'C:\' is
+ *     complete. Backslash escapes are enabled unless the dialect of the target is given.</li>
+ *     <li>Procedural blocks (BEGIN ... END, optionally preceded by DECLARE) and CASE ... END. Terminators within a
+ *     block do not end the statement, so a block is kept as a whole. BEGIN followed by a terminator, TRANSACTION,
+ *     WORK or TRAN starts a transaction and no block. The declarations of stored programs (CREATE PROCEDURE ... IS)
+ *     and dollar-quoted bodies are not recognized, their terminators still end the statement.</li>
+ *     <li>Statement terminators (;) outside of comments, literals and blocks. The terminator of the last statement
+ *     may be omitted.</li>
+ *     <li>Section markers, line comments in front of a statement consisting of a section annotation only
+ *     (-- @setup, -- @check or -- @teardown). All following statements belong to the section, statements in front of
+ *     the first marker belong to the check section.</li>
+ * </ul>
+ * A parser instance is not thread-safe and parses a single body.
+ *
+ * @author Lennard Scheffler
+ */
+public class TestCaseParser {
+
+    /* LEXER STATES ***************************************************************************************************/
+
+    private static final int STATE_CODE = 0;
+    private static final int STATE_LINE_COMMENT = 1;
+    private static final int STATE_BLOCK_COMMENT = 2;
+    private static final int STATE_LITERAL = 3;
+
+
+    /* BLOCK KEYWORDS *************************************************************************************************/
+
+    private static final String KEYWORD_BEGIN = "BEGIN";
+    private static final String KEYWORD_END = "END";
+    private static final String KEYWORD_DECLARE = "DECLARE";
+    private static final String KEYWORD_CASE = "CASE";
+
+    /**
+     * Keywords following BEGIN if it starts a transaction instead of a block.
+     */
+    private static final Set<String> TRANSACTION_KEYWORDS = new HashSet<String>(
+            Arrays.asList("TRANSACTION", "WORK", "TRAN"));
+
+    /**
+     * Keywords following END if it closes a control statement that did not open a block, e.g. END IF.
+     */
+    private static final Set<String> CONTROL_KEYWORDS = new HashSet<String>(
+            Arrays.asList("IF", "LOOP", "WHILE", "REPEAT"));
+
+    /**
+     * Number of characters read from a channel at once.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final StringBuilder body;
+    private final List<String> statements;
+    private final List<String> sections;
+    private final boolean backslashEscapes;
+
+    private String section;
+    private int position;
+    private int state;
+    private char quote;
+    private int commentStart;
+    private int statementStart;
+    private int headStart;
+    private int headEnd;
+    private int wordStart;
+    private int blockDepth;
+    private boolean declaration;
+    private String pendingKeyword;
+
+
+    private TestCaseParser(int capacity, boolean backslashEscapes) {
+        this.body = new StringBuilder(capacity);
+        this.backslashEscapes = backslashEscapes;
+        this.statements = new ArrayList<String>();
+        this.sections = new ArrayList<String>();
+        this.section = TestCase.SECTION_CHECK;
+        this.position = 0;
+        this.state = STATE_CODE;
+        this.commentStart = -1;
+        this.statementStart = -1;
+        this.headStart = -1;
+        this.headEnd = -1;
+        this.wordStart = -1;
+        this.blockDepth = 0;
+    }
+
+    /**
+     * Parse a test case body.
+     *
+     * @param body Full test case body.
+     * @return Descriptor of the given body.
+     */
+    public static TestCaseDescriptor parse(String body) {
+        return parse(body, true);
+    }
+
+    /**
+     * Parse a test case body written in a specific dialect.
+     *
+     * @param body Full test case body.
+     * @param backslashEscapes true, if a backslash escapes the following character within literals.
+     * @return Descriptor of the given body.
+     */
+    public static TestCaseDescriptor parse(String body, boolean backslashEscapes) {
+        TestCaseParser parser = new TestCaseParser(body.length(), backslashEscapes);
+        parser.body.append(body);
+        parser.lex(true);
+
+        return parser.createDescriptor(body);
+    }
+
+    /**
+     * Parse a test case file. The file is streamed through a file channel and decoded with the default charset.
+     *
+     * @param path Path to the test case file.
+     * @return Descriptor of the file content.
+     * @throws IOException If the file could not be read.
+     */
+    public static TestCaseDescriptor parse(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel, Charset.defaultCharset(), (int) Math.min(channel.size(), Integer.MAX_VALUE - 8));
+        }
+    }
+
+    /**
+     * Parse a test case body read from a channel. The channel is read until its end but not closed.
+     *
+     * @param channel Channel providing the body.
+     * @param charset Charset the body is encoded with, malformed input is replaced.
+     * @return Descriptor of the body.
+     * @throws IOException If the channel could not be read.
+     */
+    public static TestCaseDescriptor parse(ReadableByteChannel channel, Charset charset) throws IOException {
+        return parse(channel, charset, BUFFER_SIZE);
+    }
+
+    private static TestCaseDescriptor parse(ReadableByteChannel channel, Charset charset, int capacity)
+            throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        // The reader must not be closed, as closing it would close the channel as well.
+        Reader reader = Channels.newReader(channel, decoder, BUFFER_SIZE);
+        TestCaseParser parser = new TestCaseParser(capacity, true);
+        char[] buffer = new char[BUFFER_SIZE];
+
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            parser.body.append(buffer, 0, read);
+            parser.lex(false);
+        }
+
+        parser.lex(true);
+        return parser.createDescriptor(parser.body.toString());
+    }
+
+    /**
+     * Process all characters of the body read so far. The last character is held back until the end of the body has
+     * been reached, as it may be the first part of a two-character token like -- or /*.
+     *
+     * @param end true, if the whole body has been read.
+     */
+    private void lex(boolean end) {
+        int length = end ? body.length() : body.length() - 1;
+
+        while (position < length) {
+            char c = body.charAt(position);
+            char next = (position + 1 < body.length()) ? body.charAt(position + 1) : 0;
+
+            switch (state) {
+                case STATE_LINE_COMMENT:
+                    if (c == '\n') {
+                        endLineComment(position);
+                        state = STATE_CODE;
+                    }
+                    break;
+
+                case STATE_BLOCK_COMMENT:
+                    if (c == '*' && next == '/') {
+                        position++;
+                        endBlockComment();
+                        state = STATE_CODE;
+                    }
+                    break;
+
+                case STATE_LITERAL:
+                    if (c == '\\' && quote != '`' && backslashEscapes) {
+                        // A backslash escapes the following character within the literal.
+                        position++;
+                    } else if (c == quote) {
+                        if (next == quote) {
+                            // A doubled quote is an escaped quote within the literal.
+                            position++;
+                        } else {
+                            state = STATE_CODE;
+                        }
+                    }
+                    break;
+
+                default:
+                    lexCode(c, next);
+            }
+
+            position++;
+        }
+
+        if (end) {
+            if (state == STATE_LINE_COMMENT) {
+                endLineComment(body.length());
+            }
+            if (wordStart >= 0) {
+                endWord(body.length());
+            }
+            resolveKeyword(null);
+            endStatement(body.length());
+        }
+    }
+
+    private void lexCode(char c, char next) {
+        if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+            if (wordStart < 0) {
+                wordStart = position;
+            }
+            beginStatement();
+            return;
+        }
+
+        if (wordStart >= 0) {
+            endWord(position);
+        }
+
+        if (c == '@' && KEYWORD_DECLARE.equals(pendingKeyword)) {
+            // DECLARE @variable declares a variable of a batch, there is no block following.
+            pendingKeyword = null;
+        }
+
+        if (c == '-' && next == '-') {
+            state = STATE_LINE_COMMENT;
+            commentStart = position;
+            position++;
+        } else if (c == '/' && next == '*') {
+            state = STATE_BLOCK_COMMENT;
+            commentStart = position;
+            position++;
+        } else if (c == '\'' || c == '"' || c == '`') {
+            state = STATE_LITERAL;
+            quote = c;
+            beginStatement();
+        } else if (c == ';') {
+            resolveKeyword(null);
+            if (blockDepth == 0) {
+                endStatement(position);
+            }
+        } else if (!Character.isWhitespace(c)) {
+            beginStatement();
+        }
+    }
+
+    private void beginStatement() {
+        if (statementStart < 0) {
+            statementStart = position;
+        }
+    }
+
+    private void endStatement(int end) {
+        if (statementStart >= 0) {
+            statements.add(body.substring(statementStart, end).trim());
+            sections.add(section);
+            statementStart = -1;
+        }
+
+        blockDepth = 0;
+        declaration = false;
+        pendingKeyword = null;
+    }
+
+    /**
+     * Keep track of the blocks a word opens or closes. BEGIN, END and DECLARE are only decided on by the following
+     * word or terminator.
+     */
+    private void endWord(int end) {
+        String word = body.substring(wordStart, end).toUpperCase(Locale.ROOT);
+        wordStart = -1;
+
+        if (resolveKeyword(word)) {
+            return;
+        }
+
+        if (KEYWORD_BEGIN.equals(word) || KEYWORD_END.equals(word)) {
+            pendingKeyword = word;
+        } else if (KEYWORD_DECLARE.equals(word) && blockDepth == 0) {
+            // Only a declaration outside of a block starts a block, declarations within a block are statements.
+            pendingKeyword = word;
+        } else if (KEYWORD_CASE.equals(word)) {
+            blockDepth++;
+        }
+    }
+
+    /**
+     * Decide on the pending keyword by the word following it.
+     *
+     * @param word Following word in upper case or null, if the keyword is followed by a terminator.
+     * @return true, if the word belongs to the keyword and must not be looked at on its own.
+     */
+    private boolean resolveKeyword(String word) {
+        String keyword = pendingKeyword;
+        pendingKeyword = null;
+
+        if (KEYWORD_BEGIN.equals(keyword)) {
+            if (word != null && !TRANSACTION_KEYWORDS.contains(word)) {
+                // The block of a declaration has been opened by DECLARE already.
+                if (declaration) {
+                    declaration = false;
+                } else {
+                    blockDepth++;
+                }
+            }
+        } else if (KEYWORD_END.equals(keyword)) {
+            if (word != null && CONTROL_KEYWORDS.contains(word)) {
+                return true;
+            }
+            blockDepth = Math.max(0, blockDepth - 1);
+            return KEYWORD_CASE.equals(word);
+        } else if (KEYWORD_DECLARE.equals(keyword) && word != null) {
+            blockDepth++;
+            declaration = true;
+        }
+
+        return false;
+    }
+
+    /**
+     * A line comment in front of a statement may switch the section of the following statements.
+     */
+    private void endLineComment(int end) {
+        if (statementStart < 0) {
+            String text = body.substring(commentStart + 2, end).trim();
+
+            for (String s : TestCase.SECTIONS) {
+                if (s.equalsIgnoreCase(text)) {
+                    section = s;
+                }
+            }
+        }
+
+        commentStart = -1;
+    }
+
+    /**
+     * The first documentation comment outside of a statement is the header of the test case.
+     */
+    private void endBlockComment() {
+        if (headStart < 0 && statementStart < 0 && isDocumentationComment(commentStart)) {
+            headStart = commentStart;
+            headEnd = position + 1;
+        }
+
+        commentStart = -1;
+    }
+
+    private boolean isDocumentationComment(int start) {
+        int i = start + 3;
+
+        if (i > position - 1 || body.charAt(start + 2) != '*') {
+            return false;
+        }
+
+        return body.charAt(i) == '\n' || (body.charAt(i) == '\r' && i + 1 < position && body.charAt(i + 1) == '\n');
+    }
+
+    private TestCaseDescriptor createDescriptor(String text) {
+        String head = (headStart < 0) ? null : text.substring(headStart, headEnd);
+        return TestCaseDescriptor.create(text, head, statements, sections, backslashEscapes);
+    }
+}
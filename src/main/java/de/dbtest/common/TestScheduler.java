@@ -0,0 +1,440 @@
+package de.dbtest.common;
+
+import de.dbtest.metrics.TargetMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The test scheduler orders the execution of test cases at a target by their dependencies. The test cases and their
+ * dependencies declared by @depends form a directed acyclic graph. A test case becomes ready as soon as all of its
+ * dependencies passed, independent test cases are ready at the same time and may be executed in parallel. If a
+ * dependency did not pass, all test cases depending on it directly or transitively are skipped.<br />
+ * Test cases that are part of a dependency cycle or depend on an unknown test case are skipped right away. A
+ * dependency that is not scheduled itself, e.g. because only failed test cases are executed again, is satisfied if
+ * it already passed at the target.<br />
+ * Ready test cases are handed out longest first, based on their expected duration at the target. The priority of a
+ * test case also includes the longest chain of test cases depending on it, so long chains are started early and do
+ * not stretch the wall time of the run at the end.
+ *
+ * @author Lennard Scheffler
+ */
+public class TestScheduler {
+
+    /**
+     * Expected duration in milliseconds of test cases without history, if no other test case has a history at the
+     * target either.
+     */
+    public static final long DEFAULT_EXPECTED_DURATION = 1000;
+
+    private static final Logger LOGGER = LogManager.getLogger(TestScheduler.class);
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final String targetIdentifier;
+    private final TargetMetrics metrics;
+
+    private final Map<TestCase, List<TestCase>> dependents;
+    private final Map<TestCase, Integer> openDependencies;
+    private final Map<TestCase, Long> expectedDurations;
+    private final Map<TestCase, Long> priorities;
+    private final PriorityQueue<TestCase> ready;
+    private final List<TestCase> skipped;
+    private final Set<TestCase> finished;
+
+    private int running;
+    private boolean stopped;
+    private boolean history;
+
+
+    /**
+     * Create a scheduler and resolve the dependencies of the given test cases.
+     *
+     * @param testCases Test cases to be executed.
+     * @param lookup Function resolving a test case identifier to a test case, returns null for unknown identifiers.
+     * @param targetIdentifier Identifier of the target the test cases are executed at.
+     * @param metrics Metrics of the target the number of ready test cases is reported to as queue depth, may be null.
+     */
+    public TestScheduler(Collection<TestCase> testCases, Function<String, TestCase> lookup, String targetIdentifier,
+                         TargetMetrics metrics) {
+        this.targetIdentifier = targetIdentifier;
+        this.metrics = metrics;
+        this.dependents = new HashMap<TestCase, List<TestCase>>();
+        this.openDependencies = new LinkedHashMap<TestCase, Integer>();
+        this.expectedDurations = new HashMap<TestCase, Long>();
+        this.priorities = new HashMap<TestCase, Long>();
+        this.ready = new PriorityQueue<TestCase>(Comparator.comparing(priorities::get, Comparator.reverseOrder()));
+        this.skipped = new ArrayList<TestCase>();
+        this.finished = new HashSet<TestCase>();
+
+        for (TestCase t : testCases) {
+            openDependencies.put(t, 0);
+        }
+
+        List<TestCase> blocked = new ArrayList<TestCase>();
+        for (TestCase t : testCases) {
+            for (String identifier : t.getDependencies()) {
+                TestCase dependency = lookup.apply(identifier);
+
+                if (dependency == null) {
+                    LOGGER.warn("Test case [{}] depends on unknown test case [{}]", t.getIdentifier(), identifier);
+                    blocked.add(t);
+                }
+                else if (openDependencies.containsKey(dependency)) {
+                    dependents.computeIfAbsent(dependency, d -> new ArrayList<TestCase>()).add(t);
+                    openDependencies.merge(t, 1, Integer::sum);
+                }
+                else if (!isPassed(dependency)) {
+                    blocked.add(t);
+                }
+            }
+        }
+
+        for (TestCase t : blocked) {
+            skip(t);
+        }
+
+        estimateDurations();
+        for (TestCase t : openDependencies.keySet()) {
+            prioritize(t, new HashSet<TestCase>());
+        }
+
+        for (Map.Entry<TestCase, Integer> entry : openDependencies.entrySet()) {
+            if (entry.getValue() == 0 && !finished.contains(entry.getKey())) {
+                makeReady(entry.getKey());
+            }
+        }
+
+        for (TestCase t : findCycles()) {
+            LOGGER.warn("Test case [{}] is part of a dependency cycle", t.getIdentifier());
+            skip(t);
+        }
+    }
+
+    /**
+     * Take the next ready test case, if the number of test cases being executed is below the limit. The test case is
+     * considered running until it is passed to complete(...).
+     *
+     * @param limit Maximum number of test cases executed at the same time.
+     * @return Next test case to be executed or null if no test case is ready or the limit has been reached.
+     */
+    public synchronized TestCase next(int limit) {
+        if (stopped || running >= limit || ready.isEmpty()) {
+            return null;
+        }
+
+        running++;
+        if (metrics != null) {
+            metrics.dequeued(1);
+        }
+
+        return ready.poll();
+    }
+
+    /**
+     * Take the next ready test case together with further ready test cases that can be executed within the same
+     * statement. The batch occupies a single slot of the limit. If the next test case cannot be batched, it is
+     * returned on its own.
+     *
+     * @param limit Maximum number of test cases or batches executed at the same time.
+     * @param size Maximum number of test cases within the batch.
+     * @param batchable Predicate deciding whether a test case can be part of a batch.
+     * @return Test cases to be executed, which is empty if no test case is ready or the limit has been reached.
+     */
+    public synchronized List<TestCase> nextBatch(int limit, int size, Predicate<TestCase> batchable) {
+        TestCase first = next(limit);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+
+        List<TestCase> batch = new ArrayList<TestCase>();
+        batch.add(first);
+
+        if (size > 1 && batchable.test(first)) {
+            List<TestCase> deferred = new ArrayList<TestCase>();
+
+            while (batch.size() < size && !ready.isEmpty()) {
+                TestCase t = ready.poll();
+                if (batchable.test(t)) {
+                    batch.add(t);
+                    if (metrics != null) {
+                        metrics.dequeued(1);
+                    }
+                } else {
+                    deferred.add(t);
+                }
+            }
+
+            ready.addAll(deferred);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Complete the execution of a test case. If the test case passed, dependents whose dependencies all passed become
+     * ready, otherwise all of its dependents are skipped.
+     *
+     * @param testCase Executed test case.
+     * @param status Status the execution finished with.
+     */
+    public synchronized void complete(TestCase testCase, int status) {
+        complete(Collections.singletonMap(testCase, status));
+    }
+
+    /**
+     * Complete the execution of test cases that have been handed out together by nextBatch(...).
+     *
+     * @param statuses Status of each executed test case.
+     */
+    public synchronized void complete(Map<TestCase, Integer> statuses) {
+        running--;
+
+        for (Map.Entry<TestCase, Integer> executed : statuses.entrySet()) {
+            finished.add(executed.getKey());
+
+            for (TestCase dependent : dependents.getOrDefault(executed.getKey(), Collections.<TestCase>emptyList())) {
+                if (finished.contains(dependent)) {
+                    continue;
+                }
+
+                if (executed.getValue() != TestCase.TCS_PASSED) {
+                    skip(dependent);
+                }
+                else if (openDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                    makeReady(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the test cases that have been skipped since the last call. The caller is responsible for setting their
+     * status and reporting them.
+     *
+     * @return Skipped test cases in the order they have been skipped.
+     */
+    public synchronized List<TestCase> drainSkipped() {
+        List<TestCase> drained = new ArrayList<TestCase>(skipped);
+        skipped.clear();
+        return drained;
+    }
+
+    /**
+     * Predict the wall time of the execution by simulating it with the expected durations, assuming all test cases
+     * pass. Test cases that have already been skipped are not considered, so the prediction should be made before the
+     * execution starts.
+     *
+     * @param limit Maximum number of test cases executed at the same time.
+     * @return Predicted wall time in milliseconds, 0 if none of the test cases has been executed at the target before.
+     */
+    public synchronized long predictMakespan(int limit) {
+        if (!history) {
+            return 0;
+        }
+
+        Map<TestCase, Integer> open = new HashMap<TestCase, Integer>();
+        for (List<TestCase> l : dependents.values()) {
+            for (TestCase dependent : l) {
+                open.merge(dependent, 1, Integer::sum);
+            }
+        }
+
+        Queue<TestCase> simulatedReady = new PriorityQueue<TestCase>(ready.comparator());
+        for (TestCase t : openDependencies.keySet()) {
+            if (!finished.contains(t) && !open.containsKey(t)) {
+                simulatedReady.add(t);
+            }
+        }
+
+        // Running test cases ordered by the time they finish.
+        PriorityQueue<Map.Entry<Long, TestCase>> simulatedRunning = new PriorityQueue<Map.Entry<Long, TestCase>>(
+                Comparator.comparing(Map.Entry::getKey));
+        long time = 0;
+
+        while (!simulatedReady.isEmpty() || !simulatedRunning.isEmpty()) {
+            while (simulatedRunning.size() < limit && !simulatedReady.isEmpty()) {
+                TestCase t = simulatedReady.poll();
+                simulatedRunning.add(new AbstractMap.SimpleEntry<Long, TestCase>(time + expectedDurations.get(t), t));
+            }
+
+            Map.Entry<Long, TestCase> completed = simulatedRunning.poll();
+            time = completed.getKey();
+
+            for (TestCase dependent : dependents.getOrDefault(completed.getValue(), Collections.<TestCase>emptyList())) {
+                if (!finished.contains(dependent) && open.merge(dependent, -1, Integer::sum) == 0) {
+                    simulatedReady.add(dependent);
+                }
+            }
+        }
+
+        return time;
+    }
+
+    /**
+     * Stop handing out test cases, e.g. after the timeout of the execution expired.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        skipped.clear();
+
+        if (metrics != null) {
+            metrics.dequeued(ready.size());
+        }
+        ready.clear();
+    }
+
+    /**
+     * @return true, if all scheduled test cases have been executed or skipped.
+     */
+    public synchronized boolean isFinished() {
+        return finished.size() == openDependencies.size();
+    }
+
+    /**
+     * @param testCase Scheduled test case.
+     * @return true, if the test case has been executed and completed.
+     */
+    public synchronized boolean isFinished(TestCase testCase) {
+        return finished.contains(testCase);
+    }
+
+    /**
+     * @return All scheduled test cases.
+     */
+    public Set<TestCase> getTestCases() {
+        return Collections.unmodifiableSet(openDependencies.keySet());
+    }
+
+    /**
+     * @return Number of test cases or batches handed out and not completed yet.
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return Number of scheduled test cases.
+     */
+    public int size() {
+        return openDependencies.size();
+    }
+
+    /**
+     * @param testCase Scheduled test case.
+     * @return Expected duration of the test case at the target in milliseconds, including the estimate for test cases
+     * without history.
+     */
+    public long getExpectedDuration(TestCase testCase) {
+        return expectedDurations.get(testCase);
+    }
+
+    /**
+     * Look up the expected durations at the target. Test cases without history are expected to take as long as the
+     * average test case with history.
+     */
+    private void estimateDurations() {
+        long total = 0;
+        int known = 0;
+
+        for (TestCase t : openDependencies.keySet()) {
+            long duration = t.getExpectedDuration(targetIdentifier);
+            if (duration > 0) {
+                expectedDurations.put(t, duration);
+                total += duration;
+                known++;
+            }
+        }
+
+        history = known > 0;
+        long estimate = history ? total / known : DEFAULT_EXPECTED_DURATION;
+        for (TestCase t : openDependencies.keySet()) {
+            expectedDurations.putIfAbsent(t, estimate);
+        }
+    }
+
+    /**
+     * Compute the priority of a test case as its expected duration plus the longest expected chain of its dependents.
+     */
+    private long prioritize(TestCase testCase, Set<TestCase> visiting) {
+        Long priority = priorities.get(testCase);
+        if (priority != null) {
+            return priority;
+        }
+
+        // Cycles are skipped anyway, they just must not lead to an endless recursion.
+        if (!visiting.add(testCase)) {
+            return 0;
+        }
+
+        long longestChain = 0;
+        for (TestCase dependent : dependents.getOrDefault(testCase, Collections.<TestCase>emptyList())) {
+            longestChain = Math.max(longestChain, prioritize(dependent, visiting));
+        }
+
+        priority = expectedDurations.get(testCase) + longestChain;
+        priorities.put(testCase, priority);
+        return priority;
+    }
+
+    private boolean isPassed(TestCase testCase) {
+        Integer status = testCase.getStatuses().get(targetIdentifier);
+        return status != null && status == TestCase.TCS_PASSED;
+    }
+
+    private void makeReady(TestCase testCase) {
+        ready.add(testCase);
+        if (metrics != null) {
+            metrics.enqueued();
+        }
+    }
+
+    private void skip(TestCase testCase) {
+        if (!finished.add(testCase)) {
+            return;
+        }
+
+        if (!stopped) {
+            skipped.add(testCase);
+        }
+
+        for (TestCase dependent : dependents.getOrDefault(testCase, Collections.<TestCase>emptyList())) {
+            skip(dependent);
+        }
+    }
+
+    /**
+     * Find the test cases that can never become ready because they are part of a cycle or depend on one. These are the
+     * test cases left over after removing all test cases reachable from the ready ones (Kahn's algorithm).
+     */
+    private List<TestCase> findCycles() {
+        Map<TestCase, Integer> remaining = new HashMap<TestCase, Integer>(openDependencies);
+        Queue<TestCase> reachable = new ArrayDeque<TestCase>(ready);
+        Set<TestCase> resolved = new HashSet<TestCase>(finished);
+
+        while (!reachable.isEmpty()) {
+            TestCase t = reachable.poll();
+            resolved.add(t);
+
+            for (TestCase dependent : dependents.getOrDefault(t, Collections.<TestCase>emptyList())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    reachable.add(dependent);
+                }
+            }
+        }
+
+        // Dependents of skipped test cases have already been skipped, everything else left over is blocked by a cycle.
+        List<TestCase> cyclic = new ArrayList<TestCase>();
+        for (TestCase t : openDependencies.keySet()) {
+            if (!resolved.contains(t)) {
+                cyclic.add(t);
+            }
+        }
+
+        return cyclic;
+    }
+}
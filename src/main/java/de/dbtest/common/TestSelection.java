@@ -0,0 +1,100 @@
+package de.dbtest.common;
+
+import java.util.Set;
+
+/**
+ * The test selection decides which test cases of a set are executed at a target, based on their current status at
+ * the target. This allows to rerun only the test cases that did not pass or whose result is outdated instead of the
+ * whole set.
+ *
+ * @author Lennard Scheffler
+ */
+public class TestSelection {
+
+    /* SELECTION MODES ************************************************************************************************/
+
+    /**
+     * All test cases are executed.
+     */
+    public static final String SELECT_ALL = "all";
+
+    /**
+     * Only test cases that failed, stopped, timed out or have been skipped at the target are executed.
+     */
+    public static final String SELECT_FAILED = "failed";
+
+    /**
+     * Only test cases that have never been executed at the target are executed.
+     */
+    public static final String SELECT_NEW = "new";
+
+    /**
+     * Only test cases whose status at the target is older than the maximum age are executed, including test cases
+     * that have never been executed at the target.
+     */
+    public static final String SELECT_STALE = "stale";
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final String mode;
+    private final long maxAge;
+
+
+    /**
+     * Create a selection of all test cases.
+     */
+    public TestSelection() {
+        this(SELECT_ALL, 0);
+    }
+
+    /**
+     * Create a selection.
+     *
+     * @param mode Selection mode (see SELECT_*).
+     * @param maxAge Maximum age of a status in milliseconds, only used by the mode stale.
+     * @throws IllegalArgumentException If the mode is unknown.
+     */
+    public TestSelection(String mode, long maxAge) {
+        if (!SELECT_ALL.equals(mode) && !SELECT_FAILED.equals(mode) && !SELECT_NEW.equals(mode) && !SELECT_STALE.equals(mode)) {
+            throw new IllegalArgumentException("Unknown test selection: " + mode);
+        }
+
+        this.mode = mode;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Select the test cases of a set to be executed at a target.
+     *
+     * @param testSet Test set to select from.
+     * @param targetIdentifier Identifier of the target.
+     * @return Selected test cases.
+     */
+    public Set<TestCase> select(TestSet testSet, String targetIdentifier) {
+        switch (mode) {
+            case SELECT_FAILED:
+                return testSet.getFailedTestCases(targetIdentifier);
+            case SELECT_NEW:
+                return testSet.getUnexecutedTestCases(targetIdentifier);
+            case SELECT_STALE:
+                return testSet.getTestCasesOlderThan(targetIdentifier, System.currentTimeMillis() - maxAge);
+            default:
+                return testSet.getTestCases();
+        }
+    }
+
+    /**
+     * @return Selection mode (see SELECT_*).
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Maximum age of a status in milliseconds used by the mode stale.
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+}
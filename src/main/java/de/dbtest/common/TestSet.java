@@ -1,22 +1,54 @@
 package de.dbtest.common;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * A test set captures and manages multiple test cases. When executing a test set all included test cases will be executed. While executing
  *
  * @author Lennard Scheffler
  */
-public class TestSet implements Observer, Executable {
+public class TestSet implements TestCaseListener, Executable {
+
+    private static final Logger LOGGER = LogManager.getLogger(TestSet.class);
+
+    /**
+     * Time in milliseconds cancelled test cases get to finish after the timeout of a parallel execution expired.
+     */
+    public static final long CANCEL_TIMEOUT = 10000;
 
     private Set<TestCase> testCases;
+    private ExecutionOptions options;
+
+    /* Lookup indexes, maintained on every change of a test case */
+    private final Object indexLock = new Object();
+    private Map<String, Set<TestCase>> identifierIndex;
+    private Map<TestCase, String> indexedIdentifiers;
+    private Map<String, Map<Integer, Set<TestCase>>> statusIndex;
+    private Map<TestCase, Map<String, Integer>> indexedStatuses;
 
     public TestSet() {
         this.testCases = new HashSet<TestCase>();
+        this.options = new ExecutionOptions();
+        this.identifierIndex = new HashMap<String, Set<TestCase>>();
+        this.indexedIdentifiers = new HashMap<TestCase, String>();
+        this.statusIndex = new HashMap<String, Map<Integer, Set<TestCase>>>();
+        this.indexedStatuses = new HashMap<TestCase, Map<String, Integer>>();
     }
 
     public TestSet(Collection<TestCase> testCases) {
@@ -24,13 +56,46 @@ public class TestSet implements Observer, Executable {
         addAll(testCases);
     }
 
-    public void update(Observable observable, Object o) {
+    /**
+     * Keep the status index up to date whenever a status of a test case changes. The current status is read from the
+     * test case, so the index stays consistent even if concurrent changes are delivered out of order.
+     */
+    @Override
+    public void statusChanged(StatusChangeEvent event) {
+        synchronized (indexLock) {
+            if (indexedIdentifiers.containsKey(event.getTestCase())) {
+                indexStatus(event.getTestCase(), event.getTargetIdentifier());
+            }
+        }
+    }
 
+    /**
+     * Keep the identifier index up to date whenever the body of a test case changes.
+     */
+    @Override
+    public void bodyChanged(TestCase testCase) {
+        synchronized (indexLock) {
+            if (indexedIdentifiers.containsKey(testCase)) {
+                indexIdentifier(testCase);
+            }
+        }
     }
 
     public boolean add(TestCase testCase) {
-        testCase.addObserver(this);
-        return this.testCases.add(testCase);
+        synchronized (indexLock) {
+            boolean added = this.testCases.add(testCase);
+
+            if (added) {
+                testCase.addListener(this);
+            }
+
+            indexIdentifier(testCase);
+            for (String targetIdentifier : testCase.getStatuses().keySet()) {
+                indexStatus(testCase, targetIdentifier);
+            }
+
+            return added;
+        }
     }
 
     public boolean addAll(Collection<TestCase> testCases) {
@@ -43,55 +108,715 @@ public class TestSet implements Observer, Executable {
     }
 
     public boolean remove(TestCase testCase) {
-        testCase.deleteObserver(this);
-        return this.testCases.remove(testCase);
+        testCase.removeListener(this);
+
+        synchronized (indexLock) {
+            unindex(testCase);
+            return this.testCases.remove(testCase);
+        }
     }
 
+    /**
+     * Get a test case by its identifier. The lookup uses the identifier index of the set.
+     *
+     * @param identifier Full qualified test case identifier.
+     * @return Test case with the given identifier or null if the set does not contain such a test case.
+     */
     public TestCase get(String identifier) {
-        //noinspection Since15
-        List<TestCase> l = testCases.stream().filter(s -> s.getIdentifier().equals(identifier)).collect(Collectors.toList());
+        synchronized (indexLock) {
+            Set<TestCase> l = identifierIndex.get(identifier);
 
-        if (l.size() == 0) return null;
+            if (l == null) return null;
 
-        return l.get(0);
+            return l.iterator().next();
+        }
+    }
+
+    private void indexIdentifier(TestCase testCase) {
+        String identifier = testCase.getIdentifier();
+        String indexedIdentifier = indexedIdentifiers.put(testCase, identifier);
+
+        if (!identifier.equals(indexedIdentifier)) {
+            removeFromIndex(identifierIndex, indexedIdentifier, testCase);
+            identifierIndex.computeIfAbsent(identifier, k -> new LinkedHashSet<TestCase>()).add(testCase);
+        }
+    }
+
+    private void indexStatus(TestCase testCase, String targetIdentifier) {
+        Integer status = testCase.getStatuses().get(targetIdentifier);
+        if (status == null) {
+            return;
+        }
+
+        Map<String, Integer> indexedStatus = indexedStatuses.computeIfAbsent(testCase, k -> new HashMap<String, Integer>());
+        Integer previousStatus = indexedStatus.put(targetIdentifier, status);
+
+        if (!status.equals(previousStatus)) {
+            Map<Integer, Set<TestCase>> targetIndex = statusIndex.computeIfAbsent(targetIdentifier, k -> new HashMap<Integer, Set<TestCase>>());
+            removeFromIndex(targetIndex, previousStatus, testCase);
+            targetIndex.computeIfAbsent(status, k -> new HashSet<TestCase>()).add(testCase);
+        }
+    }
+
+    private void unindex(TestCase testCase) {
+        removeFromIndex(identifierIndex, indexedIdentifiers.remove(testCase), testCase);
+
+        Map<String, Integer> indexedStatus = indexedStatuses.remove(testCase);
+        if (indexedStatus != null) {
+            for (Map.Entry<String, Integer> targetStatus : indexedStatus.entrySet()) {
+                removeFromIndex(statusIndex.get(targetStatus.getKey()), targetStatus.getValue(), testCase);
+            }
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<TestCase>> index, K key, TestCase testCase) {
+        if (index == null || key == null) {
+            return;
+        }
+
+        Set<TestCase> indexedTestCases = index.get(key);
+        if (indexedTestCases != null) {
+            indexedTestCases.remove(testCase);
+            if (indexedTestCases.isEmpty()) {
+                index.remove(key);
+            }
+        }
     }
 
     @Override
     public boolean execute(UniversalDatabaseConnector target) {
-        boolean testResult = true;
-        for(TestCase t : testCases) {
-            testResult = testResult && t.execute(target);
+        return execute(target, null).isSuccessful();
+    }
+
+    /**
+     * Execute all test cases of the set one after another at a specific target. Test cases are executed after the test
+     * cases they depend on, dependents of test cases that did not pass are skipped. If the snapshot demanded by the
+     * options cannot be started, no test case is executed and the summary carries the error.
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param resultListener Listener that is called as soon as a test case has been executed or skipped, may be null.
+     * @return Summary of the execution results.
+     */
+    public ExecutionSummary execute(UniversalDatabaseConnector target, Consumer<TestCase> resultListener) {
+        ExecutionSummary summary = new ExecutionSummary();
+        long start = System.currentTimeMillis();
+        TestScheduler scheduler = createScheduler(target);
+        summary.setPredictedWallTime(scheduler.predictMakespan(1));
+
+        UniversalDatabaseConnector session;
+        try {
+            session = beginSession(target);
+        } catch (IllegalStateException e) {
+            summary.setError(e);
+            summary.setWallTime(System.currentTimeMillis() - start);
+            return summary;
         }
-        return testResult;
+
+        try {
+            executeSequential(scheduler, session, summary, resultListener);
+        } finally {
+            endSession(session);
+        }
+
+        summary.setWallTime(System.currentTimeMillis() - start);
+        return summary;
     }
 
-    public void executeParallel(UniversalDatabaseConnector target, int parallel, long timeout, TimeUnit timeUnit) {
-        ExecutorService threadPool = Executors.newFixedThreadPool(parallel);
+    /**
+     * Execute the test cases of the scheduler one after another, until no test case is left.
+     */
+    private void executeSequential(TestScheduler scheduler, UniversalDatabaseConnector target, ExecutionSummary summary,
+                                   Consumer<TestCase> resultListener) {
+        while (true) {
+            for (TestCase t : skip(scheduler, target)) {
+                summary.record(TestCase.TCS_SKIPPED);
+                if (resultListener != null) {
+                    resultListener.accept(t);
+                }
+            }
 
-        for(TestCase t : testCases) {
-            threadPool.submit(new Runnable() {
-                @Override
-                public void run() {
-                    t.execute(target);
+            List<TestCase> batch = nextBatch(scheduler, 1);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<ExecutionResult> results;
+            try {
+                results = executeBatch(batch, target);
+            } catch (RuntimeException e) {
+                results = stop(batch, target, e);
+            }
+
+            scheduler.complete(getStatuses(batch, results));
+            for (int i = 0; i < batch.size(); i++) {
+                summary.record(results.get(i).getStatus());
+                if (resultListener != null) {
+                    resultListener.accept(batch.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * See explanation of invoked method.
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param parallel Number of test cases executed at the same time.
+     * @param timeout Maximum time to wait for all test cases to finish.
+     * @param timeUnit Unit of the timeout.
+     * @return Summary of the execution results.
+     */
+    public ExecutionSummary executeParallel(UniversalDatabaseConnector target, int parallel, long timeout, TimeUnit timeUnit) {
+        return executeParallel(target, parallel, timeout, timeUnit, null);
+    }
+
+    /**
+     * Execute all test cases of the set concurrently at a specific target. Independent test cases are executed in
+     * parallel, a test case is started as soon as the test cases it depends on passed and is skipped if one of them
+     * did not pass. Ready test cases are started longest first according to their previous durations at the target.
+     * Test cases still running when the timeout expired are counted as timed out. Their statements are cancelled at
+     * the database and they are passed to the listener with the status timeout. Test cases that have not been started
+     * until then are skipped. Within a snapshot (see
+     * ExecutionOptions.setSnapshot(...)) the test cases are executed one after another, if the snapshot cannot be
+     * started no test case is executed and the summary carries the error. With an adaptive concurrency
+     * (see ExecutionOptions.setMinParallel(...)) the number of test cases executed at the same time follows the load of
+     * the target, starting at the lower bound.
+     *
+     * @param target Target object that is used for building a connection to the target database.
+     * @param parallel Number of test cases executed at the same time, the upper bound with an adaptive concurrency.
+     * @param timeout Maximum time to wait for all test cases to finish.
+     * @param timeUnit Unit of the timeout.
+     * @param resultListener Listener that is called as soon as a test case has been executed or skipped, may be null.
+     *                       The listener is called from the executing threads.
+     * @return Summary of the execution results.
+     */
+    public ExecutionSummary executeParallel(UniversalDatabaseConnector target, int parallel, long timeout, TimeUnit timeUnit,
+                                            Consumer<TestCase> resultListener) {
+        ExecutionSummary summary = new ExecutionSummary();
+        long start = System.currentTimeMillis();
+        TestScheduler scheduler = createScheduler(target);
+
+        // A snapshot is bound to a single connection, so its test cases are executed one after another.
+        int limit = options.isSnapshot() ? 1 : parallel;
+        ConcurrencyLimiter limiter = options.isAdaptive()
+                ? new ConcurrencyLimiter(Math.min(options.getMinParallel(), limit), limit)
+                : new ConcurrencyLimiter(limit, limit);
+        summary.setPredictedWallTime(scheduler.predictMakespan(limit));
+
+        UniversalDatabaseConnector session;
+        try {
+            session = beginSession(target);
+        } catch (IllegalStateException e) {
+            summary.setError(e);
+            summary.setWallTime(System.currentTimeMillis() - start);
+            return summary;
+        }
+
+        try {
+            // A test case is completed either by its execution, by being skipped or by the timeout, whichever comes
+            // first.
+            Set<TestCase> completed = ConcurrentHashMap.newKeySet();
+            CountDownLatch remaining = new CountDownLatch(scheduler.size());
+
+            ExecutorService threadPool = Executors.newFixedThreadPool(limit);
+
+            schedule(scheduler, session, threadPool, limiter, (t, result) -> {
+                if (completed.add(t)) {
+                    summary.record(result.getStatus());
+                    if (resultListener != null) {
+                        resultListener.accept(t);
+                    }
+                    remaining.countDown();
                 }
             });
+
+            try {
+                remaining.await(timeout, timeUnit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            scheduler.stop();
+
+            // Test cases that did not finish in time are claimed, so a result arriving late is not reported.
+            List<TestCase> unfinished = new ArrayList<TestCase>();
+            for (TestCase t : scheduler.getTestCases()) {
+                if (completed.add(t)) {
+                    unfinished.add(t);
+                }
+            }
+
+            Set<TestCase> timedOut = new HashSet<TestCase>();
+            if (unfinished.isEmpty()) {
+                threadPool.shutdown();
+            }
+            else {
+                // Release the database resources of test cases that are still running and wait for them to finish,
+                // so they do not use the connections of the target any more.
+                threadPool.shutdownNow();
+                for (TestCase t : unfinished) {
+                    if (t.cancel(target.getIdentifier())) {
+                        timedOut.add(t);
+                    }
+                }
+                awaitTermination(threadPool);
+            }
+
+            for (TestCase t : unfinished) {
+                if (timedOut.contains(t)) {
+                    // A test case that finished after the timeout expired has not been cancelled in time, it times
+                    // out anyway.
+                    t.setStatus(target.getIdentifier(), TestCase.TCS_TIMEOUT);
+                    summary.recordTimedOut();
+                }
+                else if (scheduler.isFinished(t)) {
+                    // The test case finished with its own status before its result could be reported.
+                    summary.record(t.getStatus(target.getIdentifier()));
+                }
+                else {
+                    // The test case has not been started, so it did not time out.
+                    t.setStatus(target.getIdentifier(), TestCase.TCS_SKIPPED);
+                    summary.record(TestCase.TCS_SKIPPED);
+                }
+
+                if (resultListener != null) {
+                    resultListener.accept(t);
+                }
+            }
+        } finally {
+            // The snapshot has to be ended even if the execution failed, as it holds a connection of the target.
+            endSession(session);
         }
 
-        threadPool.shutdown();
+        summary.setWallTime(System.currentTimeMillis() - start);
+        return summary;
+    }
 
+    /**
+     * Wait for the cancelled test cases of a timed out execution to finish, at most CANCEL_TIMEOUT milliseconds.
+     */
+    private static void awaitTermination(ExecutorService threadPool) {
         try {
-            threadPool.awaitTermination(timeout, timeUnit);
+            threadPool.awaitTermination(CANCEL_TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Execute all test cases of the set at multiple targets at the same time. The test cases are shared across all
+     * targets, each target runs its own parallel execution with a separate concurrency limit. The number of test
+     * cases executed at the same time at a target is limited by the parallel parameter and the maximum pool size of
+     * the target.
+     *
+     * @param targets Targets the test cases are executed at.
+     * @param parallel Number of test cases executed at the same time at each target.
+     * @param timeout Maximum time to wait for all test cases to finish at each target.
+     * @param timeUnit Unit of the timeout.
+     * @param resultListener Listener that is called as soon as a test case has been executed at a target, may be
+     *                       null. The listener is called from the executing threads.
+     * @return Summary of the execution results mapped by target identifier.
+     */
+    public Map<String, ExecutionSummary> executeOnTargets(Collection<UniversalDatabaseConnector> targets, int parallel,
+                                                          long timeout, TimeUnit timeUnit,
+                                                          BiConsumer<TestCase, UniversalDatabaseConnector> resultListener) {
+        Map<String, ExecutionSummary> summaries = new ConcurrentHashMap<String, ExecutionSummary>();
+
+        if (targets.isEmpty()) {
+            return summaries;
+        }
+
+        ExecutorService targetPool = Executors.newFixedThreadPool(targets.size());
+        Map<UniversalDatabaseConnector, Future<?>> executions = new LinkedHashMap<UniversalDatabaseConnector, Future<?>>();
+
+        for (UniversalDatabaseConnector target : targets) {
+            executions.put(target, targetPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // The pool is created and pre-warmed by the task, so an unreachable target does not delay the
+                    // other targets.
+                    int targetParallel = Math.max(1, Math.min(parallel, target.getConnectionPool().getConfiguration().getMaxSize()));
+
+                    ExecutionSummary summary = executeParallel(target, targetParallel, timeout, timeUnit, t -> {
+                        if (resultListener != null) {
+                            resultListener.accept(t, target);
+                        }
+                    });
+                    summaries.put(target.getIdentifier(), summary);
+                }
+            }));
+        }
+
+        targetPool.shutdown();
+
+        for (Map.Entry<UniversalDatabaseConnector, Future<?>> execution : executions.entrySet()) {
+            Throwable error = null;
+
+            try {
+                execution.getValue().get();
+            } catch (ExecutionException e) {
+                error = e.getCause();
+            } catch (InterruptedException e) {
+                targetPool.shutdownNow();
+                Thread.currentThread().interrupt();
+                error = e;
+            }
+
+            // A target without summary is reported as aborted, so its failure is not mistaken for a success.
+            if (!summaries.containsKey(execution.getKey().getIdentifier())) {
+                LOGGER.error("Execution at target {} has been aborted.", execution.getKey().getIdentifier(), error);
+                ExecutionSummary summary = new ExecutionSummary();
+                summary.setError((error != null) ? error : new IllegalStateException("No summary"));
+                summaries.put(execution.getKey().getIdentifier(), summary);
+            }
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Execute all test cases of the set at a specific target on the given executor. Test cases are submitted as soon
+     * as the test cases they depend on passed, dependents of test cases that did not pass are skipped. The resulting
+     * status of the test set is passed if all test cases passed, otherwise it is failed. The results of the single
+     * test cases are part of the set result.
+     */
+    @Override
+    public CompletableFuture<ExecutionResult> executeAsync(UniversalDatabaseConnector target, Executor executor) {
+        long start = System.currentTimeMillis();
+        TestScheduler scheduler = createScheduler(target);
+
+        List<ExecutionResult> results = Collections.synchronizedList(new ArrayList<ExecutionResult>());
+        CompletableFuture<ExecutionResult> future = new CompletableFuture<ExecutionResult>();
+
+        if (scheduler.size() == 0) {
+            future.complete(new ExecutionResult(null, target.getIdentifier(), TestCase.TCS_PASSED, 0, null, results));
+            return future;
+        }
+
+        UniversalDatabaseConnector session;
+        try {
+            session = beginSession(target);
+        } catch (IllegalStateException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((result, error) -> endSession(session));
+
+        int limit = options.isSnapshot() ? 1 : Integer.MAX_VALUE;
+        try {
+            schedule(scheduler, session, executor, new ConcurrencyLimiter(limit, limit), (t, result) -> {
+                results.add(result);
+
+                if (results.size() == scheduler.size()) {
+                    int status = TestCase.TCS_PASSED;
+                    for (ExecutionResult r : results) {
+                        if (!r.isPassed()) {
+                            status = TestCase.TCS_FAILED;
+                        }
+                    }
+
+                    future.complete(new ExecutionResult(null, target.getIdentifier(), status,
+                            System.currentTimeMillis() - start, null, new ArrayList<ExecutionResult>(results)));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Completing the future ends the session, which would stay open if the execution could not be started.
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Start a snapshot session at the target, if the options demand the test cases to be executed within a single
+     * snapshot. Test cases relying on a consistent snapshot may pass by chance without it, so an execution whose
+     * snapshot cannot be started fails as a whole and no test case is executed.
+     *
+     * @return Snapshot session the test cases have to be executed at or the target itself.
+     * @throws IllegalStateException if the snapshot could not be started.
+     */
+    private UniversalDatabaseConnector beginSession(UniversalDatabaseConnector target) {
+        if (!options.isSnapshot()) {
+            return target;
+        }
+
+        SnapshotSession session = new SnapshotSession(target);
+        if (!session.begin()) {
+            LOGGER.error("Snapshot could not be started at target {}.", target.getIdentifier());
+            throw new IllegalStateException("Snapshot could not be started at target " + target.getIdentifier());
+        }
+
+        return session;
+    }
+
+    private static void endSession(UniversalDatabaseConnector session) {
+        if (session instanceof SnapshotSession) {
+            ((SnapshotSession) session).end();
+        }
+    }
+
+    /**
+     * Create a scheduler for the selected test cases of the set at a target.
+     */
+    private TestScheduler createScheduler(UniversalDatabaseConnector target) {
+        return new TestScheduler(getSelectedTestCases(target.getIdentifier()), this::get, target.getIdentifier(),
+                options.getMetrics().getTarget(target.getIdentifier()));
+    }
+
+    /**
+     * Submit all ready test cases to the executor until the limit is reached, batched according to the options.
+     * Whenever a test case finishes, the limit is adapted to its execution and its dependents are released and
+     * submitted as well.
+     *
+     * @param limiter Limiter of the number of test cases or batches executed at the same time at the target.
+     * @param resultListener Listener that is called with the result of each executed or skipped test case.
+     */
+    private void schedule(TestScheduler scheduler, UniversalDatabaseConnector target, Executor executor,
+                          ConcurrencyLimiter limiter, BiConsumer<TestCase, ExecutionResult> resultListener) {
+        schedule(scheduler, target, executor, limiter, resultListener, new AtomicInteger());
+    }
+
+    /**
+     * Submit the ready test cases. A finished test case requests another submission instead of submitting its
+     * dependents itself. Only one thread submits at a time, requests arriving meanwhile are served by its loop, so
+     * executors running the test cases on the submitting thread do not grow the stack with each test case.
+     *
+     * @param requests Number of submissions requested but not yet served.
+     */
+    private void schedule(TestScheduler scheduler, UniversalDatabaseConnector target, Executor executor,
+                          ConcurrencyLimiter limiter, BiConsumer<TestCase, ExecutionResult> resultListener,
+                          AtomicInteger requests) {
+        if (requests.getAndIncrement() > 0) {
+            return;
+        }
+
+        int served = 1;
+        do {
+            for (TestCase t : skip(scheduler, target)) {
+                resultListener.accept(t, new ExecutionResult(t.getIdentifier(), target.getIdentifier(), TestCase.TCS_SKIPPED, 0, null));
+            }
+
+            List<TestCase> next;
+            while (!(next = nextBatch(scheduler, limiter.getLimit())).isEmpty()) {
+                List<TestCase> batch = next;
+                long start = System.currentTimeMillis();
+                // An execution that failed unexpectedly still has to release its slot and its dependents, otherwise
+                // the set would wait for it forever.
+                CompletableFuture.supplyAsync(() -> executeBatch(batch, target), executor)
+                        .handle((results, error) -> (error == null) ? results : stop(batch, target, error))
+                        .thenAccept(results -> {
+                            recordLimit(limiter, scheduler, batch, results, System.currentTimeMillis() - start, target);
+                            scheduler.complete(getStatuses(batch, results));
+                            try {
+                                for (int i = 0; i < batch.size(); i++) {
+                                    resultListener.accept(batch.get(i), results.get(i));
+                                }
+                            } finally {
+                                schedule(scheduler, target, executor, limiter, resultListener, requests);
+                            }
+                        });
+            }
+
+            served = requests.addAndGet(-served);
+        } while (served > 0);
+    }
+
+    /**
+     * Adapt the limit to the execution of a test case or batch, which is still counted as running by the scheduler.
+     * A batch is expected to take as long as its test cases one after another. Results taken from the cache do not
+     * tell anything about the load of the target.
+     */
+    private void recordLimit(ConcurrencyLimiter limiter, TestScheduler scheduler, List<TestCase> batch,
+                             List<ExecutionResult> results, long duration, UniversalDatabaseConnector target) {
+        if (limiter.getMinLimit() == limiter.getMaxLimit()) {
+            return;
+        }
+
+        long expectedDuration = 0;
+        boolean overloaded = false;
+        boolean executed = false;
+
+        for (int i = 0; i < batch.size(); i++) {
+            ExecutionResult result = results.get(i);
+            if (result.isCached()) {
+                continue;
+            }
+
+            expectedDuration += scheduler.getExpectedDuration(batch.get(i));
+            overloaded |= ConcurrencyLimiter.isOverloaded(result);
+            executed = true;
         }
 
+        if (executed) {
+            limiter.record(expectedDuration, duration, scheduler.getRunning(), overloaded);
+            options.getMetrics().getTarget(target.getIdentifier()).setConcurrencyLimit(limiter.getLimit());
+        }
+    }
+
+    /**
+     * Take the next ready test cases from the scheduler, multiple test cases if batching is enabled by the options.
+     */
+    private List<TestCase> nextBatch(TestScheduler scheduler, int limit) {
+        return scheduler.nextBatch(limit, options.getBatchSize(), t -> BatchExecutor.isBatchable(t, options));
+    }
+
+    /**
+     * Execute test cases taken from the scheduler, a single test case on its own and multiple test cases as batch.
+     *
+     * @return Results in the order of the test cases.
+     */
+    private List<ExecutionResult> executeBatch(List<TestCase> batch, UniversalDatabaseConnector target) {
+        if (batch.size() == 1) {
+            return Collections.singletonList(batch.get(0).executeWithResult(target, options));
+        }
+
+        return new BatchExecutor(options).execute(batch, target);
+    }
+
+    /**
+     * Mark the test cases of a batch as stopped, because their execution failed with an unexpected error.
+     *
+     * @return Stopped results in the order of the test cases.
+     */
+    private static List<ExecutionResult> stop(List<TestCase> batch, UniversalDatabaseConnector target, Throwable error) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        cause.printStackTrace();
+
+        List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+        for (TestCase t : batch) {
+            t.setStatus(target.getIdentifier(), TestCase.TCS_STOPPED);
+            results.add(new ExecutionResult(t.getIdentifier(), target.getIdentifier(), TestCase.TCS_STOPPED, 0, cause));
+        }
+
+        return results;
+    }
+
+    private static Map<TestCase, Integer> getStatuses(List<TestCase> batch, List<ExecutionResult> results) {
+        Map<TestCase, Integer> statuses = new LinkedHashMap<TestCase, Integer>();
+        for (int i = 0; i < batch.size(); i++) {
+            statuses.put(batch.get(i), results.get(i).getStatus());
+        }
+
+        return statuses;
+    }
+
+    /**
+     * Mark the test cases skipped by the scheduler as skipped at the target.
+     *
+     * @return Test cases that have been skipped.
+     */
+    private List<TestCase> skip(TestScheduler scheduler, UniversalDatabaseConnector target) {
+        List<TestCase> skipped = scheduler.drainSkipped();
+        for (TestCase t : skipped) {
+            t.setStatus(target.getIdentifier(), TestCase.TCS_SKIPPED);
+        }
+
+        return skipped;
+    }
+
+    /**
+     * @return Execution options applied to all test cases of the set.
+     */
+    public ExecutionOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(ExecutionOptions options) {
+        this.options = options;
     }
 
     public Set<TestCase> getTestCases() {
         return testCases;
     }
 
+    /**
+     * Get the test cases to be executed at a target according to the selection and the shard of the execution
+     * options. The selection is evaluated once when an execution starts.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Selected test cases.
+     */
+    public Set<TestCase> getSelectedTestCases(String targetIdentifier) {
+        Set<TestCase> selected = options.getSelection().select(this, targetIdentifier);
+
+        if (options.getShard() != null) {
+            return options.getShard().select(getTestCases(), selected);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Get all test cases that failed, stopped, timed out or have been skipped at a target.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Test cases that did not pass at the target.
+     */
+    public Set<TestCase> getFailedTestCases(String targetIdentifier) {
+        Set<TestCase> failed = getTestCases(TestCase.TCS_FAILED, targetIdentifier);
+        failed.addAll(getTestCases(TestCase.TCS_STOPPED, targetIdentifier));
+        failed.addAll(getTestCases(TestCase.TCS_TIMEOUT, targetIdentifier));
+        failed.addAll(getTestCases(TestCase.TCS_SKIPPED, targetIdentifier));
+        return failed;
+    }
+
+    /**
+     * Get all test cases that have never been executed at a target.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Test cases without status at the target.
+     */
+    public Set<TestCase> getUnexecutedTestCases(String targetIdentifier) {
+        synchronized (indexLock) {
+            Set<TestCase> unexecuted = new HashSet<TestCase>(testCases);
+            Map<Integer, Set<TestCase>> targetIndex = statusIndex.get(targetIdentifier);
+
+            if (targetIndex != null) {
+                for (Set<TestCase> l : targetIndex.values()) {
+                    unexecuted.removeAll(l);
+                }
+            }
+
+            return unexecuted;
+        }
+    }
+
+    /**
+     * Get all test cases whose status at a target has been reached before a specific time, including test cases that
+     * have never been executed at the target.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param timestamp Time in milliseconds since the epoch.
+     * @return Test cases with an outdated or missing status at the target.
+     */
+    public Set<TestCase> getTestCasesOlderThan(String targetIdentifier, long timestamp) {
+        Set<TestCase> stale = new HashSet<TestCase>();
+
+        synchronized (indexLock) {
+            for (TestCase t : testCases) {
+                if (t.getStatusTimestamp(targetIdentifier) < timestamp) {
+                    stale.add(t);
+                }
+            }
+        }
+
+        return stale;
+    }
+
+    /**
+     * Get all test cases with a specific status at a target. The lookup uses the status index of the set.
+     *
+     * @param status Status indicator.
+     * @param targetIdentifier Identifier of the target.
+     * @return Test cases with the given status at the target, test cases that have never been executed at the target
+     * are not included.
+     */
     public Set<TestCase> getTestCases(int status, String targetIdentifier) {
-        return testCases.stream().filter(s -> s.getStatus(targetIdentifier) == status).collect(Collectors.toSet());
+        synchronized (indexLock) {
+            Map<Integer, Set<TestCase>> targetIndex = statusIndex.get(targetIdentifier);
+            Set<TestCase> l = (targetIndex == null) ? null : targetIndex.get(status);
+
+            return (l == null) ? new HashSet<TestCase>() : new HashSet<TestCase>(l);
+        }
     }
 }
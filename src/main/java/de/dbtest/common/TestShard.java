@@ -0,0 +1,193 @@
+package de.dbtest.common;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The test shard selects the part of a test set executed by one of multiple worker processes. Test cases are assigned
+ * to shards by hashing a key, either their package or their identifier. Test cases depending on each other via
+ * @depends are always assigned to the same shard, so the order of their execution is kept.<br />
+ * The assignment only depends on the test set, so all workers loading the same test set agree on it without any
+ * coordination.
+ *
+ * @author Lennard Scheffler
+ */
+public class TestShard {
+
+    /* SHARDING MODES *************************************************************************************************/
+
+    /**
+     * All test cases of a package are assigned to the same shard. This is the default.
+     */
+    public static final String SHARD_BY_PACKAGE = "package";
+
+    /**
+     * Test cases are assigned by the hash of their identifier, which spreads large packages across shards.
+     */
+    public static final String SHARD_BY_HASH = "hash";
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final int index;
+    private final int count;
+    private final String mode;
+
+
+    /**
+     * Create a shard.
+     *
+     * @param index Index of the shard, starting at 0.
+     * @param count Number of shards.
+     * @param mode Sharding mode (see SHARD_BY_*).
+     * @throws IllegalArgumentException If the index is out of range or the mode is unknown.
+     */
+    public TestShard(int index, int count, String mode) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+        if (!SHARD_BY_PACKAGE.equals(mode) && !SHARD_BY_HASH.equals(mode)) {
+            throw new IllegalArgumentException("Unknown sharding mode: " + mode);
+        }
+
+        this.index = index;
+        this.count = count;
+        this.mode = mode;
+    }
+
+    /**
+     * Parse a shard declared as "index/count", e.g. "0/4" for the first of four shards.
+     *
+     * @param shard Shard declaration.
+     * @param mode Sharding mode (see SHARD_BY_*).
+     * @return Shard.
+     * @throws IllegalArgumentException If the declaration is invalid.
+     */
+    public static TestShard parse(String shard, String mode) {
+        String[] parts = shard.trim().split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid shard, expected index/count: " + shard);
+        }
+
+        try {
+            return new TestShard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()), mode);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard, expected index/count: " + shard);
+        }
+    }
+
+    /**
+     * Select the test cases of this shard.
+     *
+     * @param testCases All test cases of the set, needed for keeping dependent test cases together.
+     * @param candidates Test cases to select from, e.g. the test cases selected for a rerun.
+     * @return Candidates assigned to this shard.
+     */
+    public Set<TestCase> select(Collection<TestCase> testCases, Collection<TestCase> candidates) {
+        Map<TestCase, Integer> shards = assign(testCases, count, mode);
+        Set<TestCase> selected = new HashSet<TestCase>();
+
+        for (TestCase t : candidates) {
+            Integer shard = shards.get(t);
+            if (shard != null && shard == index) {
+                selected.add(t);
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Assign the test cases of a set to shards. The keys of dependent test cases are joined into groups, each group is
+     * assigned by the hash of its smallest key.
+     *
+     * @param testCases All test cases of the set.
+     * @param count Number of shards.
+     * @param mode Sharding mode (see SHARD_BY_*).
+     * @return Index of the shard of each test case.
+     */
+    public static Map<TestCase, Integer> assign(Collection<TestCase> testCases, int count, String mode) {
+        Map<String, TestCase> identifiers = new HashMap<String, TestCase>();
+        for (TestCase t : testCases) {
+            identifiers.put(t.getIdentifier(), t);
+        }
+
+        Map<String, String> groups = new HashMap<String, String>();
+        for (TestCase t : testCases) {
+            String key = getKey(t, mode);
+            find(groups, key);
+
+            for (String dependency : t.getDependencies()) {
+                TestCase dependencyTestCase = identifiers.get(dependency);
+                if (dependencyTestCase != null) {
+                    union(groups, key, getKey(dependencyTestCase, mode));
+                }
+            }
+        }
+
+        Map<TestCase, Integer> shards = new HashMap<TestCase, Integer>();
+        for (TestCase t : testCases) {
+            shards.put(t, Math.floorMod(find(groups, getKey(t, mode)).hashCode(), count));
+        }
+
+        return shards;
+    }
+
+    private static String getKey(TestCase testCase, String mode) {
+        return SHARD_BY_PACKAGE.equals(mode) ? String.valueOf(testCase.getPackage()) : testCase.getIdentifier();
+    }
+
+    /**
+     * Find the representative of the group of a key, the smallest key of the group.
+     */
+    private static String find(Map<String, String> groups, String key) {
+        String root = key;
+        String parent;
+        while ((parent = groups.putIfAbsent(root, root)) != null && !parent.equals(root)) {
+            root = parent;
+        }
+
+        // Point all keys on the path directly to the representative, so later lookups are short.
+        String current = key;
+        while (!current.equals(root)) {
+            current = groups.put(current, root);
+        }
+
+        return root;
+    }
+
+    private static void union(Map<String, String> groups, String key1, String key2) {
+        String root1 = find(groups, key1);
+        String root2 = find(groups, key2);
+
+        if (root1.compareTo(root2) < 0) {
+            groups.put(root2, root1);
+        } else if (root2.compareTo(root1) < 0) {
+            groups.put(root1, root2);
+        }
+    }
+
+    /**
+     * @return Index of the shard, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Number of shards.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return Sharding mode (see SHARD_BY_*).
+     */
+    public String getMode() {
+        return mode;
+    }
+}
@@ -5,6 +5,9 @@ import org.codehaus.jackson.annotate.JsonIgnore;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The universal database connector is used to generate database connection via JDBC to various target systems.
@@ -18,6 +21,11 @@ public class UniversalDatabaseConnector {
     public static final short DBT_MYSQL = 1;
     public static final short DBT_ORACLE = 2;
 
+    /**
+     * Maximum length of a query in characters that is cached by the MySQL driver.
+     */
+    public static final int STATEMENT_CACHE_SQL_LIMIT = 8192;
+
 
     /* Private POJO attributes ****************************************************************************************/
 
@@ -27,6 +35,11 @@ public class UniversalDatabaseConnector {
     private String database;
     private String username;
     private String password;
+    private PoolConfiguration pool;
+    private SessionProfile session;
+
+    private ConnectionPool connectionPool;
+    private final List<ConnectionPool> closedPools = new CopyOnWriteArrayList<ConnectionPool>();
 
     /**
      * Default constructor for UniversalDatabaseConnector class.
@@ -52,6 +65,8 @@ public class UniversalDatabaseConnector {
         this.database = database;
         this.username = username;
         this.password = password;
+        this.pool = new PoolConfiguration();
+        this.session = new SessionProfile();
     }
 
     public int getDatabaseType() {
@@ -102,6 +117,114 @@ public class UniversalDatabaseConnector {
         this.password = password;
     }
 
+    public PoolConfiguration getPool() {
+        return pool;
+    }
+
+    public void setPool(PoolConfiguration pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return Session settings applied to each connection opened to the target.
+     */
+    public SessionProfile getSession() {
+        return session;
+    }
+
+    public void setSession(SessionProfile session) {
+        this.session = session;
+    }
+
+    /**
+     * Get the connection pool of the target. The pool is created and pre-warmed to its minimum size on first use,
+     * based on the pool configuration of the target.
+     *
+     * @return Connection pool maintaining the connections to the target.
+     */
+    @JsonIgnore
+    public synchronized ConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(this, pool != null ? pool : new PoolConfiguration());
+            connectionPool.prewarm();
+        }
+
+        return connectionPool;
+    }
+
+    /**
+     * Borrow a connection to the database from the connection pool of the target. The connection has to be returned
+     * by calling release(...) after using it.
+     *
+     * @return JDBC Connection object if a connection is available or null if the connection could not be established
+     * within the acquire timeout.
+     */
+    public Connection acquire() {
+        return getConnectionPool().acquire();
+    }
+
+    /**
+     * Return a connection that has been borrowed via acquire() to the connection pool of the target.
+     *
+     * @param connection Borrowed connection, may be null.
+     */
+    public void release(Connection connection) {
+        ConnectionPool closedPool = getClosedPool(connection);
+
+        if (closedPool != null) {
+            closedPool.release(connection);
+            if (closedPool.getActiveCount() == 0) {
+                closedPools.remove(closedPool);
+            }
+        } else {
+            getConnectionPool().release(connection);
+        }
+    }
+
+    /**
+     * Get the statement cache of a connection borrowed by acquire().
+     *
+     * @param connection Borrowed connection.
+     * @return Statement cache of the connection.
+     */
+    public StatementCache getStatementCache(Connection connection) {
+        ConnectionPool closedPool = getClosedPool(connection);
+        return (closedPool != null) ? closedPool.getStatementCache(connection) : getConnectionPool().getStatementCache(connection);
+    }
+
+    /**
+     * Close all pooled connections to the target. A new pool will be created if the target is used again, connections
+     * still borrowed from the closed pool are closed by it as soon as they are released.
+     */
+    public synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            if (connectionPool.getActiveCount() > 0) {
+                closedPools.add(connectionPool);
+            }
+            connectionPool = null;
+        }
+    }
+
+    /**
+     * Get the closed pool a connection has been borrowed from.
+     *
+     * @return Closed pool or null if the connection does not belong to a closed pool.
+     */
+    private ConnectionPool getClosedPool(Connection connection) {
+        for (ConnectionPool closedPool : closedPools) {
+            if (closedPool.isBorrowed(connection)) {
+                return closedPool;
+            }
+        }
+
+        return null;
+    }
+
+    private int getStatementCacheSize() {
+        return (pool != null) ? pool.getStatementCacheSize() : PoolConfiguration.DEFAULT_STATEMENT_CACHE_SIZE;
+    }
+
     /**
      * Connect to a MySQL databae.
      *
@@ -112,8 +235,10 @@ public class UniversalDatabaseConnector {
 
         Connection connection = null;
 
+        String url = getMySQLUrl();
+
         try {
-            connection = DriverManager.getConnection("jdbc:mysql://" + host + ":" + port + "/"+ database + "?useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=UTC", username, password);
+            connection = DriverManager.getConnection(url, username, password);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -121,13 +246,53 @@ public class UniversalDatabaseConnector {
         return connection;
     }
 
+    /**
+     * Build the JDBC URL of a MySQL database including the driver settings of the session profile.
+     *
+     * @return JDBC URL.
+     */
+    String getMySQLUrl() {
+        // Server side prepared statements are cached by the driver, so closed statements are not parsed again.
+        String url = "jdbc:mysql://" + host + ":" + port + "/"+ database + "?useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=UTC"
+                + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=" + getStatementCacheSize() + "&prepStmtCacheSqlLimit=" + STATEMENT_CACHE_SQL_LIMIT;
+
+        if (session != null && session.isCursorFetch()) {
+            // Cursor based fetching makes the fetch size effective, so results of test cases in row mode are streamed.
+            url += "&useCursorFetch=true";
+        }
+        if (session != null && session.getFetchSize() > 0) {
+            url += "&defaultFetchSize=" + session.getFetchSize();
+        }
+        if (session != null && session.getConnectTimeout() > 0) {
+            url += "&connectTimeout=" + session.getConnectTimeout();
+        }
+
+        return url;
+    }
+
     public Connection connectOracle()  {
 
         Connection connection = null;
 
+        // The implicit statement cache of the driver keeps the cursors of closed statements open for reuse.
+        Properties properties = new Properties();
+        if (username != null) {
+            properties.setProperty("user", username);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(getStatementCacheSize()));
+        if (session != null && session.getFetchSize() > 0) {
+            properties.setProperty("defaultRowPrefetch", String.valueOf(session.getFetchSize()));
+        }
+        if (session != null && session.getConnectTimeout() > 0) {
+            properties.setProperty("oracle.net.CONNECT_TIMEOUT", String.valueOf(session.getConnectTimeout()));
+        }
+
         try {
             Class.forName("oracle.jdbc.OracleDriver");
-            connection = DriverManager.getConnection("jdbc:oracle:thin:" + username + "/" + password + "@" + host + ":" + port + ":" + database);
+            connection = DriverManager.getConnection("jdbc:oracle:thin:@" + host + ":" + port + ":" + database, properties);
         } catch (SQLException e) {
             e.printStackTrace();
         } catch (ClassNotFoundException e) {
@@ -166,6 +331,17 @@ public class UniversalDatabaseConnector {
         return username + "@" + host + ":" + port + "/" + database;
     }
 
+    /**
+     * Check whether the dialect of the target treats a backslash within literals as escape character. Oracle treats
+     * it as a regular character, MySQL as escape character unless NO_BACKSLASH_ESCAPES is set.
+     *
+     * @return true, if test case bodies for the target are parsed with backslash escapes.
+     */
+    @JsonIgnore
+    public boolean isBackslashEscapes() {
+        return databaseType != DBT_ORACLE;
+    }
+
     /**
      * Get the database type identifier by the database type name.
      * @param name Database Type name, e.g. MySQL
@@ -0,0 +1,121 @@
+package de.dbtest.metrics;
+
+import de.dbtest.common.TestCase;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The execution metrics collect the instrumentation of test case executions, grouped by target and by test case. All
+ * executions record to the global instance unless the execution options provide a different one, so a snapshot can be
+ * exported at any time during or after a run.
+ *
+ * @author Lennard Scheffler
+ */
+public class ExecutionMetrics {
+
+    private static final ExecutionMetrics GLOBAL = new ExecutionMetrics();
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final Map<String, TargetMetrics> targets;
+    private final Map<String, Map<String, LatencyHistogram>> testCases;
+
+
+    public ExecutionMetrics() {
+        this.targets = new ConcurrentHashMap<String, TargetMetrics>();
+        this.testCases = new ConcurrentHashMap<String, Map<String, LatencyHistogram>>();
+    }
+
+    /**
+     * @return Metrics shared by all executions that do not define their own metrics.
+     */
+    public static ExecutionMetrics getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Get the metrics of a target, they are created on first access.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @return Metrics of the target.
+     */
+    public TargetMetrics getTarget(String targetIdentifier) {
+        return targets.computeIfAbsent(targetIdentifier, t -> new TargetMetrics());
+    }
+
+    /**
+     * Get the query latency of a test case at a target, it is created on first access.
+     *
+     * @param targetIdentifier Identifier of the target.
+     * @param testCaseIdentifier Identifier of the test case.
+     * @return Query latency histogram of the test case at the target.
+     */
+    public LatencyHistogram getTestCase(String targetIdentifier, String testCaseIdentifier) {
+        return testCases.computeIfAbsent(targetIdentifier, t -> new ConcurrentHashMap<String, LatencyHistogram>())
+                .computeIfAbsent(testCaseIdentifier, t -> new LatencyHistogram());
+    }
+
+    /**
+     * Record the latency of a query, both for the target and for the test case at the target.
+     *
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param nanos Duration of the query in nanoseconds.
+     */
+    public void recordQuery(String testCaseIdentifier, String targetIdentifier, long nanos) {
+        getTarget(targetIdentifier).getQueryLatency().record(nanos);
+        getTestCase(targetIdentifier, testCaseIdentifier).record(nanos);
+    }
+
+    /**
+     * @return Metrics of all targets mapped by target identifier.
+     */
+    public Map<String, TargetMetrics> getTargets() {
+        return Collections.unmodifiableMap(targets);
+    }
+
+    /**
+     * @return Query latency histograms of all test cases, mapped by target identifier and test case identifier.
+     */
+    public Map<String, Map<String, LatencyHistogram>> getTestCases() {
+        return Collections.unmodifiableMap(testCases);
+    }
+
+    /**
+     * Discard all collected metrics.
+     */
+    public void reset() {
+        targets.clear();
+        testCases.clear();
+    }
+
+    /**
+     * Translate a status indicator into the name used within exported metrics.
+     *
+     * @param statusIndicator Status indicator as defined in TestCase.
+     * @return Lower case name of the status.
+     */
+    public static String getStatusName(int statusIndicator) {
+        switch (statusIndicator) {
+            case TestCase.TCS_PENDING:
+                return "pending";
+            case TestCase.TCS_RUNNING:
+                return "running";
+            case TestCase.TCS_STOPPED:
+                return "stopped";
+            case TestCase.TCS_PASSED:
+                return "passed";
+            case TestCase.TCS_FAILED:
+                return "failed";
+            case TestCase.TCS_TIMEOUT:
+                return "timeout";
+            case TestCase.TCS_SKIPPED:
+                return "skipped";
+            default:
+                return "status" + statusIndicator;
+        }
+    }
+}
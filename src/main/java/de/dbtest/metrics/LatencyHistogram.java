@@ -0,0 +1,106 @@
+package de.dbtest.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histogram counts durations in fixed buckets. Recording a duration is lock-free, so the histogram can be
+ * shared by all threads executing test cases. The bucket bounds are inclusive upper bounds, durations above the
+ * highest bound are counted in an additional overflow bucket.
+ *
+ * @author Lennard Scheffler
+ */
+public class LatencyHistogram {
+
+    /**
+     * Default upper bounds of the buckets in milliseconds, covering quick lookups as well as long running checks.
+     */
+    public static final long[] DEFAULT_BOUNDS_MILLIS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000
+    };
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final long[] boundsMillis;
+    private final long[] boundsNanos;
+    private final AtomicLongArray bucketCounts;
+    private final LongAdder count;
+    private final LongAdder sumNanos;
+
+
+    /**
+     * Create a histogram with the default bucket bounds.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_MILLIS);
+    }
+
+    /**
+     * Create a histogram with custom bucket bounds.
+     *
+     * @param boundsMillis Ascending upper bounds of the buckets in milliseconds.
+     */
+    public LatencyHistogram(long[] boundsMillis) {
+        this.boundsMillis = boundsMillis.clone();
+        this.boundsNanos = new long[boundsMillis.length];
+        for (int i = 0; i < boundsMillis.length; i++) {
+            this.boundsNanos[i] = TimeUnit.MILLISECONDS.toNanos(boundsMillis[i]);
+        }
+
+        this.bucketCounts = new AtomicLongArray(boundsMillis.length + 1);
+        this.count = new LongAdder();
+        this.sumNanos = new LongAdder();
+    }
+
+    /**
+     * Record a single duration.
+     *
+     * @param nanos Duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        int bucket = Arrays.binarySearch(boundsNanos, nanos);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+
+        bucketCounts.incrementAndGet(bucket);
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * @return Upper bounds of the buckets in milliseconds, without the overflow bucket.
+     */
+    public long[] getBoundsMillis() {
+        return boundsMillis.clone();
+    }
+
+    /**
+     * @return Number of recorded durations per bucket. The last element is the overflow bucket.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[bucketCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+
+        return counts;
+    }
+
+    /**
+     * @return Number of recorded durations.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Sum of all recorded durations in nanoseconds.
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
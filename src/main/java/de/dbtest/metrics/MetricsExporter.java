@@ -0,0 +1,231 @@
+package de.dbtest.metrics;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The metrics exporter writes snapshots of execution metrics either in the Prometheus text exposition format or as
+ * JSON document. Durations are exported in seconds for Prometheus and in milliseconds for JSON.
+ *
+ * @author Lennard Scheffler
+ */
+public class MetricsExporter {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Write a snapshot of the metrics to a file. Files ending with .json are written as JSON, all others in the
+     * Prometheus text format.
+     *
+     * @param metrics Metrics to export.
+     * @param file Target file, an existing file is replaced.
+     * @throws IOException
+     */
+    public static void write(ExecutionMetrics metrics, Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase().endsWith(".json")) {
+                writeJson(metrics, writer);
+            } else {
+                writePrometheus(metrics, writer);
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot of the metrics in the Prometheus text exposition format.
+     *
+     * @param metrics Metrics to export.
+     * @param writer Writer receiving the snapshot.
+     * @throws IOException
+     */
+    public static void writePrometheus(ExecutionMetrics metrics, Writer writer) throws IOException {
+        Map<String, TargetMetrics> targets = new TreeMap<String, TargetMetrics>(metrics.getTargets());
+
+        writeHeader(writer, "dbtest_query_duration_seconds", "histogram", "Duration of test case queries per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeHistogram(writer, "dbtest_query_duration_seconds", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getQueryLatency());
+        }
+
+        writeHeader(writer, "dbtest_test_duration_seconds", "histogram", "Duration of test case queries per test case and target.");
+        for (Map.Entry<String, Map<String, LatencyHistogram>> target : new TreeMap<String, Map<String, LatencyHistogram>>(metrics.getTestCases()).entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> testCase : new TreeMap<String, LatencyHistogram>(target.getValue()).entrySet()) {
+                writeHistogram(writer, "dbtest_test_duration_seconds",
+                        "target=\"" + escape(target.getKey()) + "\",test=\"" + escape(testCase.getKey()) + "\"",
+                        testCase.getValue());
+            }
+        }
+
+        writeHeader(writer, "dbtest_connection_acquire_seconds", "histogram", "Time spent waiting for a pooled connection per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeHistogram(writer, "dbtest_connection_acquire_seconds", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getAcquireLatency());
+        }
+
+        writeHeader(writer, "dbtest_connection_acquire_failures_total", "counter", "Executions that could not acquire a connection per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_connection_acquire_failures_total", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getAcquireFailures());
+        }
+
+        writeHeader(writer, "dbtest_cache_hits_total", "counter", "Executions skipped because of a cached result per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_cache_hits_total", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getCacheHits());
+        }
+
+        writeHeader(writer, "dbtest_batches_total", "counter", "Batches of test cases executed within one statement per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_batches_total", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getBatches());
+        }
+
+        writeHeader(writer, "dbtest_batch_fallbacks_total", "counter", "Failed batches executed one by one per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_batch_fallbacks_total", "target=\"" + escape(target.getKey()) + "\"",
+                    target.getValue().getBatchFallbacks());
+        }
+
+        writeHeader(writer, "dbtest_results_total", "counter", "Finished test case executions per target and status.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            for (Map.Entry<Integer, Long> result : target.getValue().getResults().entrySet()) {
+                writeSample(writer, "dbtest_results_total", "target=\"" + escape(target.getKey()) + "\",status=\""
+                        + ExecutionMetrics.getStatusName(result.getKey()) + "\"", result.getValue());
+            }
+        }
+
+        writeHeader(writer, "dbtest_in_flight", "gauge", "Test cases currently executing per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_in_flight", "target=\"" + escape(target.getKey()) + "\"", target.getValue().getInFlight());
+        }
+
+        writeHeader(writer, "dbtest_in_flight_max", "gauge", "Highest number of test cases executing at the same time per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_in_flight_max", "target=\"" + escape(target.getKey()) + "\"", target.getValue().getMaxInFlight());
+        }
+
+        writeHeader(writer, "dbtest_queue_depth", "gauge", "Test cases waiting for an execution thread per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_queue_depth", "target=\"" + escape(target.getKey()) + "\"", target.getValue().getQueueDepth());
+        }
+
+        writeHeader(writer, "dbtest_concurrency_limit", "gauge", "Test cases that may be executed at the same time per target.");
+        for (Map.Entry<String, TargetMetrics> target : targets.entrySet()) {
+            writeSample(writer, "dbtest_concurrency_limit", "target=\"" + escape(target.getKey()) + "\"", target.getValue().getConcurrencyLimit());
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Write a snapshot of the metrics as JSON document. Histogram buckets are exported non-cumulative and keyed by
+     * their upper bound in milliseconds.
+     *
+     * @param metrics Metrics to export.
+     * @param writer Writer receiving the snapshot.
+     * @throws IOException
+     */
+    public static void writeJson(ExecutionMetrics metrics, Writer writer) throws IOException {
+        Map<String, Object> targets = new TreeMap<String, Object>();
+        for (Map.Entry<String, TargetMetrics> target : metrics.getTargets().entrySet()) {
+            TargetMetrics targetMetrics = target.getValue();
+
+            Map<String, Long> results = new LinkedHashMap<String, Long>();
+            for (Map.Entry<Integer, Long> result : targetMetrics.getResults().entrySet()) {
+                results.put(ExecutionMetrics.getStatusName(result.getKey()), result.getValue());
+            }
+
+            Map<String, Object> testCases = new TreeMap<String, Object>();
+            Map<String, LatencyHistogram> testCaseLatencies = metrics.getTestCases().get(target.getKey());
+            if (testCaseLatencies != null) {
+                for (Map.Entry<String, LatencyHistogram> testCase : testCaseLatencies.entrySet()) {
+                    testCases.put(testCase.getKey(), toJson(testCase.getValue()));
+                }
+            }
+
+            Map<String, Object> node = new LinkedHashMap<String, Object>();
+            node.put("results", results);
+            node.put("inFlight", targetMetrics.getInFlight());
+            node.put("maxInFlight", targetMetrics.getMaxInFlight());
+            node.put("queueDepth", targetMetrics.getQueueDepth());
+            node.put("concurrencyLimit", targetMetrics.getConcurrencyLimit());
+            node.put("acquireFailures", targetMetrics.getAcquireFailures());
+            node.put("cacheHits", targetMetrics.getCacheHits());
+            node.put("batches", targetMetrics.getBatches());
+            node.put("batchFallbacks", targetMetrics.getBatchFallbacks());
+            node.put("queryLatency", toJson(targetMetrics.getQueryLatency()));
+            node.put("acquireLatency", toJson(targetMetrics.getAcquireLatency()));
+            node.put("testCases", testCases);
+            targets.put(target.getKey(), node);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<String, Object>();
+        snapshot.put("timestamp", System.currentTimeMillis());
+        snapshot.put("targets", targets);
+
+        new ObjectMapper().writeValue(writer, snapshot);
+    }
+
+    private static Map<String, Object> toJson(LatencyHistogram histogram) {
+        long[] bounds = histogram.getBoundsMillis();
+        long[] counts = histogram.getBucketCounts();
+
+        Map<String, Long> buckets = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < bounds.length; i++) {
+            buckets.put(Long.toString(bounds[i]), counts[i]);
+        }
+        buckets.put("+Inf", counts[bounds.length]);
+
+        Map<String, Object> node = new LinkedHashMap<String, Object>();
+        node.put("count", histogram.getCount());
+        node.put("sumMillis", histogram.getSumNanos() / NANOS_PER_MILLI);
+        node.put("buckets", buckets);
+        return node;
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeHistogram(Writer writer, String name, String labels, LatencyHistogram histogram) throws IOException {
+        long[] bounds = histogram.getBoundsMillis();
+        long[] counts = histogram.getBucketCounts();
+
+        // Prometheus buckets are cumulative.
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            writeSample(writer, name + "_bucket", labels + ",le=\"" + bounds[i] / 1000.0 + "\"", cumulative);
+        }
+        cumulative += counts[bounds.length];
+        writeSample(writer, name + "_bucket", labels + ",le=\"+Inf\"", cumulative);
+
+        writer.write(name + "_sum{" + labels + "} " + histogram.getSumNanos() / NANOS_PER_SECOND + "\n");
+        writeSample(writer, name + "_count", labels, histogram.getCount());
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, long value) throws IOException {
+        writer.write(name + "{" + labels + "} " + value + "\n");
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
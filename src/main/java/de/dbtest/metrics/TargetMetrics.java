@@ -0,0 +1,220 @@
+package de.dbtest.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The target metrics capture the execution metrics of a single target: latency of queries and connection
+ * acquisitions, the number of results per status and the current concurrency.
+ *
+ * @author Lennard Scheffler
+ */
+public class TargetMetrics {
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final LatencyHistogram queryLatency;
+    private final LatencyHistogram acquireLatency;
+    private final LongAdder acquireFailures;
+    private final LongAdder cacheHits;
+    private final LongAdder batches;
+    private final LongAdder batchFallbacks;
+    private final Map<Integer, LongAdder> results;
+    private final AtomicInteger inFlight;
+    private final AtomicInteger maxInFlight;
+    private final AtomicInteger queueDepth;
+    private final AtomicInteger concurrencyLimit;
+
+
+    public TargetMetrics() {
+        this.queryLatency = new LatencyHistogram();
+        this.acquireLatency = new LatencyHistogram();
+        this.acquireFailures = new LongAdder();
+        this.cacheHits = new LongAdder();
+        this.batches = new LongAdder();
+        this.batchFallbacks = new LongAdder();
+        this.results = new ConcurrentHashMap<Integer, LongAdder>();
+        this.inFlight = new AtomicInteger();
+        this.maxInFlight = new AtomicInteger();
+        this.queueDepth = new AtomicInteger();
+        this.concurrencyLimit = new AtomicInteger();
+    }
+
+    /**
+     * Record the time spent waiting for a connection of the target.
+     *
+     * @param nanos Duration in nanoseconds.
+     * @param acquired False if no connection could be acquired within the acquire timeout of the pool.
+     */
+    public void recordAcquire(long nanos, boolean acquired) {
+        acquireLatency.record(nanos);
+        if (!acquired) {
+            acquireFailures.increment();
+        }
+    }
+
+    /**
+     * Count a test case whose execution has been skipped because of a cached result.
+     */
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Count a batch of test cases executed within one statement.
+     *
+     * @param fallback True if the batch failed and its test cases have been executed one by one.
+     */
+    public void recordBatch(boolean fallback) {
+        batches.increment();
+        if (fallback) {
+            batchFallbacks.increment();
+        }
+    }
+
+    /**
+     * Mark a test case execution at the target as started.
+     */
+    public void executionStarted() {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+    }
+
+    /**
+     * Mark a test case execution at the target as finished and count its result.
+     *
+     * @param status Status indicator the execution finished with.
+     */
+    public void executionFinished(int status) {
+        inFlight.decrementAndGet();
+        results.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * Mark a test case execution at the target as finished without counting a result, e.g. because it is repeated.
+     */
+    public void executionAborted() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Mark a test case as waiting for an execution thread.
+     */
+    public void enqueued() {
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * Mark test cases as no longer waiting for an execution thread, either because they have been started or because
+     * they have been dropped.
+     *
+     * @param count Number of test cases.
+     */
+    public void dequeued(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    /**
+     * Record the number of test cases that may be executed at the same time at the target.
+     *
+     * @param limit Current concurrency limit.
+     */
+    public void setConcurrencyLimit(int limit) {
+        concurrencyLimit.set(limit);
+    }
+
+    /**
+     * @return Latency of the queries executed at the target.
+     */
+    public LatencyHistogram getQueryLatency() {
+        return queryLatency;
+    }
+
+    /**
+     * @return Time spent waiting for connections of the target.
+     */
+    public LatencyHistogram getAcquireLatency() {
+        return acquireLatency;
+    }
+
+    /**
+     * @return Number of executions that could not acquire a connection.
+     */
+    public long getAcquireFailures() {
+        return acquireFailures.sum();
+    }
+
+    /**
+     * @return Number of executions skipped because of a cached result.
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return Number of batches executed at the target.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return Number of batches whose test cases have been executed one by one after the batch failed.
+     */
+    public long getBatchFallbacks() {
+        return batchFallbacks.sum();
+    }
+
+    /**
+     * @param status Status indicator.
+     * @return Number of executions that finished with the given status.
+     */
+    public long getResults(int status) {
+        LongAdder counter = results.get(status);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    /**
+     * @return Number of executions per status indicator, sorted by status indicator.
+     */
+    public Map<Integer, Long> getResults() {
+        Map<Integer, Long> snapshot = new TreeMap<Integer, Long>();
+        for (Map.Entry<Integer, LongAdder> result : results.entrySet()) {
+            snapshot.put(result.getKey(), result.getValue().sum());
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @return Number of test cases currently executing at the target.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Highest number of test cases executing at the target at the same time.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * @return Number of test cases currently waiting for an execution thread.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return Number of test cases that may be executed at the same time at the target, 0 if it has not been limited
+     * yet.
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.get();
+    }
+}
@@ -0,0 +1,99 @@
+package de.dbtest.persistence;
+
+/**
+ * A cached result captures the status of a test case execution at a target, valid until it expires. It is identified
+ * by a key derived from the test case body and the target identifier.
+ *
+ * @author Lennard Scheffler
+ */
+public class CachedResult {
+
+    private String key;
+    private String testCaseIdentifier;
+    private String targetIdentifier;
+    private int status;
+    private long timestamp;
+    private long expires;
+
+    public CachedResult() {
+        this.key = null;
+        this.testCaseIdentifier = null;
+        this.targetIdentifier = null;
+        this.status = 0;
+        this.timestamp = 0;
+        this.expires = 0;
+    }
+
+    /**
+     * @param key Cache key (see ResultCache.getKey(...)).
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Status indicator of the execution.
+     * @param timestamp Time of the execution in milliseconds since the epoch.
+     * @param expires Time the result expires in milliseconds since the epoch.
+     */
+    public CachedResult(String key, String testCaseIdentifier, String targetIdentifier, int status, long timestamp, long expires) {
+        this.key = key;
+        this.testCaseIdentifier = testCaseIdentifier;
+        this.targetIdentifier = targetIdentifier;
+        this.status = status;
+        this.timestamp = timestamp;
+        this.expires = expires;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getTestCaseIdentifier() {
+        return testCaseIdentifier;
+    }
+
+    public void setTestCaseIdentifier(String testCaseIdentifier) {
+        this.testCaseIdentifier = testCaseIdentifier;
+    }
+
+    public String getTargetIdentifier() {
+        return targetIdentifier;
+    }
+
+    public void setTargetIdentifier(String targetIdentifier) {
+        this.targetIdentifier = targetIdentifier;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    public void setExpires(long expires) {
+        this.expires = expires;
+    }
+
+    /**
+     * @param now Current time in milliseconds since the epoch.
+     * @return true, if the result must not be used anymore.
+     */
+    public boolean isExpiredAt(long now) {
+        return expires <= now;
+    }
+}
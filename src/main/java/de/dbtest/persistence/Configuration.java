@@ -41,4 +41,13 @@ public class Configuration {
     public boolean removeTarget(String identifier) {
         return targets.remove(getTarget(identifier));
     }
+
+    /**
+     * Close the connection pools of all configured targets.
+     */
+    public void closeConnectionPools() {
+        for (UniversalDatabaseConnector target : targets) {
+            target.closeConnectionPool();
+        }
+    }
 }
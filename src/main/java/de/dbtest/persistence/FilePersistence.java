@@ -10,13 +10,17 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
 /**
  * The file persisince class is used to manage test cases on file systems.
@@ -36,6 +40,13 @@ public class FilePersistence {
     private static final Logger LOGGER = LogManager.getLogger(FilePersistence.class);
 
     private String rootDirectory;
+    private int loadParallelism;
+
+    private StatusJournal statusJournal;
+    private StatusJournal statusShard;
+    private ResultCache resultCache;
+    private Map<String, Set<StatusItem>> statusIndex;
+    private String statusIndexStamp;
 
 
     /**
@@ -45,6 +56,7 @@ public class FilePersistence {
      */
     public FilePersistence(String rootDirectory) {
         this.rootDirectory = rootDirectory;
+        this.loadParallelism = Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -128,41 +140,73 @@ public class FilePersistence {
      * @throws IOException
      */
     public TestCase loadFromFile(String filename) throws IOException {
+        TestCase testCase = ParallelTestCaseLoader.readTestCase(Paths.get(filename));
 
-        LOGGER.info("Read Test Case from file {}", filename);
-        Path testCasePath = Paths.get(filename);
-        String body = new String(Files.readAllBytes(testCasePath));
-
-        TestCase testCase = new TestCase(body);
-
-        Set<StatusItem> statusItems = loadStatus(testCase.getIdentifier());
-        testCase.setStatus(statusItems);
+        Set<StatusItem> statusItems = loadStatusIndex().get(testCase.getIdentifier());
+        if (statusItems != null) {
+            testCase.setStatus(statusItems);
+        }
 
         return testCase;
     }
 
     /**
      * Load all test cases placed in a directory and the available sub directories without any respect to the project
-     * root directory.
+     * root directory. Files that cannot be read are logged and skipped. (See also FilePersistence.loadTree(...))
      *
      * @param directory Full path to the directory.
      * @return A set of test cases that habe been found in the base directory.
      * @throws IOException
      */
     public Set<TestCase> loadFromDirectory(String directory) throws IOException {
-        Set<TestCase> testCases = new HashSet<TestCase>();
+        Path directoryPath = Paths.get(directory);
+        if (!Files.isDirectory(directoryPath)) {
+            throw new NoSuchFileException(directory);
+        }
 
-        DirectoryStream<Path> paths = Files.newDirectoryStream(Paths.get(directory));
-        for (Path p : paths) {
-            if (Files.isDirectory(p)) {
-                testCases.addAll(loadFromDirectory(p.toString()));
-            }
-            else if (p.toString().endsWith(TEST_FILE_EXTENSION)) {
-                testCases.add(loadFromFile(p.toString()));
+        return loadTree(directory).getTestCases();
+    }
+
+    /**
+     * Load all test cases placed in a directory and the available sub directories. Directories are walked and files
+     * are read and parsed in parallel, the number of threads is defined by the load parallelism. Errors on single
+     * files or directories do not abort the load but are collected in the load result. The status information is
+     * loaded once and attached to all test cases that have been found.
+     *
+     * @param directory Full path to the directory.
+     * @return Loaded test cases including their status and the errors that occurred while loading.
+     * @throws IOException
+     */
+    public LoadResult loadTree(String directory) throws IOException {
+        ParallelTestCaseLoader loader = new ParallelTestCaseLoader(loadParallelism, TEST_FILE_EXTENSION);
+        LoadResult result = loader.load(Paths.get(directory));
+
+        Map<String, Set<StatusItem>> statusIndex = loadStatusIndex();
+        for (TestCase testCase : result.getTestCases()) {
+            Set<StatusItem> statusItems = statusIndex.get(testCase.getIdentifier());
+            if (statusItems != null) {
+                testCase.setStatus(statusItems);
             }
         }
 
-        return testCases;
+        return result;
+    }
+
+    /**
+     * @return Number of threads used for loading directories.
+     */
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    /**
+     * Set the number of threads used for loading directories. Loading test cases from network mounted project roots
+     * is dominated by I/O latency, so the parallelism may exceed the number of available processors.
+     *
+     * @param loadParallelism Number of threads, at least 1.
+     */
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
     }
 
     /**
@@ -186,10 +230,25 @@ public class FilePersistence {
      * @throws IOException
      */
     public Set<TestCase> loadMultiple(String identifier) throws IOException {
+        return loadSet(identifier).getTestCases();
+    }
+
+    /**
+     * Load all test cases of a package and its sub packages together with the errors that occurred while loading.
+     * (See also FilePersistence.loadTree(...))
+     *
+     * @param identifier Full qualified package name (FQPN).
+     * @return Loaded test cases including their status and the errors that occurred while loading.
+     * @throws IOException If the package directory does not exist.
+     */
+    public LoadResult loadSet(String identifier) throws IOException {
         String[] identifierSplit = identifier.split("\\.");
         String baseDirectory = rootDirectory + "/" + String.join("/", identifierSplit);
+        if (!Files.isDirectory(Paths.get(baseDirectory))) {
+            throw new NoSuchFileException(baseDirectory);
+        }
 
-        return loadFromDirectory(baseDirectory);
+        return loadTree(baseDirectory);
     }
 
     /**
@@ -239,6 +298,74 @@ public class FilePersistence {
         return getConfigDirectory() + "/status.json";
     }
 
+    /**
+     * Get the status journal file containing the status information that has been saved since the last compaction.
+     *
+     * @return Filename to open the status journal file.
+     */
+    public String getStatusJournalFile() {
+        return getConfigDirectory() + "/status.journal";
+    }
+
+    /**
+     * Get the directory the workers of a sharded execution write their status information to.
+     *
+     * @return Absolute path to the shard directory within the configuration directory.
+     */
+    public String getShardDirectory() {
+        return getConfigDirectory() + "/shards";
+    }
+
+    /**
+     * Get the status journal a worker of a sharded execution writes its status information to.
+     *
+     * @param index Index of the shard, starting at 0.
+     * @param count Number of shards.
+     * @return Status journal of the shard.
+     */
+    public StatusJournal getShardJournal(int index, int count) {
+        String name = getShardDirectory() + "/status-" + index + "-of-" + count;
+        return new StatusJournal(Paths.get(name + ".json"), Paths.get(name + ".journal"));
+    }
+
+    /**
+     * Get the file caching the results of test case executions.
+     *
+     * @return Filename to open the result cache file.
+     */
+    public String getCacheFile() {
+        return getConfigDirectory() + "/cache.json";
+    }
+
+    /**
+     * Get the result cache of the project. The cache is loaded from the cache file on first access.
+     *
+     * @return Result cache of the project root directory.
+     * @throws IOException
+     */
+    public synchronized ResultCache getResultCache() throws IOException {
+        if (resultCache == null) {
+            ResultCache cache = new ResultCache(Paths.get(getCacheFile()));
+            cache.load();
+            resultCache = cache;
+        }
+
+        return resultCache;
+    }
+
+    /**
+     * Get the status journal managing the status file and the status journal file of the project.
+     *
+     * @return Status journal of the project root directory.
+     */
+    public synchronized StatusJournal getStatusJournal() {
+        if (statusJournal == null) {
+            statusJournal = new StatusJournal(Paths.get(getStatusFile()), Paths.get(getStatusJournalFile()));
+        }
+
+        return statusJournal;
+    }
+
     /**
      * Load the configuration form the project root directory. The configruation is usually placed in the configuration
      * file placed in the project root directory.
@@ -270,42 +397,193 @@ public class FilePersistence {
     }
 
 
+    /**
+     * Load all available status information. The status file is read first, status information appended to the
+     * status journal since the last compaction takes precedence.
+     *
+     * @return Latest status item for each test case and target.
+     * @throws IOException
+     */
     public Set<StatusItem> loadStatus() throws IOException {
-        String filename = getStatusFile();
-        File statusFile = new File(filename);
+        LOGGER.info("Loading file status infomation from {}", getStatusFile());
+        return getStatusJournal().load();
+    }
+
+    /**
+     * Load the status information of a single test case. (See also FilePersistence.loadStatusIndex())
+     *
+     * @param testCaseIdentifier Full qualified test case identifier.
+     * @return Latest status item for each target the test case has been executed at.
+     * @throws IOException
+     */
+    public Set<StatusItem> loadStatus(String testCaseIdentifier) throws IOException {
+        LOGGER.info("Determining status for Test Case {}", testCaseIdentifier);
+        Set<StatusItem> statusItemSet = loadStatusIndex().get(testCaseIdentifier);
+        return (statusItemSet == null) ? new HashSet<StatusItem>() : new HashSet<StatusItem>(statusItemSet);
+    }
+
+    /**
+     * Load all available status information grouped by test case identifier. The index is cached and only reloaded
+     * if the status file or the status journal file has been modified since it was loaded.
+     *
+     * @return Unmodifiable map from test case identifier to the latest status items of the test case.
+     * @throws IOException
+     */
+    public synchronized Map<String, Set<StatusItem>> loadStatusIndex() throws IOException {
+        String stamp = getFileStamp(getStatusFile()) + "|" + getFileStamp(getStatusJournalFile());
 
-        LOGGER.info("Loading file status infomation from {}", filename);
+        if (statusIndex == null || !stamp.equals(statusIndexStamp)) {
+            Map<String, Set<StatusItem>> index = new HashMap<String, Set<StatusItem>>();
+            for (StatusItem statusItem : loadStatus()) {
+                index.computeIfAbsent(statusItem.getTestCaseIdentifier(), k -> new HashSet<StatusItem>()).add(statusItem);
+            }
+            index.replaceAll((k, v) -> Collections.unmodifiableSet(v));
 
-        if (!statusFile.exists()) {
-            LOGGER.info("No status file persited, return empty status information.");
-            return new HashSet<StatusItem>();
+            statusIndex = Collections.unmodifiableMap(index);
+            statusIndexStamp = stamp;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
-        List<StatusItem> statusItems = Arrays.asList(mapper.readValue(statusFile, StatusItem[].class));
-        return new HashSet<StatusItem>(statusItems);
+        return statusIndex;
     }
 
-    public Set<StatusItem> loadStatus(String testCaseIdentifier) throws IOException {
-        Set<StatusItem> statusItemSet = loadStatus();
-        LOGGER.info("Determining status for Test Case {}", testCaseIdentifier);
-        return statusItemSet.stream().filter(s -> s.getTestCaseIdentifier().equals(testCaseIdentifier)).collect(Collectors.toSet());
+    private String getFileStamp(String filename) throws IOException {
+        Path path = Paths.get(filename);
+
+        if (!Files.exists(path)) {
+            return "-";
+        }
+
+        return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
     }
 
+    /**
+     * Append the status information of a test case to the status journal. The journal is synced to disk in batches,
+     * call flushStatus() after saving the status of multiple test cases.
+     *
+     * @param testCase Test case to save the status information from.
+     * @throws IOException
+     */
     public void saveStatus(TestCase testCase) throws IOException {
-        String filename = getStatusFile();
-        File statusFile = new File(filename);
-        ObjectMapper mapper = new ObjectMapper();
-        Set<StatusItem> statusItems = loadStatus();
+        LOGGER.info("Adding Status information from Test Case {} to status journal.", testCase.getIdentifier());
+        getStatusOutput().append(testCase.getStatusSet());
+    }
 
-        LOGGER.info("Adding Status information from Test Case {} to status information.", testCase.getIdentifier());
-        statusItems.addAll(testCase.getStatusSet());
+    /**
+     * Append the status information of a test case at a single target to the status journal, e.g. as soon as the
+     * test case has been executed at the target. The status at other targets is not written, so an execution still
+     * running at another target cannot be overwritten by an outdated status.
+     *
+     * @param testCase Test case to save the status information from.
+     * @param targetIdentifier Identifier of the target the test case has been executed at.
+     * @throws IOException
+     */
+    public void saveStatus(TestCase testCase, String targetIdentifier) throws IOException {
+        StatusItem statusItem = testCase.getStatusItem(targetIdentifier);
 
-        LOGGER.info("Writing status to file {}", filename);
-        mapper.writeValue(statusFile, statusItems);
+        if (statusItem != null) {
+            LOGGER.info("Adding Status information from Test Case {} at target {} to status journal.", testCase.getIdentifier(), targetIdentifier);
+            getStatusOutput().append(Collections.singletonList(statusItem));
+        }
+    }
 
+    /**
+     * Sync the status journal to disk. The journal will be folded into the status file if it exceeded the compaction
+     * threshold.
+     *
+     * @throws IOException
+     */
+    public void flushStatus() throws IOException {
+        LOGGER.info("Flushing status journal {}", getStatusJournalFile());
+        getStatusOutput().flush();
     }
 
+    /**
+     * Fold the status journal into the status file.
+     *
+     * @throws IOException
+     */
+    public void compactStatus() throws IOException {
+        getStatusOutput().compact();
+    }
 
+    /**
+     * Redirect the status information saved by saveStatus(...) to the status journal of a shard, so the workers of a
+     * sharded execution do not write to the status file at the same time. Status information is still loaded from the
+     * status file. Status information left over by a previous execution of the shard is deleted.
+     *
+     * @param index Index of the shard, starting at 0.
+     * @param count Number of shards.
+     * @throws IOException
+     */
+    public synchronized void openStatusShard(int index, int count) throws IOException {
+        StatusJournal shardJournal = getShardJournal(index, count);
+        shardJournal.delete();
+        statusShard = shardJournal;
+    }
+
+    /**
+     * Merge the status information of all shards found in the shard directory into the status file with a single
+     * write and delete the shard files afterwards.
+     *
+     * @return Status items that have been merged.
+     * @throws IOException
+     */
+    public Set<StatusItem> mergeStatusShards() throws IOException {
+        Set<StatusItem> statusItems = new HashSet<StatusItem>();
+        List<StatusJournal> shardJournals = findStatusShards();
+
+        for (StatusJournal shardJournal : shardJournals) {
+            statusItems.addAll(shardJournal.load());
+        }
+
+        LOGGER.info("Merging {} status items of {} shards into {}", statusItems.size(), shardJournals.size(), getStatusFile());
+        getStatusJournal().merge(statusItems);
+
+        for (StatusJournal shardJournal : shardJournals) {
+            shardJournal.delete();
+        }
+
+        return statusItems;
+    }
+
+    /**
+     * Delete the status information of all shards found in the shard directory, e.g. before starting the workers of
+     * a sharded execution.
+     *
+     * @throws IOException
+     */
+    public void clearStatusShards() throws IOException {
+        for (StatusJournal shardJournal : findStatusShards()) {
+            shardJournal.delete();
+        }
+    }
+
+    private List<StatusJournal> findStatusShards() throws IOException {
+        Path shardDirectory = Paths.get(getShardDirectory());
+        List<StatusJournal> shardJournals = new ArrayList<StatusJournal>();
+
+        if (!Files.isDirectory(shardDirectory)) {
+            return shardJournals;
+        }
+
+        // Each shard consists out of a snapshot and a journal file, either of them may be missing.
+        Set<String> names = new TreeSet<String>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(shardDirectory, "status-*-of-*.{json,journal}")) {
+            for (Path path : paths) {
+                String filename = path.getFileName().toString();
+                names.add(filename.substring(0, filename.lastIndexOf('.')));
+            }
+        }
+
+        for (String name : names) {
+            shardJournals.add(new StatusJournal(shardDirectory.resolve(name + ".json"), shardDirectory.resolve(name + ".journal")));
+        }
+
+        return shardJournals;
+    }
+
+    private synchronized StatusJournal getStatusOutput() {
+        return (statusShard != null) ? statusShard : getStatusJournal();
+    }
 
 }
@@ -0,0 +1,46 @@
+package de.dbtest.persistence;
+
+import de.dbtest.common.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The load result captures all test cases that have been loaded from a directory tree together with the errors that
+ * occurred while loading single files or directories.
+ *
+ * @author Lennard Scheffler
+ */
+public class LoadResult {
+
+    private final Set<TestCase> testCases;
+    private final Map<Path, IOException> errors;
+
+    public LoadResult(Set<TestCase> testCases, Map<Path, IOException> errors) {
+        this.testCases = testCases;
+        this.errors = errors;
+    }
+
+    /**
+     * @return All test cases that could be loaded.
+     */
+    public Set<TestCase> getTestCases() {
+        return testCases;
+    }
+
+    /**
+     * @return Errors that occurred while loading, mapped by the file or directory that could not be read.
+     */
+    public Map<Path, IOException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return true, if at least one file or directory could not be loaded.
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
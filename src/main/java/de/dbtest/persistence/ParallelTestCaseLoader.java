@@ -0,0 +1,149 @@
+package de.dbtest.persistence;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.common.TestCaseParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The parallel test case loader walks a directory tree and reads and parses the test case files concurrently on a
+ * fork-join pool. Every directory and every test case file is processed as a separate task. Files or directories that
+ * cannot be read do not abort the load, the errors are collected and returned together with the loaded test cases.
+ *
+ * @author Lennard Scheffler
+ */
+public class ParallelTestCaseLoader {
+
+    private static final Logger LOGGER = LogManager.getLogger(ParallelTestCaseLoader.class);
+
+    private final int parallelism;
+    private final String fileExtension;
+
+
+    /**
+     * Create a loader for test case files.
+     *
+     * @param parallelism Number of threads used for walking directories and reading files.
+     * @param fileExtension File extension of test case files, e.g. ".dbtest".
+     */
+    public ParallelTestCaseLoader(int parallelism, String fileExtension) {
+        this.parallelism = Math.max(1, parallelism);
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Load all test case files placed in the directory and its sub directories.
+     *
+     * @param directory Directory to start from.
+     * @return Loaded test cases and the errors that occurred while loading.
+     */
+    public LoadResult load(Path directory) {
+        Queue<TestCase> testCases = new ConcurrentLinkedQueue<TestCase>();
+        Map<Path, IOException> errors = new ConcurrentHashMap<Path, IOException>();
+
+        LOGGER.info("Loading Test Cases from {} with parallelism {}", directory, parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(directory, testCases, errors));
+        } finally {
+            pool.shutdown();
+        }
+
+        return new LoadResult(new HashSet<TestCase>(testCases), new TreeMap<Path, IOException>(errors));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Read and parse a single test case file.
+     *
+     * @param path Path to the test case file.
+     * @return Test case object loaded from the given file.
+     * @throws IOException
+     */
+    static TestCase readTestCase(Path path) throws IOException {
+        LOGGER.info("Read Test Case from file {}", path);
+        return new TestCase(TestCaseParser.parse(path));
+    }
+
+    /**
+     * Task listing a single directory. Sub directories and test case files are forked as separate tasks.
+     */
+    private class DirectoryTask extends RecursiveAction {
+
+        private final Path directory;
+        private final Queue<TestCase> testCases;
+        private final Map<Path, IOException> errors;
+
+        private DirectoryTask(Path directory, Queue<TestCase> testCases, Map<Path, IOException> errors) {
+            this.directory = directory;
+            this.testCases = testCases;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+                for (Path p : paths) {
+                    if (Files.isDirectory(p)) {
+                        tasks.add(new DirectoryTask(p, testCases, errors));
+                    }
+                    else if (p.toString().endsWith(fileExtension)) {
+                        tasks.add(new FileTask(p, testCases, errors));
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Unable to read directory {}: {}", directory, e.getMessage());
+                errors.put(directory, e);
+            }
+
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Task reading and parsing a single test case file.
+     */
+    private static class FileTask extends RecursiveAction {
+
+        private final Path file;
+        private final Queue<TestCase> testCases;
+        private final Map<Path, IOException> errors;
+
+        private FileTask(Path file, Queue<TestCase> testCases, Map<Path, IOException> errors) {
+            this.file = file;
+            this.testCases = testCases;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                testCases.add(readTestCase(file));
+            } catch (IOException e) {
+                LOGGER.error("Unable to read Test Case from file {}: {}", file, e.getMessage());
+                errors.put(file, e);
+            }
+        }
+    }
+}
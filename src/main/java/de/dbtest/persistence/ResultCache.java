@@ -0,0 +1,210 @@
+package de.dbtest.persistence;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The result cache keeps the results of test case executions for a limited time, so executing an unchanged test case
+ * at the same target again can be skipped. Results are keyed by a hash of the test case body and the session it has
+ * been executed in (e.g. the session setup) plus the target identifier, so changing the body of a test case or its
+ * session invalidates its cached results automatically.<br />
+ * The cache is held in memory and persisted as JSON array by save().
+ *
+ * @author Lennard Scheffler
+ */
+public class ResultCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(ResultCache.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final Path cacheFile;
+    private final ObjectMapper mapper;
+    private final Map<String, CachedResult> results;
+
+
+    /**
+     * Create an empty result cache. Call load() to read previously saved results.
+     *
+     * @param cacheFile File the cache is persisted to.
+     */
+    public ResultCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        this.mapper = new ObjectMapper();
+        this.results = new ConcurrentHashMap<String, CachedResult>();
+    }
+
+    /**
+     * Compute the cache key of a test case body at a target.
+     *
+     * @param body Full test case body.
+     * @param targetIdentifier Identifier of the target.
+     * @return SHA-256 hash of the body in hex followed by @ and the target identifier.
+     */
+    public static String getKey(String body, String targetIdentifier) {
+        return getKey(body, null, targetIdentifier);
+    }
+
+    /**
+     * Compute the cache key of a test case body executed in a specific session at a target.
+     *
+     * @param body Full test case body.
+     * @param session Description of the session the body is executed in, null for a plain session.
+     * @param targetIdentifier Identifier of the target.
+     * @return SHA-256 hash of the body and the session in hex followed by @ and the target identifier.
+     */
+    public static String getKey(String body, String session, String targetIdentifier) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body.getBytes(StandardCharsets.UTF_8));
+            if (session != null) {
+                // The separator cannot be part of a body, so body and session cannot be shifted into each other.
+                digest.update((byte) 0);
+                digest.update(session.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] hash = digest.digest();
+
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+            }
+
+            return new String(hex) + "@" + targetIdentifier;
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the cached result of a test case body at a target.
+     *
+     * @param body Full test case body.
+     * @param targetIdentifier Identifier of the target.
+     * @return Cached result or null if there is no result that has not expired yet.
+     */
+    public CachedResult get(String body, String targetIdentifier) {
+        return get(body, null, targetIdentifier);
+    }
+
+    /**
+     * Get the cached result of a test case body executed in a specific session at a target.
+     *
+     * @param body Full test case body.
+     * @param session Description of the session the body is executed in, null for a plain session.
+     * @param targetIdentifier Identifier of the target.
+     * @return Cached result or null if there is no result that has not expired yet.
+     */
+    public CachedResult get(String body, String session, String targetIdentifier) {
+        String key = getKey(body, session, targetIdentifier);
+        CachedResult result = results.get(key);
+
+        if (result == null) {
+            return null;
+        }
+
+        if (result.isExpiredAt(System.currentTimeMillis())) {
+            results.remove(key, result);
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Cache the result of a test case execution at a target.
+     *
+     * @param body Full test case body that has been executed.
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Resulting status indicator.
+     * @param timestamp Time of the execution in milliseconds since the epoch.
+     * @param ttl Time in milliseconds the result may be used.
+     */
+    public void put(String body, String testCaseIdentifier, String targetIdentifier, int status, long timestamp, long ttl) {
+        put(body, null, testCaseIdentifier, targetIdentifier, status, timestamp, ttl);
+    }
+
+    /**
+     * Cache the result of a test case execution in a specific session at a target.
+     *
+     * @param body Full test case body that has been executed.
+     * @param session Description of the session the body has been executed in, null for a plain session.
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Resulting status indicator.
+     * @param timestamp Time of the execution in milliseconds since the epoch.
+     * @param ttl Time in milliseconds the result may be used.
+     */
+    public void put(String body, String session, String testCaseIdentifier, String targetIdentifier, int status,
+                    long timestamp, long ttl) {
+        String key = getKey(body, session, targetIdentifier);
+        results.put(key, new CachedResult(key, testCaseIdentifier, targetIdentifier, status, timestamp, timestamp + ttl));
+    }
+
+    /**
+     * Read the saved results, expired results are dropped. Results already held in memory take precedence.
+     *
+     * @throws IOException
+     */
+    public synchronized void load() throws IOException {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+
+        LOGGER.info("Loading result cache from {}", cacheFile);
+        long now = System.currentTimeMillis();
+        for (CachedResult result : mapper.readValue(cacheFile.toFile(), CachedResult[].class)) {
+            if (!result.isExpiredAt(now)) {
+                results.putIfAbsent(result.getKey(), result);
+            }
+        }
+    }
+
+    /**
+     * Persist all results that have not expired yet. The cache file is replaced atomically.
+     *
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        long now = System.currentTimeMillis();
+        results.values().removeIf(r -> r.isExpiredAt(now));
+        List<CachedResult> snapshot = new ArrayList<CachedResult>(results.values());
+
+        LOGGER.info("Saving {} cached results to {}", snapshot.size(), cacheFile);
+        Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+        Path temporaryFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        mapper.writeValue(temporaryFile.toFile(), snapshot);
+
+        try {
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return Number of results held in memory, including results that expired since they have been accessed last.
+     */
+    public int size() {
+        return results.size();
+    }
+}
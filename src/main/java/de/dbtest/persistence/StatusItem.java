@@ -8,17 +8,44 @@ public class StatusItem {
     private String testCaseIdentifier;
     private String targetIdentifier;
     private int status;
+    private long timestamp;
+    private long duration;
 
     public StatusItem() {
         this.testCaseIdentifier = null;
         this.targetIdentifier = null;
         this.status = 0;
+        this.timestamp = 0;
+        this.duration = 0;
     }
 
     public StatusItem(String testCaseIdentifier, String targetIdentifier, int status) {
+        this(testCaseIdentifier, targetIdentifier, status, System.currentTimeMillis());
+    }
+
+    /**
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Status indicator.
+     * @param timestamp Time the status has been set in milliseconds since the epoch, 0 if unknown.
+     */
+    public StatusItem(String testCaseIdentifier, String targetIdentifier, int status, long timestamp) {
+        this(testCaseIdentifier, targetIdentifier, status, timestamp, 0);
+    }
+
+    /**
+     * @param testCaseIdentifier Identifier of the test case.
+     * @param targetIdentifier Identifier of the target.
+     * @param status Status indicator.
+     * @param timestamp Time the status has been set in milliseconds since the epoch, 0 if unknown.
+     * @param duration Expected execution duration at the target in milliseconds, 0 if unknown.
+     */
+    public StatusItem(String testCaseIdentifier, String targetIdentifier, int status, long timestamp, long duration) {
         this.testCaseIdentifier = testCaseIdentifier;
         this.targetIdentifier = targetIdentifier;
         this.status = status;
+        this.timestamp = timestamp;
+        this.duration = duration;
     }
 
     public String getTestCaseIdentifier() {
@@ -45,6 +72,30 @@ public class StatusItem {
         this.status = status;
     }
 
+    /**
+     * @return Time the status has been set in milliseconds since the epoch, 0 for status items persisted before
+     * timestamps have been recorded.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return Expected execution duration at the target in milliseconds, smoothed over the previous executions. 0 if
+     * the duration is unknown.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
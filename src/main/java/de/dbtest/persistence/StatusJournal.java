@@ -0,0 +1,397 @@
+package de.dbtest.persistence;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The status journal stores status information as an append-only log next to a snapshot file. Saving a status only
+ * appends one line per status item to the journal instead of rewriting all known statuses. The journal is synced to
+ * disk in batches and folded into the snapshot once it exceeds the compaction threshold.<br />
+ * Loading the status reads the snapshot and replays the journal on top of it, so the latest status item for each
+ * test case and target wins.<br />
+ * Several processes may share the journal, e.g. the workers of a sharded execution or a second execution on the same
+ * project. Appending, loading and compacting take a lock on a lock file next to the journal, so a compaction never
+ * truncates records that are appended meanwhile or replays a journal that does not belong to the snapshot read.
+ *
+ * @author Lennard Scheffler
+ */
+public class StatusJournal {
+
+    /**
+     * Number of appended status items after which the journal is synced to disk.
+     */
+    public static final int DEFAULT_SYNC_INTERVAL = 100;
+
+    /**
+     * Number of journal records after which the journal is folded into the snapshot.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10000;
+
+    private static final Logger LOGGER = LogManager.getLogger(StatusJournal.class);
+
+    /**
+     * Monitor of each lock file. A file lock is held by the whole JVM, so journals of the same process sharing a lock
+     * file have to take turns before locking it.
+     */
+    private static final Map<Path, Object> MONITORS = new ConcurrentHashMap<Path, Object>();
+
+
+    /* Private POJO attributes ****************************************************************************************/
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path lockFile;
+    private final Object monitor;
+    private final int syncInterval;
+    private final int compactionThreshold;
+    private final ObjectMapper mapper;
+
+    private FileChannel journalChannel;
+    private FileChannel lockChannel;
+    private long journalRecords;
+    private int unsyncedRecords;
+
+
+    /**
+     * Create a status journal with the default sync interval and compaction threshold.
+     *
+     * @param snapshotFile File containing the compacted status information as JSON array.
+     * @param journalFile File containing the appended status items, one JSON object per line.
+     */
+    public StatusJournal(Path snapshotFile, Path journalFile) {
+        this(snapshotFile, journalFile, DEFAULT_SYNC_INTERVAL, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Create a status journal.
+     *
+     * @param snapshotFile File containing the compacted status information as JSON array.
+     * @param journalFile File containing the appended status items, one JSON object per line.
+     * @param syncInterval Number of appended status items after which the journal is synced to disk.
+     * @param compactionThreshold Number of journal records after which flush() folds the journal into the snapshot.
+     */
+    public StatusJournal(Path snapshotFile, Path journalFile, int syncInterval, int compactionThreshold) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+        this.lockFile = journalFile.resolveSibling(journalFile.getFileName() + ".lock");
+        this.monitor = MONITORS.computeIfAbsent(lockFile.toAbsolutePath().normalize(), p -> new Object());
+        this.syncInterval = syncInterval;
+        this.compactionThreshold = compactionThreshold;
+        this.mapper = new ObjectMapper();
+        this.journalRecords = -1;
+    }
+
+    /**
+     * Append status items to the journal. The journal is synced to disk as soon as the sync interval is reached.
+     *
+     * @param statusItems Status items to append.
+     * @throws IOException
+     */
+    public synchronized void append(Collection<StatusItem> statusItems) throws IOException {
+        if (statusItems.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (StatusItem statusItem : statusItems) {
+            records.write(mapper.writeValueAsBytes(statusItem));
+            records.write('\n');
+        }
+
+        locked(false, () -> {
+            FileChannel channel = getJournalChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            journalRecords += statusItems.size();
+            unsyncedRecords += statusItems.size();
+
+            if (unsyncedRecords >= syncInterval) {
+                sync();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sync all appended status items to disk and compact the journal if it exceeded the compaction threshold.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (journalChannel == null) {
+            return;
+        }
+
+        sync();
+
+        if (journalRecords >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Load the latest status item for each test case and target. The snapshot is read first and the journal is
+     * replayed on top of it.
+     *
+     * @return Set of the latest status items.
+     * @throws IOException
+     */
+    public synchronized Set<StatusItem> load() throws IOException {
+        return locked(true, this::read);
+    }
+
+    private Set<StatusItem> read() throws IOException {
+        Map<StatusItem, StatusItem> statusItems = new LinkedHashMap<StatusItem, StatusItem>();
+
+        if (Files.exists(snapshotFile)) {
+            LOGGER.info("Loading status snapshot from {}", snapshotFile);
+            for (StatusItem statusItem : Arrays.asList(mapper.readValue(snapshotFile.toFile(), StatusItem[].class))) {
+                statusItems.put(statusItem, statusItem);
+            }
+        }
+
+        if (Files.exists(journalFile)) {
+            LOGGER.info("Replaying status journal {}", journalFile);
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+
+                    try {
+                        StatusItem statusItem = mapper.readValue(line, StatusItem.class);
+                        statusItems.put(statusItem, statusItem);
+                    } catch (IOException e) {
+                        // A record may be incomplete if the process died while appending to the journal.
+                        LOGGER.warn("Skipping unreadable status journal record: {}", line);
+                    }
+                }
+            }
+        }
+
+        return new HashSet<StatusItem>(statusItems.values());
+    }
+
+    /**
+     * Fold the journal into the snapshot. The snapshot is replaced atomically before the journal is truncated, so
+     * replaying the journal again after an interrupted compaction leads to the same result.
+     *
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        merge(Collections.<StatusItem>emptyList());
+    }
+
+    /**
+     * Fold the journal and additional status items into the snapshot with a single write, e.g. the status items
+     * collected by the workers of a sharded execution. The additional status items take precedence over the
+     * status items of the snapshot and the journal.
+     *
+     * @param additionalItems Status items to be merged.
+     * @throws IOException
+     */
+    public synchronized void merge(Collection<StatusItem> additionalItems) throws IOException {
+        locked(false, () -> {
+            fold(additionalItems);
+            return null;
+        });
+    }
+
+    private void fold(Collection<StatusItem> additionalItems) throws IOException {
+        Map<StatusItem, StatusItem> statusItems = new LinkedHashMap<StatusItem, StatusItem>();
+        for (StatusItem statusItem : read()) {
+            statusItems.put(statusItem, statusItem);
+        }
+        for (StatusItem statusItem : additionalItems) {
+            statusItems.put(statusItem, statusItem);
+        }
+
+        LOGGER.info("Compacting status journal into {}", snapshotFile);
+        Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        mapper.writeValue(temporaryFile.toFile(), statusItems.values());
+
+        try {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (Files.exists(journalFile)) {
+            FileChannel channel = getJournalChannel();
+            channel.truncate(0);
+            channel.force(true);
+        }
+
+        journalRecords = 0;
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Release the journal file and delete the snapshot and the journal.
+     *
+     * @throws IOException
+     */
+    public synchronized void delete() throws IOException {
+        locked(false, () -> {
+            if (journalChannel != null) {
+                journalChannel.close();
+                journalChannel = null;
+            }
+
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(journalFile);
+            return null;
+        });
+
+        closeLockChannel();
+        Files.deleteIfExists(lockFile);
+        journalRecords = -1;
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Sync the journal to disk and release the journal file.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (journalChannel != null) {
+            sync();
+            journalChannel.close();
+            journalChannel = null;
+            journalRecords = -1;
+        }
+
+        closeLockChannel();
+    }
+
+    /**
+     * @return Number of records in the journal that have not been compacted yet.
+     * @throws IOException
+     */
+    public synchronized long getJournalRecords() throws IOException {
+        // Opening the journal may terminate an incomplete record, so the lock is taken exclusively.
+        return locked(false, () -> {
+            getJournalChannel();
+            return journalRecords;
+        });
+    }
+
+    /**
+     * Run an action while holding the lock file, shared for reading and exclusive for writing.
+     */
+    private <T> T locked(boolean shared, LockedAction<T> action) throws IOException {
+        synchronized (monitor) {
+            try (FileLock lock = getLockChannel().lock(0, Long.MAX_VALUE, shared)) {
+                return action.run();
+            }
+        }
+    }
+
+    private FileChannel getLockChannel() throws IOException {
+        if (lockChannel == null) {
+            Files.createDirectories(lockFile.toAbsolutePath().getParent());
+            lockChannel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        return lockChannel;
+    }
+
+    private void closeLockChannel() throws IOException {
+        if (lockChannel != null) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    private void sync() throws IOException {
+        if (journalChannel != null && unsyncedRecords > 0) {
+            journalChannel.force(false);
+            unsyncedRecords = 0;
+        }
+    }
+
+    private FileChannel getJournalChannel() throws IOException {
+        if (journalChannel == null) {
+            Files.createDirectories(journalFile.toAbsolutePath().getParent());
+            journalChannel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            terminateRecord(journalChannel);
+        }
+
+        if (journalRecords < 0) {
+            journalRecords = countRecords();
+        }
+
+        return journalChannel;
+    }
+
+    /**
+     * Terminate the last record of the journal if the process died while appending it, otherwise the next record
+     * would be appended to the incomplete one and both would be skipped when loading the journal.
+     */
+    private void terminateRecord(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            reader.read(last, size - 1);
+        }
+
+        if (last.get(0) != '\n') {
+            LOGGER.warn("Terminating incomplete status journal record in {}", journalFile);
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+    }
+
+    private long countRecords() throws IOException {
+        long records = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                records++;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Action executed while holding the lock file.
+     */
+    private interface LockedAction<T> {
+
+        T run() throws IOException;
+    }
+}
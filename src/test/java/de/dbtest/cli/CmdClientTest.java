@@ -1,8 +1,24 @@
 package de.dbtest.cli;
 
+import de.dbtest.common.ExecutionOptions;
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.common.TestCase;
+import de.dbtest.dummies.TestCaseDummies;
+import de.dbtest.persistence.FilePersistence;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class CmdClientTest {
 
@@ -18,4 +34,81 @@ class CmdClientTest {
         CmdClient.cmdExecuteTestSet("de.tests", "root@localhost:3306/information_schema", PROJECT_ROOT_DIRECTORY);
     }
 
+    @Test
+    public void exitCode() {
+        assertEquals(CmdClient.EXIT_ERROR, CmdClient.exitCode((ExecutionSummary) null));
+
+        ExecutionSummary summary = new ExecutionSummary();
+        summary.record(TestCase.TCS_PASSED);
+        assertEquals(CmdClient.EXIT_SUCCESS, CmdClient.exitCode(summary));
+
+        summary.record(TestCase.TCS_FAILED);
+        assertEquals(CmdClient.EXIT_FAILURE, CmdClient.exitCode(summary));
+    }
+
+    @Test
+    public void exitCodeWithFailingTarget() {
+        ExecutionSummary passed = new ExecutionSummary();
+        passed.record(TestCase.TCS_PASSED);
+        ExecutionSummary aborted = new ExecutionSummary();
+        aborted.setError(new IllegalStateException("Unreachable"));
+
+        Map<String, ExecutionSummary> summaries = new HashMap<String, ExecutionSummary>();
+        summaries.put("user@host1:1234/database", passed);
+        assertEquals(CmdClient.EXIT_SUCCESS, CmdClient.exitCode(summaries, 1));
+
+        // A requested target without summary has not been executed.
+        assertEquals(CmdClient.EXIT_ERROR, CmdClient.exitCode(summaries, 2));
+
+        summaries.put("user@host2:1234/database", aborted);
+        assertEquals(CmdClient.EXIT_ERROR, CmdClient.exitCode(summaries, 2));
+    }
+
+    @Test
+    public void createExecutionOptionsWithMissingSetup() throws ParseException {
+        CommandLine commandLine = new DefaultParser().parse(CmdClient.initOptions(),
+                new String[] {"-execute", "-setup", "/nonexistent/setup.sql"});
+
+        assertThrows(IllegalArgumentException.class, () -> CmdClient.createExecutionOptions(commandLine));
+    }
+
+    @Test
+    public void createExecutionOptionsWithLoadParallelism() throws ParseException {
+        CommandLine commandLine = new DefaultParser().parse(CmdClient.initOptions(),
+                new String[] {"-execute", "-loadparallel", "16"});
+
+        assertEquals(16, CmdClient.createExecutionOptions(commandLine).getLoadParallelism());
+    }
+
+    @Test
+    public void loadTestSetWithUnreadableFile() throws IOException {
+        Path root = Files.createTempDirectory("dbtest");
+        Path directory = Files.createDirectories(root.resolve("de").resolve("tests"));
+        Files.write(directory.resolve("TestCase.dbtest"), TestCaseDummies.TEST_CASE_BODY_PASSED.getBytes(StandardCharsets.UTF_8));
+        FilePersistence persistence = new FilePersistence(root.toString());
+        ExecutionOptions executionOptions = new ExecutionOptions();
+        executionOptions.setLoadParallelism(2);
+
+        assertEquals(1, CmdClient.loadTestSet(persistence, "de.tests", executionOptions).getTestCases().size());
+        assertEquals(2, persistence.getLoadParallelism());
+
+        // Executing the set without the unreadable test case would report it as passed.
+        Files.createSymbolicLink(directory.resolve("Broken.dbtest"), root.resolve("missing"));
+        assertThrows(IOException.class, () -> CmdClient.loadTestSet(persistence, "de.tests", executionOptions));
+    }
+
+    @Test
+    public void createExecutionOptionsWithCorruptCache() throws IOException, ParseException {
+        String rootDirectory = Files.createTempDirectory("dbtest").toString();
+        FilePersistence persistence = new FilePersistence(rootDirectory);
+        Path cacheFile = Paths.get(persistence.getCacheFile());
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, "[{".getBytes(StandardCharsets.UTF_8));
+
+        CommandLine commandLine = new DefaultParser().parse(CmdClient.initOptions(),
+                new String[] {"-execute", "-cache", "-root", rootDirectory});
+
+        assertThrows(IllegalArgumentException.class, () -> CmdClient.createExecutionOptions(commandLine));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package de.dbtest.cli;
+
+import de.dbtest.common.ExecutionSummary;
+import de.dbtest.common.TestCase;
+import de.dbtest.persistence.FilePersistence;
+import de.dbtest.persistence.StatusItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    private static final String TARGET_IDENTIFIER = "user@host:1234/database";
+
+    @Test
+    public void getWorkerArguments() {
+        String[] args = { "-execute", "-set", "de.tests", "-shards", "4", "-target", TARGET_IDENTIFIER, "-metrics", "metrics.json" };
+
+        assertEquals(Arrays.asList("-execute", "-set", "de.tests", "-target", TARGET_IDENTIFIER, "-worker", "2/4"),
+                ShardCoordinator.getWorkerArguments(args, 2, 4));
+    }
+
+    @Test
+    public void summarize() {
+        Set<StatusItem> statusItems = new HashSet<StatusItem>(Arrays.asList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED, 2000L),
+                new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_FAILED, 2000L),
+                new StatusItem("de.tests.TestCase1", "user@other:1234/database", TestCase.TCS_PASSED, 2000L)));
+
+        Map<String, ExecutionSummary> summaries = ShardCoordinator.summarize(statusItems, null, 0);
+        assertEquals(2, summaries.size());
+        assertEquals(2, summaries.get(TARGET_IDENTIFIER).getTotal());
+        assertFalse(summaries.get(TARGET_IDENTIFIER).isSuccessful());
+        assertTrue(summaries.get("user@other:1234/database").isSuccessful());
+    }
+
+    @Test
+    public void summarizeRun() {
+        Set<StatusItem> statusItems = new HashSet<StatusItem>(Arrays.asList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED, 2000L),
+                new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_FAILED, 1000L),
+                new StatusItem("de.tests.TestCase1", "user@other:1234/database", TestCase.TCS_FAILED, 2000L)));
+
+        // An old failure at the same target and a failure at another target do not belong to the run.
+        Map<String, ExecutionSummary> summaries = ShardCoordinator.summarize(statusItems, Collections.singleton(TARGET_IDENTIFIER), 1500L);
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.get(TARGET_IDENTIFIER).getTotal());
+        assertTrue(summaries.get(TARGET_IDENTIFIER).isSuccessful());
+    }
+
+    @Test
+    public void mergeShards() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        FilePersistence persistence = new FilePersistence(directory.toString());
+
+        persistence.getShardJournal(0, 2).append(Collections.singletonList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        persistence.getShardJournal(1, 2).append(Collections.singletonList(
+                new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_FAILED)));
+
+        Map<String, ExecutionSummary> summaries = ShardCoordinator.merge(persistence);
+        assertEquals(2, summaries.get(TARGET_IDENTIFIER).getTotal());
+
+        assertEquals(2, persistence.loadStatus().size());
+        assertEquals(TestCase.TCS_FAILED, persistence.loadStatus("de.tests.TestCase2").iterator().next().getStatus());
+        assertEquals(0, ShardCoordinator.merge(persistence).size());
+    }
+}
@@ -0,0 +1,179 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import de.dbtest.metrics.ExecutionMetrics;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExecutorTest {
+
+    private static class MockTarget extends UniversalDatabaseConnector {
+
+        private final String batchQuery;
+        private final PreparedStatement batchStatement;
+        private final PreparedStatement statement;
+
+        private MockTarget(String batchQuery, PreparedStatement batchStatement, PreparedStatement statement) {
+            this.batchQuery = batchQuery;
+            this.batchStatement = batchStatement;
+            this.statement = statement;
+        }
+
+        @Override
+        public Connection connect() {
+            Connection connection = Mockito.mock(Connection.class);
+            try {
+                Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+                if (batchStatement == null) {
+                    Mockito.when(connection.prepareStatement(batchQuery)).thenThrow(new SQLException("Invalid batch"));
+                } else {
+                    Mockito.when(connection.prepareStatement(batchQuery)).thenReturn(batchStatement);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return connection;
+        }
+    }
+
+    private static PreparedStatement mockStatement(ResultSet result) throws SQLException {
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(statement.executeQuery()).thenReturn(result);
+        return statement;
+    }
+
+    @Test
+    public void createBatchQuery() {
+        List<TestCase> testCases = Arrays.asList(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED),
+                new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        assertEquals("SELECT 0 AS dbtest_batch_index, bi.result FROM (\nselect 'passed' as result\n) bi"
+                + "\nUNION ALL\n"
+                + "SELECT 1 AS dbtest_batch_index, bi.result FROM (\nselect 'failed' as result\n) bi",
+                BatchExecutor.createBatchQuery(testCases));
+    }
+
+    @Test
+    public void isBatchable() {
+        ExecutionOptions options = new ExecutionOptions();
+
+        assertTrue(BatchExecutor.isBatchable(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED), options));
+        assertFalse(BatchExecutor.isBatchable(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/",
+                "* @mode rows" + System.getProperty("line.separator") + "*/")), options));
+        assertFalse(BatchExecutor.isBatchable(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED
+                + System.getProperty("line.separator") + "-- @teardown" + System.getProperty("line.separator")
+                + "drop table t;"), options));
+        assertFalse(BatchExecutor.isBatchable(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/",
+                "* @timeout abc" + System.getProperty("line.separator") + "*/")), options));
+    }
+
+    @Test
+    public void execute() throws SQLException {
+        List<TestCase> testCases = Arrays.asList(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED),
+                new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        // Rows of the second test case may arrive first, only the first row of each test case is evaluated.
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn(BatchExecutor.BATCH_INDEX_COLUMN)).thenReturn(1);
+        Mockito.when(result.findColumn(TestCase.RESULT_COLUMN)).thenReturn(2);
+        Mockito.when(result.next()).thenReturn(true, true, true, false);
+        Mockito.when(result.getInt(1)).thenReturn(1, 0, 0);
+        Mockito.when(result.getString(2)).thenReturn("failed", "passed");
+
+        PreparedStatement batchStatement = mockStatement(result);
+        MockTarget target = new MockTarget(BatchExecutor.createBatchQuery(testCases), batchStatement, null);
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setMetrics(new ExecutionMetrics());
+        List<ExecutionResult> results = new BatchExecutor(options).execute(testCases, target);
+
+        assertEquals(TestCase.TCS_PASSED, results.get(0).getStatus());
+        assertEquals(TestCase.TCS_FAILED, results.get(1).getStatus());
+        assertEquals("failed", results.get(1).getDiagnostics().get(TestCase.RESULT_COLUMN));
+        assertEquals(TestCase.TCS_PASSED, testCases.get(0).getStatus(target.getIdentifier()));
+        assertEquals(TestCase.TCS_FAILED, testCases.get(1).getStatus(target.getIdentifier()));
+        assertEquals(1, options.getMetrics().getTarget(target.getIdentifier()).getBatches());
+        assertEquals(0, options.getMetrics().getTarget(target.getIdentifier()).getInFlight());
+        Mockito.verify(batchStatement, Mockito.times(1)).executeQuery();
+    }
+
+    @Test
+    public void fallbackOnError() throws SQLException {
+        List<TestCase> testCases = Arrays.asList(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED),
+                new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn(TestCase.RESULT_COLUMN)).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        PreparedStatement statement = mockStatement(result);
+        MockTarget target = new MockTarget(BatchExecutor.createBatchQuery(testCases), null, statement);
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setMetrics(new ExecutionMetrics());
+        List<ExecutionResult> results = new BatchExecutor(options).execute(testCases, target);
+
+        assertEquals(2, results.size());
+        assertEquals(TestCase.TCS_PASSED, results.get(0).getStatus());
+        assertEquals(1, options.getMetrics().getTarget(target.getIdentifier()).getBatchFallbacks());
+        assertEquals(0, options.getMetrics().getTarget(target.getIdentifier()).getInFlight());
+        Mockito.verify(statement, Mockito.times(2)).executeQuery();
+    }
+
+    @Test
+    public void timeoutWithoutFallback() throws SQLException {
+        List<TestCase> testCases = Arrays.asList(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED),
+                new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        PreparedStatement batchStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(batchStatement.executeQuery()).thenThrow(new SQLTimeoutException("Timeout"));
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        MockTarget target = new MockTarget(BatchExecutor.createBatchQuery(testCases), batchStatement, statement);
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setMetrics(new ExecutionMetrics());
+        List<ExecutionResult> results = new BatchExecutor(options).execute(testCases, target);
+
+        assertEquals(TestCase.TCS_TIMEOUT, results.get(0).getStatus());
+        assertEquals(TestCase.TCS_TIMEOUT, results.get(1).getStatus());
+        assertEquals(TestCase.TCS_TIMEOUT, testCases.get(0).getStatus(target.getIdentifier()));
+        assertEquals(TestCase.TCS_TIMEOUT, testCases.get(1).getStatus(target.getIdentifier()));
+        assertEquals(0, options.getMetrics().getTarget(target.getIdentifier()).getBatchFallbacks());
+        assertEquals(0, options.getMetrics().getTarget(target.getIdentifier()).getInFlight());
+        Mockito.verify(statement, Mockito.never()).executeQuery();
+    }
+
+    @Test
+    public void executeKeepsExpectedDuration() throws SQLException {
+        List<TestCase> testCases = Arrays.asList(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED),
+                new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn(BatchExecutor.BATCH_INDEX_COLUMN)).thenReturn(1);
+        Mockito.when(result.findColumn(TestCase.RESULT_COLUMN)).thenReturn(2);
+        Mockito.when(result.next()).thenReturn(true, true, false);
+        Mockito.when(result.getInt(1)).thenReturn(0, 1);
+        Mockito.when(result.getString(2)).thenReturn("passed", "passed");
+
+        MockTarget target = new MockTarget(BatchExecutor.createBatchQuery(testCases), mockStatement(result), null);
+        testCases.get(0).recordDuration(target.getIdentifier(), 1000);
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setMetrics(new ExecutionMetrics());
+        new BatchExecutor(options).execute(testCases, target);
+
+        assertEquals(1000, testCases.get(0).getExpectedDuration(target.getIdentifier()));
+    }
+
+}
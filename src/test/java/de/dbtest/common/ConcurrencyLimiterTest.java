@@ -0,0 +1,100 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final String TARGET_IDENTIFIER = "user@host:1234/database";
+
+    @Test
+    public void create() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 16);
+        assertEquals(2, limiter.getLimit());
+
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(4, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(1, 16, 1.5, 2.0));
+    }
+
+    @Test
+    public void increaseWhileInTime() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 8);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.record(100, 100, limiter.getLimit(), false);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void keepUnusedLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 8);
+
+        // Only a single test case is ready at a time, a higher limit would not be tested by the executions.
+        for (int i = 0; i < 100; i++) {
+            limiter.record(100, 100, 1, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void decreaseOnOverload() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16);
+        while (limiter.getLimit() < 16) {
+            limiter.record(100, 100, limiter.getLimit(), false);
+        }
+
+        limiter.record(100, 100, 16, true);
+        assertEquals(12, limiter.getLimit());
+
+        // Further overloads of the same round are ignored.
+        limiter.record(100, 100, 16, true);
+        assertEquals(12, limiter.getLimit());
+    }
+
+    @Test
+    public void decreaseOnLatency() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16);
+        while (limiter.getLimit() < 16) {
+            limiter.record(100, 100, limiter.getLimit(), false);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            limiter.record(100, 1000, limiter.getLimit(), false);
+        }
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void fixedLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 4);
+
+        limiter.record(100, 100, 4, true);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.record(100, 100, 4, false);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void isOverloaded() {
+        assertTrue(ConcurrencyLimiter.isOverloaded(new ExecutionResult("de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_TIMEOUT, 100, null)));
+        assertTrue(ConcurrencyLimiter.isOverloaded(new ExecutionResult("de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_STOPPED, 100,
+                new SQLTransientConnectionException("No connection available"))));
+
+        assertFalse(ConcurrencyLimiter.isOverloaded(new ExecutionResult("de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_FAILED, 100, null)));
+        assertFalse(ConcurrencyLimiter.isOverloaded(new ExecutionResult("de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_STOPPED, 100,
+                new SQLSyntaxErrorException("Syntax error"))));
+        assertFalse(ConcurrencyLimiter.isOverloaded(new ExecutionResult("de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_STOPPED, 100,
+                new SQLException("Unknown column"))));
+    }
+}
@@ -0,0 +1,174 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private static class MockTarget extends UniversalDatabaseConnector {
+
+        private final AtomicInteger connectCount = new AtomicInteger();
+        private boolean valid = true;
+
+        @Override
+        public Connection connect() {
+            connectCount.incrementAndGet();
+            Connection connection = Mockito.mock(Connection.class);
+            try {
+                Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(valid);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return connection;
+        }
+    }
+
+    @Test
+    public void applySessionProfile() throws SQLException {
+        MockTarget target = new MockTarget();
+        target.getSession().setReadOnly(true);
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        Connection connection = pool.acquire();
+        pool.release(connection);
+        assertSame(connection, pool.acquire());
+
+        // The profile is applied once when the connection is opened.
+        Mockito.verify(connection, Mockito.times(1)).setReadOnly(true);
+    }
+
+    @Test
+    public void discardConnectionWithInvalidProfile() throws SQLException {
+        MockTarget target = new MockTarget();
+        target.getSession().setIsolation("snapshot");
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration(0, 1, 60000, 10, 1));
+
+        assertNull(pool.acquire());
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void prewarm() {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration(2, 3, 60000, 10, 1));
+
+        pool.prewarm();
+        assertEquals(2, pool.getIdleCount());
+
+        // The pre-warmed connections are borrowed before new ones are opened.
+        Connection connection = pool.acquire();
+        pool.prewarm();
+        assertEquals(2, target.connectCount.get());
+        pool.release(connection);
+    }
+
+    @Test
+    public void releaseAfterClose() throws SQLException {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        Connection connection = pool.acquire();
+        pool.close();
+        pool.release(connection);
+
+        assertNull(pool.acquire());
+        assertEquals(0, pool.getIdleCount());
+        Mockito.verify(connection).close();
+    }
+
+    @Test
+    public void reuseReleasedConnection() {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        Connection connection1 = pool.acquire();
+        pool.release(connection1);
+        Connection connection2 = pool.acquire();
+
+        assertSame(connection1, connection2);
+        assertEquals(1, target.connectCount.get());
+        assertEquals(1, pool.getActiveCount());
+    }
+
+    @Test
+    public void boundedByMaxSize() {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration(0, 2, 60000, 10, 1));
+
+        Connection connection1 = pool.acquire();
+        Connection connection2 = pool.acquire();
+        assertNotNull(connection1);
+        assertNotNull(connection2);
+        assertNull(pool.acquire());
+
+        pool.release(connection1);
+        assertSame(connection1, pool.acquire());
+    }
+
+    @Test
+    public void discardInvalidConnectionOnBorrow() {
+        MockTarget target = new MockTarget();
+        target.valid = false;
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        Connection connection1 = pool.acquire();
+        pool.release(connection1);
+        Connection connection2 = pool.acquire();
+
+        assertNotSame(connection1, connection2);
+        assertEquals(2, target.connectCount.get());
+    }
+
+    @Test
+    public void evictIdleConnections() {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration(1, 5, 0, 1000, 1));
+
+        Connection connection1 = pool.acquire();
+        Connection connection2 = pool.acquire();
+        pool.release(connection1);
+        pool.release(connection2);
+
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void closeStatementsWithConnection() throws SQLException {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        Connection connection = pool.acquire();
+        Mockito.when(connection.prepareStatement("select 1")).thenReturn(Mockito.mock(PreparedStatement.class));
+        StatementCache statementCache = pool.getStatementCache(connection);
+        PreparedStatement statement = statementCache.prepare("select 1");
+        statementCache.release(statement);
+
+        pool.release(connection);
+        Connection reused = pool.acquire();
+        assertSame(statementCache, pool.getStatementCache(reused));
+        pool.release(reused);
+
+        pool.close();
+        Mockito.verify(statement).close();
+    }
+
+    @Test
+    public void close() {
+        MockTarget target = new MockTarget();
+        ConnectionPool pool = new ConnectionPool(target, new PoolConfiguration());
+
+        pool.release(pool.acquire());
+        pool.close();
+
+        assertEquals(0, pool.getIdleCount());
+        assertNull(pool.acquire());
+    }
+
+}
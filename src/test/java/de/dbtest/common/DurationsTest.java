@@ -0,0 +1,27 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationsTest {
+
+    @Test
+    public void parse() {
+        assertEquals(500, Durations.parse("500ms"));
+        assertEquals(30000, Durations.parse("30s"));
+        assertEquals(30000, Durations.parse("30"));
+        assertEquals(900000, Durations.parse("15m"));
+        assertEquals(7200000, Durations.parse("2h"));
+        assertEquals(86400000, Durations.parse("1d"));
+        assertEquals(45000, Durations.parse(" 45 S "));
+    }
+
+    @Test
+    public void parseInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Durations.parse("soon"));
+        assertThrows(IllegalArgumentException.class, () -> Durations.parse("-5s"));
+        assertThrows(IllegalArgumentException.class, () -> Durations.parse(null));
+    }
+
+}
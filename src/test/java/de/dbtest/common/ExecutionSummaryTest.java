@@ -0,0 +1,40 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionSummaryTest {
+
+    @Test
+    public void record() {
+        ExecutionSummary summary = new ExecutionSummary();
+        summary.record(TestCase.TCS_PASSED);
+        summary.record(TestCase.TCS_PASSED);
+        summary.record(TestCase.TCS_FAILED);
+        summary.record(TestCase.TCS_STOPPED);
+        summary.record(TestCase.TCS_SKIPPED);
+        summary.recordTimedOut();
+
+        assertEquals(2, summary.getPassed());
+        assertEquals(1, summary.getFailed());
+        assertEquals(1, summary.getStopped());
+        assertEquals(1, summary.getTimedOut());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(6, summary.getTotal());
+        assertFalse(summary.isSuccessful());
+    }
+
+    @Test
+    public void successful() {
+        ExecutionSummary summary = new ExecutionSummary();
+        assertTrue(summary.isSuccessful());
+
+        summary.record(TestCase.TCS_PASSED);
+        assertTrue(summary.isSuccessful());
+
+        summary.recordTimedOut();
+        assertFalse(summary.isSuccessful());
+    }
+
+}
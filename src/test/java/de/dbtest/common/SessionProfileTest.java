@@ -0,0 +1,54 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionProfileTest {
+
+    @Test
+    public void applyDefaults() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+
+        new SessionProfile().apply(connection);
+
+        Mockito.verify(connection, Mockito.never()).setReadOnly(true);
+        Mockito.verify(connection, Mockito.never()).createStatement();
+    }
+
+    @Test
+    public void apply() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+
+        SessionProfile profile = new SessionProfile();
+        profile.setReadOnly(true);
+        profile.setIsolation("READ_COMMITTED");
+        profile.setStatements(Arrays.asList("SET SESSION max_execution_time = 60000", "SET SESSION sql_mode = 'ANSI'"));
+        profile.apply(connection);
+
+        Mockito.verify(connection).setReadOnly(true);
+        Mockito.verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        Mockito.verify(statement).execute("SET SESSION max_execution_time = 60000");
+        Mockito.verify(statement).execute("SET SESSION sql_mode = 'ANSI'");
+    }
+
+    @Test
+    public void getIsolationLevel() {
+        SessionProfile profile = new SessionProfile();
+        assertEquals(-1, profile.getIsolationLevel());
+
+        profile.setIsolation(SessionProfile.ISOLATION_SERIALIZABLE);
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, profile.getIsolationLevel());
+
+        profile.setIsolation("snapshot");
+        assertThrows(IllegalArgumentException.class, profile::getIsolationLevel);
+    }
+}
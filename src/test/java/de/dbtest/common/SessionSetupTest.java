@@ -0,0 +1,60 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionSetupTest {
+
+    @Test
+    public void applyOncePerConnection() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Connection first = mockConnection(statement);
+        Connection second = mockConnection(statement);
+
+        SessionSetup setup = new SessionSetup(Arrays.asList("create temporary table staging as select 1 as id"));
+        setup.apply(first, 0);
+        setup.apply(first, 0);
+        setup.apply(second, 0);
+
+        Mockito.verify(statement, Mockito.times(2)).execute("create temporary table staging as select 1 as id");
+        assertEquals(2, setup.size());
+    }
+
+    @Test
+    public void applyAgainAfterError() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.execute("create temporary table staging as select 1 as id")).thenThrow(new SQLException("failed"));
+        Connection connection = mockConnection(statement);
+
+        SessionSetup setup = new SessionSetup(Arrays.asList("create temporary table staging as select 1 as id"));
+        assertThrows(SQLException.class, () -> setup.apply(connection, 0));
+        assertThrows(SQLException.class, () -> setup.apply(connection, 0));
+        assertEquals(0, setup.size());
+    }
+
+    @Test
+    public void load() throws Exception {
+        Path file = Files.createTempDirectory("dbtest").resolve("setup.sql");
+        Files.write(file, "-- shared staging data\ncreate temporary table staging as select 1 as id;\nanalyze staging;\n".getBytes());
+
+        SessionSetup setup = SessionSetup.load(file);
+
+        assertEquals(Arrays.asList("create temporary table staging as select 1 as id", "analyze staging"),
+                setup.getStatements());
+    }
+
+    private static Connection mockConnection(Statement statement) throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        return connection;
+    }
+}
@@ -0,0 +1,102 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotSessionTest {
+
+    private static class MockTarget extends UniversalDatabaseConnector {
+
+        private final Connection connection;
+
+        private MockTarget(int databaseType, Connection connection) {
+            super(databaseType, "localhost", 3306, "dwh", "dbtest", null);
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection connect() {
+            return connection;
+        }
+    }
+
+    @Test
+    public void beginAndEnd() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+
+        MockTarget target = new MockTarget(UniversalDatabaseConnector.DBT_MYSQL, connection);
+        SnapshotSession session = new SnapshotSession(target);
+
+        assertTrue(session.begin());
+        assertEquals(target.getIdentifier(), session.getIdentifier());
+        Mockito.verify(connection).setAutoCommit(false);
+        Mockito.verify(statement).execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+
+        // All test cases share the connection of the snapshot.
+        Connection first = session.acquire();
+        session.release(first);
+        assertSame(connection, first);
+        Connection second = session.acquire();
+        assertSame(connection, second);
+        session.release(second);
+
+        session.end();
+        Mockito.verify(connection).rollback();
+        Mockito.verify(connection).setAutoCommit(true);
+        Mockito.verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        assertEquals(0, target.getConnectionPool().getActiveCount());
+    }
+
+    @Test
+    public void endWhileInUse() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+
+        MockTarget target = new MockTarget(UniversalDatabaseConnector.DBT_MYSQL, connection);
+        target.getPool().setAcquireTimeout(10);
+        SnapshotSession session = new SnapshotSession(target);
+
+        assertTrue(session.begin());
+        session.acquire();
+
+        // A test case still executing on the connection must not see a rollback from another thread.
+        session.end();
+        Mockito.verify(connection, Mockito.never()).rollback();
+        Mockito.verify(connection).close();
+        assertEquals(0, target.getConnectionPool().getActiveCount());
+    }
+
+    @Test
+    public void beginOracle() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+
+        SnapshotSession session = new SnapshotSession(new MockTarget(UniversalDatabaseConnector.DBT_ORACLE, connection));
+
+        assertTrue(session.begin());
+        Mockito.verify(statement).execute("SET TRANSACTION READ ONLY");
+        session.end();
+    }
+
+    @Test
+    public void acquireWithoutSnapshot() {
+        UniversalDatabaseConnector target = new MockTarget(UniversalDatabaseConnector.DBT_MYSQL, null);
+        target.getPool().setAcquireTimeout(10);
+        SnapshotSession session = new SnapshotSession(target);
+
+        assertFalse(session.begin());
+        assertNull(session.acquire());
+    }
+}
@@ -0,0 +1,99 @@
+package de.dbtest.common;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    private static Connection mockConnection() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement("select 1")).thenReturn(Mockito.mock(PreparedStatement.class));
+        Mockito.when(connection.prepareStatement("select 2")).thenReturn(Mockito.mock(PreparedStatement.class));
+        Mockito.when(connection.prepareStatement("select 3")).thenReturn(Mockito.mock(PreparedStatement.class));
+        return connection;
+    }
+
+    @Test
+    public void reuseReleasedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 10);
+
+        PreparedStatement statement1 = cache.prepare("select 1");
+        cache.release(statement1);
+        PreparedStatement statement2 = cache.prepare("select 1");
+
+        assertSame(statement1, statement2);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        Mockito.verify(statement1, Mockito.never()).close();
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 2);
+
+        PreparedStatement statement1 = cache.prepare("select 1");
+        cache.release(statement1);
+        PreparedStatement statement2 = cache.prepare("select 2");
+        cache.release(statement2);
+        cache.release(cache.prepare("select 1"));
+        cache.release(cache.prepare("select 3"));
+
+        assertEquals(2, cache.size());
+        Mockito.verify(statement2).close();
+        Mockito.verify(statement1, Mockito.never()).close();
+    }
+
+    @Test
+    public void keepStatementsInUse() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 1);
+
+        PreparedStatement statement1 = cache.prepare("select 1");
+        PreparedStatement statement2 = cache.prepare("select 2");
+        assertEquals(2, cache.size());
+
+        cache.release(statement2);
+        Mockito.verify(statement1, Mockito.never()).close();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void disabled() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 0);
+
+        PreparedStatement statement = cache.prepare("select 1");
+        cache.release(statement);
+
+        assertEquals(0, cache.size());
+        Mockito.verify(statement).close();
+    }
+
+    @Test
+    public void invalidate() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 10);
+
+        PreparedStatement statement = cache.prepare("select 1");
+        cache.invalidate(statement);
+
+        assertEquals(0, cache.size());
+        Mockito.verify(statement).close();
+    }
+
+    @Test
+    public void close() throws SQLException {
+        StatementCache cache = new StatementCache(mockConnection(), 10);
+
+        PreparedStatement statement = cache.prepare("select 1");
+        cache.release(statement);
+        cache.close();
+
+        assertEquals(0, cache.size());
+        Mockito.verify(statement).close();
+    }
+
+}
@@ -0,0 +1,73 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCaseDescriptorTest {
+
+    @Test
+    public void parse() {
+        TestCaseDescriptor descriptor = TestCaseDescriptor.parse(TestCaseDummies.TEST_CASE_BODY_PASSED);
+
+        assertEquals(TestCaseDummies.TEST_CASE_HEAD, descriptor.getHead());
+        assertEquals("select 'passed' as result", descriptor.getQuery());
+        assertEquals(TestCaseDummies.TEST_CASE_PACKAGE, descriptor.getPackage());
+        assertEquals(TestCaseDummies.TEST_CASE_NAME, descriptor.getName());
+        assertEquals("de.tests.TestCase", descriptor.getIdentifier());
+    }
+
+    @Test
+    public void parseAnnotations() {
+        String body = "/**" + System.getProperty("line.separator")
+                + "* @package de.tests" + System.getProperty("line.separator")
+                + "* @test TestCase" + System.getProperty("line.separator")
+                + "* @custom first" + System.getProperty("line.separator")
+                + "* @custom second" + System.getProperty("line.separator")
+                + "*/" + System.getProperty("line.separator")
+                + "select 'passed' as result;";
+
+        TestCaseDescriptor descriptor = TestCaseDescriptor.parse(body);
+
+        assertEquals("first", descriptor.getAnnotation("@custom"));
+        assertEquals(2, descriptor.getAnnotations("@custom").size());
+        assertEquals("second", descriptor.getAnnotations("@custom").get(1));
+        assertNull(descriptor.getAnnotation("@missing"));
+        assertTrue(descriptor.getAnnotations("@missing").isEmpty());
+    }
+
+    @Test
+    public void parseSections() {
+        String body = TestCaseDummies.TEST_CASE_HEAD + System.getProperty("line.separator")
+                + "-- @setup" + System.getProperty("line.separator")
+                + "create temporary table t as select 1 as id;" + System.getProperty("line.separator")
+                + "-- @check" + System.getProperty("line.separator")
+                + "insert into t values (2);" + System.getProperty("line.separator")
+                + "select 'passed' as result from t;" + System.getProperty("line.separator")
+                + "-- @teardown" + System.getProperty("line.separator")
+                + "drop table t;";
+
+        TestCaseDescriptor descriptor = TestCaseDescriptor.parse(body);
+
+        assertEquals(4, descriptor.getStatements().size());
+        assertEquals("select 'passed' as result from t", descriptor.getQuery());
+        assertEquals(Arrays.asList("create temporary table t as select 1 as id", "insert into t values (2)"),
+                descriptor.getSetupStatements());
+        assertEquals(Arrays.asList("drop table t"), descriptor.getTeardownStatements());
+    }
+
+    @Test
+    public void parseEmpty() {
+        TestCaseDescriptor descriptor = TestCaseDescriptor.parse("");
+
+        assertNull(descriptor.getHead());
+        assertNull(descriptor.getQuery());
+        assertNull(descriptor.getPackage());
+        assertNull(descriptor.getName());
+        assertTrue(descriptor.getAnnotations().isEmpty());
+    }
+
+}
@@ -0,0 +1,144 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCaseParserTest {
+
+    @Test
+    public void parseHeadAndQuery() {
+        TestCaseDescriptor descriptor = TestCaseParser.parse(TestCaseDummies.TEST_CASE_BODY_PASSED);
+
+        assertEquals(TestCaseDummies.TEST_CASE_HEAD, descriptor.getHead());
+        assertEquals(Arrays.asList("select 'passed' as result"), descriptor.getStatements());
+        assertEquals("de.tests.TestCase", descriptor.getIdentifier());
+    }
+
+    @Test
+    public void parseMultipleStatements() {
+        String body = TestCaseDummies.TEST_CASE_HEAD + "\r\n"
+                + "-- create the data; not a terminator\n"
+                + "insert into log values ('a;b', 'it''s; quoted');\n"
+                + "/* block; comment */ update \"odd;name\" set x = 1;\n"
+                + "select 'passed' as result -- trailing; comment\n"
+                + ";\n"
+                + "-- nothing follows\n";
+
+        TestCaseDescriptor descriptor = TestCaseParser.parse(body);
+
+        assertEquals(3, descriptor.getStatements().size());
+        assertEquals("insert into log values ('a;b', 'it''s; quoted')", descriptor.getStatements().get(0));
+        assertEquals("update \"odd;name\" set x = 1", descriptor.getStatements().get(1));
+        assertEquals("select 'passed' as result -- trailing; comment", descriptor.getQuery());
+    }
+
+    @Test
+    public void parseBackslashEscapes() {
+        TestCaseDescriptor descriptor = TestCaseParser.parse(TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "insert into log values ('it\\'s; escaped', \"a\\\\\");\n"
+                + "select `odd\\` as result;");
+
+        assertEquals(2, descriptor.getStatements().size());
+        assertEquals("insert into log values ('it\\'s; escaped', \"a\\\\\")", descriptor.getStatements().get(0));
+        assertEquals("select `odd\\` as result", descriptor.getQuery());
+    }
+
+    @Test
+    public void parseWithoutBackslashEscapes() {
+        String body = TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "insert into paths values ('C:\\');\n"
+                + "select 'passed' as result from paths;";
+
+        TestCaseDescriptor descriptor = TestCaseParser.parse(body, false);
+        assertFalse(descriptor.isBackslashEscapes());
+        assertEquals(Arrays.asList("insert into paths values ('C:\\')", "select 'passed' as result from paths"),
+                descriptor.getStatements());
+
+        // With backslash escapes the literal swallows the terminator and the rest of the body.
+        assertEquals(1, TestCaseParser.parse(body, true).getStatements().size());
+    }
+
+    @Test
+    public void parseBlocks() {
+        String block = "declare\n  n number;\nbegin\n  if n > 0 then\n    n := 1;\n  end if;\n"
+                + "  begin\n    n := case when n = 1 then 2 else 3 end;\n  end;\nend";
+        TestCaseDescriptor descriptor = TestCaseParser.parse(TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "begin transaction;\n"
+                + block + ";\n"
+                + "select case when count(*) > 0 then 'passed' else 'failed' end as result from log;");
+
+        assertEquals(Arrays.asList("begin transaction", block,
+                "select case when count(*) > 0 then 'passed' else 'failed' end as result from log"),
+                descriptor.getStatements());
+    }
+
+    @Test
+    public void parseBlockWithoutDeclaration() {
+        String block = "BEGIN\n  DECLARE x INT;\n  WHILE x < 3 DO\n    SET x = x + 1;\n  END WHILE;\n"
+                + "  CASE x WHEN 3 THEN SET x = 0; END CASE;\nEND";
+        TestCaseDescriptor descriptor = TestCaseParser.parse(TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "DECLARE @n INT;\n"
+                + block + ";\n"
+                + "BEGIN;\n"
+                + "select 'passed' as result");
+
+        assertEquals(Arrays.asList("DECLARE @n INT", block, "BEGIN", "select 'passed' as result"),
+                descriptor.getStatements());
+    }
+
+    @Test
+    public void parseUnterminatedStatement() {
+        TestCaseDescriptor descriptor = TestCaseParser.parse(TestCaseDummies.TEST_CASE_HEAD + "\nselect 1 as result");
+
+        assertEquals("select 1 as result", descriptor.getQuery());
+    }
+
+    @Test
+    public void parseWithoutHeader() {
+        TestCaseDescriptor descriptor = TestCaseParser.parse("/* not a header */ select 1 as result;");
+
+        assertNull(descriptor.getHead());
+        assertEquals("select 1 as result", descriptor.getQuery());
+    }
+
+    @Test
+    public void parseLargeBody() {
+        StringBuilder body = new StringBuilder(TestCaseDummies.TEST_CASE_HEAD).append("\nselect 'passed' as result\n");
+        for (int i = 0; i < 200000; i++) {
+            body.append("and id <> ").append(i).append(" -- line ").append(i).append('\n');
+        }
+        body.append(';');
+
+        TestCaseDescriptor descriptor = TestCaseParser.parse(body.toString());
+
+        assertEquals(1, descriptor.getStatements().size());
+        assertTrue(descriptor.getQuery().endsWith("-- line 199999"));
+    }
+
+    @Test
+    public void parseFile() throws Exception {
+        // The file is larger than the read buffer, so tokens are split between two reads.
+        StringBuilder body = new StringBuilder(TestCaseDummies.TEST_CASE_HEAD).append('\n');
+        for (int i = 0; i < 2000; i++) {
+            body.append("select '").append(i).append(";' as result; -- ").append(i).append('\n');
+        }
+
+        Path file = Files.createTempDirectory("dbtest").resolve("TestCase.dbtest");
+        Files.write(file, body.toString().getBytes(StandardCharsets.UTF_8));
+
+        TestCaseDescriptor descriptor = TestCaseParser.parse(file);
+
+        assertEquals(body.toString(), descriptor.getBody());
+        assertEquals(TestCaseDummies.TEST_CASE_HEAD, descriptor.getHead());
+        assertEquals(2000, descriptor.getStatements().size());
+        assertEquals("select '1999;' as result", descriptor.getQuery());
+    }
+
+}
@@ -2,12 +2,28 @@ package de.dbtest.common;
 
 import de.dbtest.dummies.TargetDummies;
 import de.dbtest.dummies.TestCaseDummies;
+import de.dbtest.persistence.ResultCache;
 import de.dbtest.persistence.StatusItem;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Observer;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.mockito.Mockito;
@@ -59,14 +75,350 @@ class TestCaseTest {
         assertEquals("select 'failed' as result", testCase.getQuery());
     }
 
+    @Test
+    public void cacheDescriptor() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        TestCaseDescriptor descriptor = testCase.getDescriptor();
+        assertSame(descriptor, testCase.getDescriptor());
+
+        testCase.setBody(TestCaseDummies.TEST_CASE_BODY_FAILED);
+        assertNotSame(descriptor, testCase.getDescriptor());
+        assertEquals("select 'failed' as result", testCase.getQuery());
+
+        descriptor = testCase.getDescriptor();
+        testCase.setQuery("select 'passed' as result;");
+        assertNotSame(descriptor, testCase.getDescriptor());
+        assertEquals("select 'passed' as result", testCase.getQuery());
+    }
+
+    @Test
+    public void getAnnotation() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals("TestCase", testCase.getAnnotation(TestCase.ANNOT_NAME));
+        assertNull(testCase.getAnnotation("@missing"));
+    }
+
+    @Test
+    public void getTimeout() {
+        ExecutionOptions options = new ExecutionOptions();
+        options.setTestTimeout(60000);
+
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals(60000, testCase.getTimeout(options));
+
+        testCase.setBody(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @timeout 30s" + System.getProperty("line.separator") + "*/"));
+        assertEquals(30000, testCase.getTimeout(options));
+    }
+
+    @Test
+    public void recordDuration() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals(0, testCase.getExpectedDuration("target"));
+
+        testCase.recordDuration("target", 1000);
+        assertEquals(1000, testCase.getExpectedDuration("target"));
+
+        testCase.recordDuration("target", 2000);
+        assertEquals(1300, testCase.getExpectedDuration("target"));
+
+        testCase.setStatus("target", TestCase.TCS_PASSED);
+        TestCase restored = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        restored.setStatus(testCase.getStatusSet());
+        assertEquals(1300, restored.getExpectedDuration("target"));
+    }
+
+    @Test
+    public void getDependencies() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/",
+                "* @depends RowCount, de.other.Check" + System.getProperty("line.separator")
+                + "* @depends Integrity" + System.getProperty("line.separator") + "*/"));
+
+        assertEquals(Arrays.asList("de.tests.RowCount", "de.other.Check", "de.tests.Integrity"),
+                new ArrayList<String>(testCase.getDependencies()));
+        assertTrue(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED).getDependencies().isEmpty());
+    }
+
+    @Test
+    public void getMode() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals(TestCase.MODE_SINGLE, testCase.getMode());
+
+        testCase.setBody(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @mode rows" + System.getProperty("line.separator") + "*/"));
+        assertEquals(TestCase.MODE_ROWS, testCase.getMode());
+
+        testCase.setBody(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @mode columns" + System.getProperty("line.separator") + "*/"));
+        assertThrows(IllegalArgumentException.class, testCase::getMode);
+    }
+
+    @Test
+    public void executeRowsStopsAtFirstFailingRow() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true, true, true, false);
+        Mockito.when(result.getString(1)).thenReturn("passed", "failed");
+        Mockito.when(result.getString(2)).thenReturn("42");
+
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(metaData.getColumnCount()).thenReturn(2);
+        Mockito.when(metaData.getColumnLabel(1)).thenReturn("result");
+        Mockito.when(metaData.getColumnLabel(2)).thenReturn("id");
+        Mockito.when(result.getMetaData()).thenReturn(metaData);
+
+        PreparedStatement statement = mockStatement(result);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/",
+                "* @mode rows" + System.getProperty("line.separator") + "* @fetchsize 500" + System.getProperty("line.separator") + "*/"));
+
+        ExecutionResult executionResult = testCase.executeWithResult(new MockTarget(statement));
+
+        assertEquals(TestCase.TCS_FAILED, executionResult.getStatus());
+        assertEquals(2, executionResult.getRows());
+        assertEquals("failed", executionResult.getDiagnostics().get("result"));
+        assertEquals("42", executionResult.getDiagnostics().get("id"));
+        Mockito.verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    public void executeSingleLimitsRows() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("PASSED");
+
+        PreparedStatement statement = mockStatement(result);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+
+        ExecutionResult executionResult = testCase.executeWithResult(new MockTarget(statement));
+
+        assertEquals(TestCase.TCS_PASSED, executionResult.getStatus());
+        assertTrue(executionResult.getDiagnostics().isEmpty());
+        Mockito.verify(statement).setMaxRows(1);
+    }
+
+    @Test
+    public void executeFromCache() throws IOException, SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        PreparedStatement statement = mockStatement(result);
+        MockTarget target = new MockTarget(statement);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @cacheTtl 15m" + System.getProperty("line.separator") + "*/"));
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setCache(new ResultCache(Files.createTempDirectory("dbtest").resolve("cache.json")));
+
+        assertFalse(testCase.executeWithResult(target, options).isCached());
+        ExecutionResult cachedResult = testCase.executeWithResult(target, options);
+
+        assertTrue(cachedResult.isCached());
+        assertEquals(TestCase.TCS_PASSED, cachedResult.getStatus());
+        assertEquals(TestCase.TCS_PASSED, testCase.getStatus(target.getIdentifier()));
+        Mockito.verify(statement, Mockito.times(1)).executeQuery();
+    }
+
+    @Test
+    public void executeFromCacheOfSameSession() throws IOException, SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        PreparedStatement statement = mockStatement(result);
+        MockTarget target = new MockTarget(statement);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @cacheTtl 15m" + System.getProperty("line.separator") + "*/"));
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setCache(new ResultCache(Files.createTempDirectory("dbtest").resolve("cache.json")));
+        assertFalse(testCase.executeWithResult(target, options).isCached());
+
+        // The result of a session with another isolation level may differ, so it is executed again.
+        target.getSession().setIsolation(SessionProfile.ISOLATION_SERIALIZABLE);
+        assertFalse(testCase.executeWithResult(target, options).isCached());
+        assertTrue(testCase.executeWithResult(target, options).isCached());
+        Mockito.verify(statement, Mockito.times(2)).executeQuery();
+    }
+
+    @Test
+    public void executeRecordsQueryDuration() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        // The time waiting for a connection is not part of the duration history.
+        MockTarget target = new MockTarget(mockStatement(result)) {
+            @Override
+            public Connection connect() {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.connect();
+            }
+        };
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+
+        assertEquals(TestCase.TCS_PASSED, testCase.executeWithResult(target).getStatus());
+        assertTrue(testCase.getExpectedDuration(target.getIdentifier()) < 500);
+    }
+
+    private static PreparedStatement mockStatement(ResultSet result) throws SQLException {
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(statement.executeQuery()).thenReturn(result);
+        return statement;
+    }
+
+    private static class MockTarget extends UniversalDatabaseConnector {
+
+        private final PreparedStatement statement;
+        private final Statement sessionStatement;
+        private Connection connection;
+
+        private MockTarget(PreparedStatement statement) {
+            this(statement, null);
+        }
+
+        private MockTarget(PreparedStatement statement, Statement sessionStatement) {
+            this.statement = statement;
+            this.sessionStatement = sessionStatement;
+        }
+
+        @Override
+        public Connection connect() {
+            connection = Mockito.mock(Connection.class);
+            try {
+                Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+                Mockito.when(connection.createStatement()).thenReturn(sessionStatement);
+                Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return connection;
+        }
+    }
+
+    @Test
+    public void executeSections() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        Statement session = Mockito.mock(Statement.class);
+        MockTarget target = new MockTarget(mockStatement(result), session);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "-- @setup\ncreate temporary table t as select 1 as id;\n"
+                + "-- @check\nselect 'passed' as result from t;\n"
+                + "-- @teardown\ndrop table t;");
+
+        ExecutionResult executionResult = testCase.executeWithResult(target);
+
+        assertEquals(TestCase.TCS_PASSED, executionResult.getStatus());
+        Mockito.verify(session).execute("create temporary table t as select 1 as id");
+        Mockito.verify(target.connection).prepareStatement("select 'passed' as result from t");
+        Mockito.verify(session).execute("drop table t");
+        Mockito.verify(target.connection, Mockito.never()).close();
+    }
+
+    @Test
+    public void executeTeardownAfterSetupError() throws SQLException {
+        Statement session = Mockito.mock(Statement.class);
+        Mockito.when(session.execute("create temporary table t as select 1 as id")).thenThrow(new SQLException("exists"));
+
+        PreparedStatement statement = mockStatement(Mockito.mock(ResultSet.class));
+        MockTarget target = new MockTarget(statement, session);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_HEAD + "\n"
+                + "-- @setup\ncreate temporary table t as select 1 as id;\n"
+                + "-- @check\nselect 'passed' as result from t;\n"
+                + "-- @teardown\ndrop table t;");
+
+        ExecutionResult executionResult = testCase.executeWithResult(target);
+
+        assertEquals(TestCase.TCS_STOPPED, executionResult.getStatus());
+        Mockito.verify(statement, Mockito.never()).executeQuery();
+        Mockito.verify(session).execute("drop table t");
+    }
+
+    @Test
+    public void executeSessionSetupOncePerConnection() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        Statement session = Mockito.mock(Statement.class);
+        MockTarget target = new MockTarget(mockStatement(result), session);
+        ExecutionOptions options = new ExecutionOptions();
+        options.setSetup(new SessionSetup(Arrays.asList("create temporary table staging as select 1 as id")));
+
+        new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED).executeWithResult(target, options);
+        new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED).executeWithResult(target, options);
+
+        Mockito.verify(session, Mockito.times(1)).execute("create temporary table staging as select 1 as id");
+        assertEquals(1, options.getSetup().size());
+    }
+
+    @Test
+    public void cancelWithoutRunningStatement() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertFalse(testCase.cancel(TargetDummies.getDefaultTarget().getIdentifier()));
+    }
+
+    @Test
+    public void executeInterruptedBeforeStart() throws SQLException {
+        ResultSet result = Mockito.mock(ResultSet.class);
+        Mockito.when(result.findColumn("result")).thenReturn(1);
+        Mockito.when(result.next()).thenReturn(true);
+        Mockito.when(result.getString(1)).thenReturn("passed");
+
+        PreparedStatement statement = mockStatement(result);
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+
+        // The test set interrupts its workers before cancelling, a worker that was not registered yet has to notice.
+        Thread.currentThread().interrupt();
+        ExecutionResult executionResult;
+        try {
+            executionResult = testCase.executeWithResult(new MockTarget(statement));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(TestCase.TCS_TIMEOUT, executionResult.getStatus());
+        Mockito.verify(statement, Mockito.never()).executeQuery();
+    }
+
     @Test
     public void getAndSetStatus() {
         UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
         TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals(TestCase.TCS_PENDING, testCase.getStatus(target.getIdentifier()));
+
         testCase.setStatus(target.getIdentifier(), TestCase.TCS_PASSED);
         assertEquals(TestCase.TCS_PASSED, testCase.getStatus(target.getIdentifier()));
     }
 
+    @Test
+    public void getStatusTimestamp() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        assertEquals(0, testCase.getStatusTimestamp("target"));
+
+        long before = System.currentTimeMillis();
+        testCase.setStatus("target", TestCase.TCS_PASSED);
+        assertTrue(testCase.getStatusTimestamp("target") >= before);
+
+        testCase.setStatus(Collections.singleton(new StatusItem(testCase.getIdentifier(), "target", TestCase.TCS_FAILED, 1000)));
+        assertEquals(1000, testCase.getStatusTimestamp("target"));
+        assertEquals(1000, testCase.getStatusSet().iterator().next().getTimestamp());
+
+        // Status and time of the status item always belong to the same status change.
+        testCase.setStatus("target", TestCase.TCS_TIMEOUT, 2000);
+        StatusItem statusItem = testCase.getStatusItem("target");
+        assertEquals(TestCase.TCS_TIMEOUT, statusItem.getStatus());
+        assertEquals(2000, statusItem.getTimestamp());
+    }
+
     @Test
     public void setStatusFromSet() {
         Set<StatusItem> statusItemSet = new HashSet<StatusItem>();
@@ -111,18 +463,92 @@ class TestCaseTest {
         assertEquals(TestCase.TCS_STOPPED, testCase.getStatus(target.getIdentifier()));
     }
 
+    @Test
+    public void executeAsync() throws Exception {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_SQL_ERROR);
+        UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        ExecutionResult result = testCase.executeAsync(target, executor).get();
+        executor.shutdown();
+
+        assertEquals(TestCase.TCS_STOPPED, result.getStatus());
+        assertEquals(testCase.getIdentifier(), result.getIdentifier());
+        assertEquals(target.getIdentifier(), result.getTargetIdentifier());
+        assertNotNull(result.getError());
+    }
+
+    @Test
+    public void executeWithoutConnection() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        UniversalDatabaseConnector target = new UniversalDatabaseConnector();
+
+        ExecutionResult result = testCase.executeWithResult(target);
+
+        assertFalse(result.isPassed());
+        assertEquals(TestCase.TCS_STOPPED, testCase.getStatus(target.getIdentifier()));
+        assertNotNull(result.getError());
+        assertEquals(0, testCase.getExpectedDuration(target.getIdentifier()));
+    }
+
+    @Test
+    public void executeWithoutConnectionNotCached() throws IOException {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("*/", "* @cacheTtl 15m" + System.getProperty("line.separator") + "*/"));
+        UniversalDatabaseConnector target = new UniversalDatabaseConnector();
+
+        ExecutionOptions options = new ExecutionOptions();
+        options.setCache(new ResultCache(Files.createTempDirectory("dbtest").resolve("cache.json")));
+        testCase.executeWithResult(target, options);
+
+        assertFalse(testCase.executeWithResult(target, options).isCached());
+    }
+
     @Test
     public void observe() {
         TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
         UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
 
-        Observer observer = Mockito.spy(Observer.class);
-        testCase.addObserver(observer);
+        TestCaseListener listener = Mockito.mock(TestCaseListener.class);
+        testCase.addListener(listener);
 
         testCase.execute(target);
 
-        Mockito.verify(observer, Mockito.atLeast(2)).update(testCase, null);
+        Mockito.verify(listener, Mockito.atLeast(2)).statusChanged(Mockito.any(StatusChangeEvent.class));
+
+    }
+
+    @Test
+    public void statusChangeEvent() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        List<StatusChangeEvent> events = new ArrayList<StatusChangeEvent>();
+        testCase.addListener(events::add);
+
+        testCase.setStatus("target", TestCase.TCS_RUNNING);
+        testCase.setStatus("target", TestCase.TCS_PASSED);
+
+        assertEquals(2, events.size());
+        assertNull(events.get(0).getPreviousStatus());
+        assertEquals(TestCase.TCS_RUNNING, events.get(0).getStatus());
+        assertEquals(Integer.valueOf(TestCase.TCS_RUNNING), events.get(1).getPreviousStatus());
+        assertEquals(TestCase.TCS_PASSED, events.get(1).getStatus());
+        assertEquals("target", events.get(1).getTargetIdentifier());
+        assertSame(testCase, events.get(1).getTestCase());
+    }
+
+    @Test
+    public void asyncListener() throws Exception {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        TestCaseListener listener = e -> latch.countDown();
+        testCase.addListener(listener, executor);
+
+        testCase.setStatus("target", TestCase.TCS_PASSED);
 
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(testCase.removeListener(listener));
+        assertFalse(testCase.removeListener(listener));
+        executor.shutdown();
     }
 
     @Test
@@ -0,0 +1,170 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSchedulerTest {
+
+    private static final String TARGET_IDENTIFIER = "user@host:1234/database";
+
+    private static TestScheduler createScheduler(TestCase... testCases) {
+        TestSet testSet = new TestSet(Arrays.asList(testCases));
+        return new TestScheduler(testSet.getTestCases(), testSet::get, TARGET_IDENTIFIER, null);
+    }
+
+    @Test
+    public void executeDependenciesFirst() {
+        TestCase rowCount = TestCaseDummies.createTestCase("RowCount", null);
+        TestCase integrity = TestCaseDummies.createTestCase("Integrity", "RowCount");
+        TestScheduler scheduler = createScheduler(rowCount, integrity);
+
+        assertSame(rowCount, scheduler.next(10));
+        assertNull(scheduler.next(10));
+
+        scheduler.complete(rowCount, TestCase.TCS_PASSED);
+        assertSame(integrity, scheduler.next(10));
+
+        scheduler.complete(integrity, TestCase.TCS_PASSED);
+        assertTrue(scheduler.isFinished());
+        assertTrue(scheduler.drainSkipped().isEmpty());
+    }
+
+    @Test
+    public void executeIndependentInParallel() {
+        TestScheduler scheduler = createScheduler(TestCaseDummies.createTestCase("A", null), TestCaseDummies.createTestCase("B", null), TestCaseDummies.createTestCase("C", null));
+
+        assertNotNull(scheduler.next(2));
+        assertNotNull(scheduler.next(2));
+        assertNull(scheduler.next(2));
+        assertNotNull(scheduler.next(3));
+    }
+
+    @Test
+    public void skipDependentsOfFailed() {
+        TestCase rowCount = TestCaseDummies.createTestCase("RowCount", null);
+        TestCase integrity = TestCaseDummies.createTestCase("Integrity", "RowCount");
+        TestCase report = TestCaseDummies.createTestCase("Report", "de.tests.Integrity");
+        TestScheduler scheduler = createScheduler(rowCount, integrity, report);
+
+        scheduler.complete(scheduler.next(10), TestCase.TCS_FAILED);
+
+        assertEquals(Arrays.asList(integrity, report), scheduler.drainSkipped());
+        assertTrue(scheduler.drainSkipped().isEmpty());
+        assertNull(scheduler.next(10));
+        assertTrue(scheduler.isFinished());
+    }
+
+    @Test
+    public void skipCycles() {
+        TestCase a = TestCaseDummies.createTestCase("A", "B");
+        TestCase b = TestCaseDummies.createTestCase("B", "A");
+        TestCase c = TestCaseDummies.createTestCase("C", "B");
+        TestCase d = TestCaseDummies.createTestCase("D", null);
+        TestScheduler scheduler = createScheduler(a, b, c, d);
+
+        assertEquals(3, scheduler.drainSkipped().size());
+        assertSame(d, scheduler.next(10));
+        assertNull(scheduler.next(10));
+    }
+
+    @Test
+    public void skipUnknownDependency() {
+        TestCase a = TestCaseDummies.createTestCase("A", "Unknown");
+        TestScheduler scheduler = createScheduler(a);
+
+        assertEquals(Collections.singletonList(a), scheduler.drainSkipped());
+        assertNull(scheduler.next(10));
+        assertTrue(scheduler.isFinished());
+    }
+
+    @Test
+    public void unscheduledDependency() {
+        TestCase rowCount = TestCaseDummies.createTestCase("RowCount", null);
+        TestCase integrity = TestCaseDummies.createTestCase("Integrity", "RowCount");
+        TestSet testSet = new TestSet(Arrays.asList(rowCount, integrity));
+
+        rowCount.setStatus(TARGET_IDENTIFIER, TestCase.TCS_PASSED);
+        TestScheduler scheduler = new TestScheduler(Collections.singleton(integrity), testSet::get, TARGET_IDENTIFIER, null);
+        assertSame(integrity, scheduler.next(10));
+
+        rowCount.setStatus(TARGET_IDENTIFIER, TestCase.TCS_FAILED);
+        scheduler = new TestScheduler(Collections.singleton(integrity), testSet::get, TARGET_IDENTIFIER, null);
+        assertEquals(Collections.singletonList(integrity), scheduler.drainSkipped());
+    }
+
+    @Test
+    public void longestFirst() {
+        TestCase shortTest = TestCaseDummies.createTestCase("Short", null);
+        TestCase longTest = TestCaseDummies.createTestCase("Long", null);
+        TestCase newTest = TestCaseDummies.createTestCase("New", null);
+        shortTest.setExpectedDuration(TARGET_IDENTIFIER, 100);
+        longTest.setExpectedDuration(TARGET_IDENTIFIER, 10000);
+        TestScheduler scheduler = createScheduler(shortTest, longTest, newTest);
+
+        assertEquals(5050, scheduler.getExpectedDuration(newTest));
+        assertSame(longTest, scheduler.next(10));
+        assertSame(newTest, scheduler.next(10));
+        assertSame(shortTest, scheduler.next(10));
+    }
+
+    @Test
+    public void longestChainFirst() {
+        TestCase single = TestCaseDummies.createTestCase("Single", null);
+        TestCase head = TestCaseDummies.createTestCase("Head", null);
+        TestCase tail = TestCaseDummies.createTestCase("Tail", "Head");
+        single.setExpectedDuration(TARGET_IDENTIFIER, 500);
+        head.setExpectedDuration(TARGET_IDENTIFIER, 300);
+        tail.setExpectedDuration(TARGET_IDENTIFIER, 300);
+        TestScheduler scheduler = createScheduler(single, head, tail);
+
+        assertSame(head, scheduler.next(1));
+    }
+
+    @Test
+    public void predictMakespan() {
+        TestCase a = TestCaseDummies.createTestCase("A", null);
+        TestCase b = TestCaseDummies.createTestCase("B", null);
+        TestCase c = TestCaseDummies.createTestCase("C", null);
+        TestCase d = TestCaseDummies.createTestCase("D", "A");
+        a.setExpectedDuration(TARGET_IDENTIFIER, 400);
+        b.setExpectedDuration(TARGET_IDENTIFIER, 300);
+        c.setExpectedDuration(TARGET_IDENTIFIER, 200);
+        d.setExpectedDuration(TARGET_IDENTIFIER, 100);
+        TestScheduler scheduler = createScheduler(a, b, c, d);
+
+        assertEquals(1000, scheduler.predictMakespan(1));
+        assertEquals(500, scheduler.predictMakespan(2));
+        assertEquals(500, scheduler.predictMakespan(4));
+
+        assertEquals(0, createScheduler(TestCaseDummies.createTestCase("E", null)).predictMakespan(1));
+    }
+
+    @Test
+    public void nextBatch() {
+        TestCase a = TestCaseDummies.createTestCase("A", null);
+        TestCase b = TestCaseDummies.createTestCase("B", null);
+        TestCase c = TestCaseDummies.createTestCase("C", null);
+        TestCase d = TestCaseDummies.createTestCase("D", "A");
+        TestScheduler scheduler = createScheduler(a, b, c, d);
+
+        List<TestCase> batch = scheduler.nextBatch(1, 5, t -> t != c);
+        assertEquals(Arrays.asList(a, b), batch);
+        assertTrue(scheduler.nextBatch(1, 5, t -> true).isEmpty());
+
+        Map<TestCase, Integer> statuses = new HashMap<TestCase, Integer>();
+        statuses.put(a, TestCase.TCS_PASSED);
+        statuses.put(b, TestCase.TCS_PASSED);
+        scheduler.complete(statuses);
+
+        assertEquals(2, scheduler.nextBatch(1, 5, t -> true).size());
+    }
+
+}
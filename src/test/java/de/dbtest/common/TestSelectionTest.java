@@ -0,0 +1,39 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSelectionTest {
+
+    @Test
+    public void selectAll() {
+        TestSet testSet = new TestSet();
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        assertEquals(2, new TestSelection().select(testSet, "target").size());
+    }
+
+    @Test
+    public void selectStale() {
+        TestSet testSet = new TestSet();
+        TestCase recent = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        TestCase outdated = new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED);
+        testSet.add(recent);
+        testSet.add(outdated);
+
+        recent.setStatus("target", TestCase.TCS_PASSED);
+        outdated.setStatus("target", TestCase.TCS_PASSED, System.currentTimeMillis() - 7200000);
+
+        assertTrue(new TestSelection(TestSelection.SELECT_STALE, 3600000).select(testSet, "target").contains(outdated));
+        assertFalse(new TestSelection(TestSelection.SELECT_STALE, 3600000).select(testSet, "target").contains(recent));
+    }
+
+    @Test
+    public void unknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> new TestSelection("broken", 0));
+    }
+
+}
@@ -3,9 +3,23 @@ package de.dbtest.common;
 import de.dbtest.dummies.TargetDummies;
 import de.dbtest.dummies.TestCaseDummies;
 import org.junit.jupiter.api.Test;
-
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -92,6 +106,64 @@ class TestSetTest {
         assertFalse(allTestCases.contains(testCase3));
     }
 
+    @Test
+    public void getTestCasesFromStatusIndex() {
+        TestSet testSet = new TestSet();
+
+        TestCase testCase1 = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testSet.add(testCase1);
+
+        TestCase testCase2 = new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED);
+        testSet.add(testCase2);
+
+        testCase1.setStatus("target", TestCase.TCS_PASSED);
+        testCase2.setStatus("target", TestCase.TCS_PASSED);
+        testCase2.setStatus("target", TestCase.TCS_FAILED);
+
+        assertEquals(1, testSet.getTestCases(TestCase.TCS_PASSED, "target").size());
+        assertTrue(testSet.getTestCases(TestCase.TCS_PASSED, "target").contains(testCase1));
+        assertTrue(testSet.getTestCases(TestCase.TCS_FAILED, "target").contains(testCase2));
+        assertTrue(testSet.getTestCases(TestCase.TCS_PASSED, "unknown").isEmpty());
+
+        testSet.remove(testCase1);
+        assertTrue(testSet.getTestCases(TestCase.TCS_PASSED, "target").isEmpty());
+    }
+
+    @Test
+    public void selectByStatus() {
+        TestSet testSet = new TestSet();
+
+        TestCase passed = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        TestCase failed = new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED);
+        TestCase stopped = new TestCase(TestCaseDummies.TEST_CASE_BODY_SQL_ERROR);
+        TestCase unexecuted = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testSet.addAll(Arrays.asList(passed, failed, stopped, unexecuted));
+
+        passed.setStatus("target", TestCase.TCS_PASSED, 1000);
+        failed.setStatus("target", TestCase.TCS_FAILED, 3000);
+        stopped.setStatus("target", TestCase.TCS_STOPPED, 3000);
+        unexecuted.setStatus("other", TestCase.TCS_PASSED);
+
+        assertEquals(new HashSet<TestCase>(Arrays.asList(failed, stopped)), testSet.getFailedTestCases("target"));
+        assertEquals(Collections.singleton(unexecuted), testSet.getUnexecutedTestCases("target"));
+        assertEquals(new HashSet<TestCase>(Arrays.asList(passed, unexecuted)), testSet.getTestCasesOlderThan("target", 2000));
+
+        testSet.getOptions().setSelection(new TestSelection(TestSelection.SELECT_FAILED, 0));
+        assertEquals(2, testSet.getSelectedTestCases("target").size());
+    }
+
+    @Test
+    public void getAfterBodyChange() {
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        TestSet testSet = new TestSet();
+        testSet.add(testCase);
+
+        testCase.setBody(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("@test TestCase", "@test Renamed"));
+
+        assertNull(testSet.get("de.tests.TestCase"));
+        assertEquals(testCase, testSet.get("de.tests.Renamed"));
+    }
+
     @Test
     public void getAllTestCases() {
         TestSet testSet = new TestSet();
@@ -163,5 +235,268 @@ class TestSetTest {
         testSet.executeParallel(target, 5, 60, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void executeParallelSummary() {
+        TestSet testSet = new TestSet();
+
+        for (int i = 0; i < 10; i++) {
+            testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+        }
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
+
+        Set<TestCase> reported = ConcurrentHashMap.newKeySet();
+        ExecutionSummary summary = testSet.executeParallel(target, 5, 60, TimeUnit.SECONDS, reported::add);
+
+        assertEquals(11, summary.getTotal());
+        assertEquals(10, summary.getPassed());
+        assertEquals(1, summary.getFailed());
+        assertEquals(11, reported.size());
+        assertFalse(summary.isSuccessful());
+    }
+
+    @Test
+    public void executeOnTargets() {
+        TestSet testSet = new TestSet();
+
+        for (int i = 0; i < 10; i++) {
+            testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+        }
+
+        UniversalDatabaseConnector target1 = TargetDummies.getDefaultTarget();
+        UniversalDatabaseConnector target2 = TargetDummies.getTarget("mysql");
+
+        Map<String, ExecutionSummary> summaries = testSet.executeOnTargets(Arrays.asList(target1, target2), 3, 60, TimeUnit.SECONDS, null);
+
+        assertEquals(2, summaries.size());
+        assertEquals(10, summaries.get(target1.getIdentifier()).getPassed());
+        assertEquals(10, summaries.get(target2.getIdentifier()).getPassed());
+
+        for (TestCase testCase : testSet.getTestCases()) {
+            assertEquals(TestCase.TCS_PASSED, testCase.getStatus(target1.getIdentifier()));
+            assertEquals(TestCase.TCS_PASSED, testCase.getStatus(target2.getIdentifier()));
+        }
+    }
+
+    @Test
+    public void executeOnTargetsWithFailingTarget() {
+        TestSet testSet = new TestSet();
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+
+        UniversalDatabaseConnector target = new MockTarget(0, true);
+        UniversalDatabaseConnector failingTarget = new MockTarget(0, true) {
+            @Override
+            public synchronized ConnectionPool getConnectionPool() {
+                throw new IllegalStateException("Unreachable");
+            }
+        };
+        failingTarget.setDatabase("unreachable");
+
+        Map<String, ExecutionSummary> summaries = testSet.executeOnTargets(Arrays.asList(target, failingTarget), 1, 60, TimeUnit.SECONDS, null);
+
+        assertEquals(2, summaries.size());
+        assertEquals(1, summaries.get(target.getIdentifier()).getPassed());
+        assertNull(summaries.get(target.getIdentifier()).getError());
+        assertTrue(summaries.get(failingTarget.getIdentifier()).getError() instanceof IllegalStateException);
+        assertFalse(summaries.get(failingTarget.getIdentifier()).isSuccessful());
+    }
+
+    @Test
+    public void executeAsync() throws Exception {
+        TestSet testSet = new TestSet();
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+        testSet.add(new TestCase(TestCaseDummies.TEST_CASE_BODY_FAILED));
+
+        UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        ExecutionResult result = testSet.executeAsync(target, executor).get();
+        executor.shutdown();
 
-}
\ No newline at end of file
+        assertEquals(TestCase.TCS_FAILED, result.getStatus());
+        assertEquals(2, result.getResults().size());
+    }
+
+    @Test
+    public void executeAsyncOnCallingThread() throws Throwable {
+        TestSet testSet = new TestSet();
+        testSet.add(TestCaseDummies.createTestCase("chain0", null));
+        for (int i = 1; i < 2000; i++) {
+            testSet.add(TestCaseDummies.createTestCase("chain" + i,
+                    TestCaseDummies.TEST_CASE_PACKAGE + ".chain" + (i - 1)));
+        }
+
+        // Each test case of the chain is started when its predecessor finished on the same thread, which must not
+        // grow the stack with the length of the chain.
+        UniversalDatabaseConnector target = new MockTarget(0, true);
+        List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+        Throwable[] error = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                results.add(testSet.executeAsync(target, Runnable::run).get());
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "executeAsyncOnCallingThread", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        if (error[0] != null) {
+            throw error[0];
+        }
+        assertEquals(TestCase.TCS_PASSED, results.get(0).getStatus());
+        assertEquals(2000, results.get(0).getResults().size());
+    }
+
+    private static class ThrowingTestCase extends TestCase {
+
+        private ThrowingTestCase(String body) {
+            super(body);
+        }
+
+        @Override
+        public ExecutionResult executeWithResult(UniversalDatabaseConnector target, ExecutionOptions options) {
+            throw new IllegalStateException("Unexpected error");
+        }
+    }
+
+    private static TestSet createThrowingTestSet() {
+        TestSet testSet = new TestSet();
+        testSet.add(new ThrowingTestCase(TestCaseDummies.TEST_CASE_BODY_PASSED));
+        testSet.add(new ThrowingTestCase(TestCaseDummies.TEST_CASE_BODY_PASSED.replace("@test TestCase", "@test Dependent")
+                .replace("*/", "* @depends TestCase" + System.getProperty("line.separator") + "*/")));
+        return testSet;
+    }
+
+    @Test
+    public void executeParallelWithThrowingTestCase() {
+        TestSet testSet = createThrowingTestSet();
+        UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
+
+        // Without a timeout, the execution only returns if the failed test case releases its dependent.
+        ExecutionSummary summary = testSet.executeParallel(target, 2, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getStopped());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(TestCase.TCS_STOPPED, testSet.get("de.tests.TestCase").getStatus(target.getIdentifier()));
+    }
+
+    @Test
+    public void executeWithThrowingTestCase() throws Exception {
+        UniversalDatabaseConnector target = TargetDummies.getDefaultTarget();
+
+        ExecutionSummary summary = createThrowingTestSet().execute(target, null);
+        assertEquals(1, summary.getStopped());
+        assertEquals(1, summary.getSkipped());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ExecutionResult result = createThrowingTestSet().executeAsync(target, executor).get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(TestCase.TCS_FAILED, result.getStatus());
+        assertEquals(2, result.getResults().size());
+    }
+
+    /**
+     * Target returning mocked connections on which every test case passes. Establishing a connection may take a
+     * while, so test cases are still waiting for a connection when the set times out.
+     */
+    private static class MockTarget extends UniversalDatabaseConnector {
+
+        private final long delay;
+        private final boolean snapshots;
+
+        private MockTarget(long delay, boolean snapshots) {
+            this.delay = delay;
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public Connection connect() {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                // The connection is established anyway, the execution has to notice its cancellation on its own.
+            }
+
+            Connection connection = Mockito.mock(Connection.class);
+            try {
+                ResultSet result = Mockito.mock(ResultSet.class);
+                Mockito.when(result.findColumn("result")).thenReturn(1);
+                Mockito.when(result.next()).thenReturn(true);
+                Mockito.when(result.getString(1)).thenReturn("passed");
+
+                PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+                Mockito.when(statement.executeQuery()).thenReturn(result);
+                Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+                Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+                if (!snapshots) {
+                    Mockito.when(connection.getAutoCommit()).thenThrow(new SQLException("Not supported"));
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return connection;
+        }
+    }
+
+    @Test
+    public void executeParallelTimeoutKeepsStatus() throws InterruptedException {
+        TestSet testSet = new TestSet();
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testSet.add(testCase);
+
+        // The test case has to be started before the timeout expires, otherwise it is skipped instead.
+        UniversalDatabaseConnector target = new MockTarget(1000, true);
+        Set<TestCase> reported = ConcurrentHashMap.newKeySet();
+        ExecutionSummary summary = testSet.executeParallel(target, 1, 300, TimeUnit.MILLISECONDS, reported::add);
+
+        assertEquals(1, summary.getTimedOut());
+        assertEquals(1, reported.size());
+
+        // The execution waiting for a connection must not overwrite the reported status afterwards.
+        Thread.sleep(1500);
+        assertEquals(TestCase.TCS_TIMEOUT, testCase.getStatus(target.getIdentifier()));
+    }
+
+    @Test
+    public void executeParallelTimeoutSkipsWaiting() {
+        TestSet testSet = new TestSet();
+        TestCase first = TestCaseDummies.createTestCase("first", null);
+        TestCase second = TestCaseDummies.createTestCase("second", null);
+        testSet.add(first);
+        testSet.add(second);
+
+        // Only one of the test cases is started, the other one waits for its slot until the timeout expires.
+        UniversalDatabaseConnector target = new MockTarget(1000, true);
+        ExecutionSummary summary = testSet.executeParallel(target, 1, 300, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, summary.getTimedOut());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(new HashSet<Integer>(Arrays.asList(TestCase.TCS_TIMEOUT, TestCase.TCS_SKIPPED)),
+                new HashSet<Integer>(Arrays.asList(first.getStatus(target.getIdentifier()),
+                        second.getStatus(target.getIdentifier()))));
+    }
+
+    @Test
+    public void executeWithoutSnapshot() {
+        TestSet testSet = new TestSet();
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testSet.add(testCase);
+        testSet.getOptions().setSnapshot(true);
+
+        // The execution fails as a whole, if the snapshot could not be started.
+        UniversalDatabaseConnector target = new MockTarget(0, false);
+        ExecutionSummary summary = testSet.executeParallel(target, 1, 60, TimeUnit.SECONDS);
+
+        assertFalse(summary.isSuccessful());
+        assertTrue(summary.getError() instanceof IllegalStateException);
+        assertEquals(0, summary.getPassed());
+        assertEquals(TestCase.TCS_PENDING, testCase.getStatus(target.getIdentifier()));
+
+        assertNotNull(testSet.execute(target, null).getError());
+        assertThrows(ExecutionException.class, () -> testSet.executeAsync(target, Runnable::run).get());
+    }
+}
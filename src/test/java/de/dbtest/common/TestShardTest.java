@@ -0,0 +1,109 @@
+package de.dbtest.common;
+
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestShardTest {
+
+    private static List<TestCase> createTestCases(int packages, int testCasesPerPackage) {
+        List<TestCase> testCases = new ArrayList<TestCase>();
+        for (int p = 0; p < packages; p++) {
+            for (int t = 0; t < testCasesPerPackage; t++) {
+                testCases.add(TestCaseDummies.createTestCase("de.tests.p" + p, "TestCase" + t, null));
+            }
+        }
+        return testCases;
+    }
+
+    @Test
+    public void parse() {
+        TestShard shard = TestShard.parse("1/4", TestShard.SHARD_BY_HASH);
+        assertEquals(1, shard.getIndex());
+        assertEquals(4, shard.getCount());
+        assertEquals(TestShard.SHARD_BY_HASH, shard.getMode());
+
+        assertThrows(IllegalArgumentException.class, () -> TestShard.parse("4/4", TestShard.SHARD_BY_HASH));
+        assertThrows(IllegalArgumentException.class, () -> TestShard.parse("1", TestShard.SHARD_BY_HASH));
+        assertThrows(IllegalArgumentException.class, () -> TestShard.parse("a/4", TestShard.SHARD_BY_HASH));
+        assertThrows(IllegalArgumentException.class, () -> TestShard.parse("1/4", "random"));
+    }
+
+    @Test
+    public void assignEachTestCaseOnce() {
+        List<TestCase> testCases = createTestCases(5, 10);
+        Set<TestCase> assigned = new HashSet<TestCase>();
+
+        for (int i = 0; i < 3; i++) {
+            Set<TestCase> selected = new TestShard(i, 3, TestShard.SHARD_BY_HASH).select(testCases, testCases);
+            for (TestCase t : selected) {
+                assertTrue(assigned.add(t));
+            }
+        }
+
+        assertEquals(testCases.size(), assigned.size());
+    }
+
+    @Test
+    public void assignDeterministic() {
+        // Workers load their test cases on their own, the assignment must not depend on the instances.
+        Map<TestCase, Integer> shards1 = TestShard.assign(createTestCases(5, 10), 4, TestShard.SHARD_BY_HASH);
+        Map<TestCase, Integer> shards2 = TestShard.assign(createTestCases(5, 10), 4, TestShard.SHARD_BY_HASH);
+
+        for (Map.Entry<TestCase, Integer> shard1 : shards1.entrySet()) {
+            for (Map.Entry<TestCase, Integer> shard2 : shards2.entrySet()) {
+                if (shard1.getKey().getIdentifier().equals(shard2.getKey().getIdentifier())) {
+                    assertEquals(shard1.getValue(), shard2.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void assignByPackage() {
+        List<TestCase> testCases = createTestCases(5, 10);
+        Map<TestCase, Integer> shards = TestShard.assign(testCases, 3, TestShard.SHARD_BY_PACKAGE);
+
+        for (TestCase t1 : testCases) {
+            for (TestCase t2 : testCases) {
+                if (t1.getPackage().equals(t2.getPackage())) {
+                    assertEquals(shards.get(t1), shards.get(t2));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void assignDependentTestCasesTogether() {
+        List<TestCase> testCases = createTestCases(8, 1);
+        TestCase dependent = TestCaseDummies.createTestCase("de.other", "Dependent", "de.tests.p0.TestCase0, de.tests.p7.TestCase0");
+        testCases.add(dependent);
+
+        for (String mode : Arrays.asList(TestShard.SHARD_BY_PACKAGE, TestShard.SHARD_BY_HASH)) {
+            Map<TestCase, Integer> shards = TestShard.assign(testCases, 4, mode);
+            assertEquals(shards.get(testCases.get(0)), shards.get(dependent));
+            assertEquals(shards.get(testCases.get(7)), shards.get(dependent));
+        }
+    }
+
+    @Test
+    public void selectCandidates() {
+        List<TestCase> testCases = createTestCases(5, 10);
+        List<TestCase> candidates = testCases.subList(0, 10);
+
+        Set<TestCase> selected = new HashSet<TestCase>();
+        for (int i = 0; i < 2; i++) {
+            selected.addAll(new TestShard(i, 2, TestShard.SHARD_BY_HASH).select(testCases, candidates));
+        }
+
+        assertEquals(new HashSet<TestCase>(candidates), selected);
+    }
+}
@@ -1,6 +1,7 @@
 package de.dbtest.common;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -35,4 +36,60 @@ class UniversalDatabaseConnectorTest {
         assertEquals(UniversalDatabaseConnector.DBT_ORACLE, connector.databaseTypeByName("oracle"));
     }
 
+    @Test
+    public void getMySQLUrl() {
+        UniversalDatabaseConnector target = new UniversalDatabaseConnector(UniversalDatabaseConnector.DBT_MYSQL,
+                "localhost", 3306, "information_schema", "root", "root");
+        assertFalse(target.getMySQLUrl().contains("useCursorFetch"));
+
+        // Cursor based fetching is only enabled by the session profile of the target.
+        target.getSession().setCursorFetch(true);
+        assertTrue(target.getMySQLUrl().contains("&useCursorFetch=true"));
+    }
+
+    @Test
+    public void isBackslashEscapes() {
+        assertTrue(new UniversalDatabaseConnector(UniversalDatabaseConnector.DBT_MYSQL, "localhost", 3306,
+                "information_schema", "root", "root").isBackslashEscapes());
+        assertFalse(new UniversalDatabaseConnector(UniversalDatabaseConnector.DBT_ORACLE, "localhost", 1521,
+                "xe", "system", "oracle").isBackslashEscapes());
+    }
+
+    @Test
+    public void getConnectionPool() {
+        UniversalDatabaseConnector connector = new UniversalDatabaseConnector();
+        connector.getPool().setMaxSize(3);
+
+        ConnectionPool pool = connector.getConnectionPool();
+        assertSame(pool, connector.getConnectionPool());
+        assertEquals(3, pool.getConfiguration().getMaxSize());
+
+        connector.closeConnectionPool();
+        assertTrue(pool.isClosed());
+        assertNotSame(pool, connector.getConnectionPool());
+    }
+
+    @Test
+    public void releaseAfterClose() throws SQLException {
+        UniversalDatabaseConnector connector = new UniversalDatabaseConnector() {
+            @Override
+            public Connection connect() {
+                return Mockito.mock(Connection.class);
+            }
+        };
+
+        Connection connection = connector.acquire();
+        ConnectionPool pool = connector.getConnectionPool();
+        connector.closeConnectionPool();
+
+        // The connection is closed by the pool it has been borrowed from, the new pool is not involved.
+        ConnectionPool newPool = connector.getConnectionPool();
+        connector.release(connection);
+
+        Mockito.verify(connection).close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(0, newPool.getIdleCount());
+        assertNotNull(connector.acquire());
+    }
+
 }
\ No newline at end of file
@@ -10,6 +10,17 @@ public class TargetDummies {
     private static final String USER = "root";
     private static final String PASSWORD = "";
 
+    public static UniversalDatabaseConnector getTarget(String database) {
+        return new UniversalDatabaseConnector(
+                UniversalDatabaseConnector.DBT_MYSQL,
+                HOST,
+                PORT,
+                database,
+                USER,
+                PASSWORD
+        );
+    }
+
     public static UniversalDatabaseConnector getDefaultTarget() {
         return new UniversalDatabaseConnector(
                 UniversalDatabaseConnector.DBT_MYSQL,
@@ -1,5 +1,7 @@
 package de.dbtest.dummies;
 
+import de.dbtest.common.TestCase;
+
 public class TestCaseDummies {
 
     public static final String TEST_CASE_NAME = "TestCase";
@@ -18,4 +20,17 @@ public class TestCaseDummies {
 
     public static final String TEST_CASE_BODY_SQL_ERROR = TEST_CASE_HEAD + System.getProperty("line.separator")
             + "sel nonsense;";
+
+    public static TestCase createTestCase(String name, String dependencies) {
+        return createTestCase(TEST_CASE_PACKAGE, name, dependencies);
+    }
+
+    public static TestCase createTestCase(String testPackage, String name, String dependencies) {
+        String head = "/**" + System.getProperty("line.separator")
+                + "* @package " + testPackage + System.getProperty("line.separator")
+                + "* @test " + name + System.getProperty("line.separator")
+                + (dependencies == null ? "" : "* @depends " + dependencies + System.getProperty("line.separator"))
+                + "*/";
+        return new TestCase(head + System.getProperty("line.separator") + "select 'passed' as result;");
+    }
 }
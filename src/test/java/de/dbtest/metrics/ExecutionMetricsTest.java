@@ -0,0 +1,52 @@
+package de.dbtest.metrics;
+
+import de.dbtest.common.TestCase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionMetricsTest {
+
+    @Test
+    public void recordQuery() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+
+        metrics.recordQuery("de.tests.TestCase", "target", 1000);
+        metrics.recordQuery("de.tests.TestCase", "target", 2000);
+        metrics.recordQuery("de.tests.Other", "target", 3000);
+
+        assertEquals(3, metrics.getTarget("target").getQueryLatency().getCount());
+        assertEquals(2, metrics.getTestCase("target", "de.tests.TestCase").getCount());
+        assertEquals(2, metrics.getTestCases().get("target").size());
+    }
+
+    @Test
+    public void countResultsAndConcurrency() {
+        TargetMetrics targetMetrics = new ExecutionMetrics().getTarget("target");
+
+        targetMetrics.executionStarted();
+        targetMetrics.executionStarted();
+        targetMetrics.executionFinished(TestCase.TCS_PASSED);
+        targetMetrics.executionStarted();
+        targetMetrics.executionFinished(TestCase.TCS_FAILED);
+        targetMetrics.executionFinished(TestCase.TCS_PASSED);
+
+        assertEquals(2, targetMetrics.getResults(TestCase.TCS_PASSED));
+        assertEquals(1, targetMetrics.getResults(TestCase.TCS_FAILED));
+        assertEquals(0, targetMetrics.getResults(TestCase.TCS_TIMEOUT));
+        assertEquals(0, targetMetrics.getInFlight());
+        assertEquals(2, targetMetrics.getMaxInFlight());
+    }
+
+    @Test
+    public void reset() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        metrics.recordQuery("de.tests.TestCase", "target", 1000);
+
+        metrics.reset();
+
+        assertTrue(metrics.getTargets().isEmpty());
+        assertTrue(metrics.getTestCases().isEmpty());
+    }
+
+}
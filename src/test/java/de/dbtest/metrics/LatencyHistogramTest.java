@@ -0,0 +1,25 @@
+package de.dbtest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void record() {
+        LatencyHistogram histogram = new LatencyHistogram(new long[]{1, 10, 100});
+
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+        histogram.record(TimeUnit.SECONDS.toNanos(1));
+
+        assertArrayEquals(new long[]{2, 0, 1, 1}, histogram.getBucketCounts());
+        assertEquals(4, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1051500), histogram.getSumNanos());
+    }
+
+}
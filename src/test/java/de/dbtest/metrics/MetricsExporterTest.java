@@ -0,0 +1,56 @@
+package de.dbtest.metrics;
+
+import de.dbtest.common.TestCase;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsExporterTest {
+
+    private static ExecutionMetrics createMetrics() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        TargetMetrics targetMetrics = metrics.getTarget("user@localhost:3306/db");
+
+        targetMetrics.executionStarted();
+        targetMetrics.recordAcquire(TimeUnit.MILLISECONDS.toNanos(3), true);
+        metrics.recordQuery("de.tests.TestCase", "user@localhost:3306/db", TimeUnit.MILLISECONDS.toNanos(20));
+        targetMetrics.executionFinished(TestCase.TCS_PASSED);
+
+        return metrics;
+    }
+
+    @Test
+    public void writePrometheus() throws IOException {
+        StringWriter writer = new StringWriter();
+        MetricsExporter.writePrometheus(createMetrics(), writer);
+        String text = writer.toString();
+
+        assertTrue(text.contains("# TYPE dbtest_query_duration_seconds histogram"));
+        assertTrue(text.contains("dbtest_query_duration_seconds_bucket{target=\"user@localhost:3306/db\",le=\"0.01\"} 0"));
+        assertTrue(text.contains("dbtest_query_duration_seconds_bucket{target=\"user@localhost:3306/db\",le=\"0.025\"} 1"));
+        assertTrue(text.contains("dbtest_query_duration_seconds_bucket{target=\"user@localhost:3306/db\",le=\"+Inf\"} 1"));
+        assertTrue(text.contains("dbtest_test_duration_seconds_count{target=\"user@localhost:3306/db\",test=\"de.tests.TestCase\"} 1"));
+        assertTrue(text.contains("dbtest_results_total{target=\"user@localhost:3306/db\",status=\"passed\"} 1"));
+        assertTrue(text.contains("dbtest_in_flight_max{target=\"user@localhost:3306/db\"} 1"));
+    }
+
+    @Test
+    public void writeJson() throws IOException {
+        StringWriter writer = new StringWriter();
+        MetricsExporter.writeJson(createMetrics(), writer);
+
+        JsonNode target = new ObjectMapper().readTree(writer.toString()).get("targets").get("user@localhost:3306/db");
+
+        assertEquals(1, target.get("results").get("passed").getIntValue());
+        assertEquals(1, target.get("queryLatency").get("count").getIntValue());
+        assertEquals(1, target.get("queryLatency").get("buckets").get("25").getIntValue());
+        assertEquals(1, target.get("testCases").get("de.tests.TestCase").get("count").getIntValue());
+    }
+
+}
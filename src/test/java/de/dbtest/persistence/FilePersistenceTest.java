@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -150,4 +151,66 @@ class FilePersistenceTest {
         persistence.saveStatus(testCase);
     }
 
+    @Test
+    public void saveStatusItemOfTarget() throws IOException {
+        FilePersistence persistence = new FilePersistence(Files.createTempDirectory("dbtest").toString());
+
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testCase.setStatus("user@host1:1234/database", TestCase.TCS_PASSED);
+        testCase.setStatus("user@host2:1234/database", TestCase.TCS_RUNNING);
+
+        persistence.saveStatus(testCase, "user@host1:1234/database");
+        persistence.saveStatus(testCase, "user@host3:1234/database");
+        persistence.flushStatus();
+
+        Set<StatusItem> statusItemSet = persistence.loadStatus(testCase.getIdentifier());
+        assertEquals(1, statusItemSet.size());
+        assertEquals("user@host1:1234/database", statusItemSet.iterator().next().getTargetIdentifier());
+    }
+
+    @Test
+    public void flushStatusItems() throws IOException {
+        FilePersistence persistence = new FilePersistence(PROJECT_ROOT_DIRECTORY);
+
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testCase.setStatus(TargetDummies.getDefaultTarget().getIdentifier(), TestCase.TCS_FAILED);
+
+        persistence.saveStatus(testCase);
+        persistence.flushStatus();
+
+        Set<StatusItem> statusItemSet = persistence.loadStatus(testCase.getIdentifier());
+        assertEquals(TestCase.TCS_FAILED, statusItemSet.iterator().next().getStatus());
+    }
+
+    @Test
+    public void loadStatusIndex() throws IOException {
+        FilePersistence persistence = new FilePersistence(Files.createTempDirectory("dbtest").toString());
+        persistence.initialize();
+
+        Map<String, Set<StatusItem>> statusIndex = persistence.loadStatusIndex();
+        assertTrue(statusIndex.isEmpty());
+        assertSame(statusIndex, persistence.loadStatusIndex());
+
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testCase.setStatus(TargetDummies.getDefaultTarget().getIdentifier(), TestCase.TCS_PASSED);
+        persistence.saveStatus(testCase);
+
+        statusIndex = persistence.loadStatusIndex();
+        assertEquals(1, statusIndex.get(testCase.getIdentifier()).size());
+    }
+
+    @Test
+    public void loadFromDirectoryWithStatus() throws IOException {
+        FilePersistence persistence = new FilePersistence(Files.createTempDirectory("dbtest").toString());
+        persistence.initialize();
+
+        TestCase testCase = new TestCase(TestCaseDummies.TEST_CASE_BODY_PASSED);
+        testCase.setStatus(TargetDummies.getDefaultTarget().getIdentifier(), TestCase.TCS_FAILED);
+        persistence.save(testCase);
+
+        Set<TestCase> testCases = persistence.loadMultiple(TestCaseDummies.TEST_CASE_PACKAGE);
+        assertEquals(1, testCases.size());
+        assertEquals(TestCase.TCS_FAILED, testCases.iterator().next().getStatus(TargetDummies.getDefaultTarget().getIdentifier()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package de.dbtest.persistence;
+
+import de.dbtest.common.TestCase;
+import de.dbtest.dummies.TestCaseDummies;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTestCaseLoaderTest {
+
+    private static Path createProject(int packages, int testCasesPerPackage) throws IOException {
+        Path root = Files.createTempDirectory("dbtest");
+
+        for (int p = 0; p < packages; p++) {
+            Path directory = Files.createDirectories(root.resolve("de").resolve("package" + p));
+            for (int t = 0; t < testCasesPerPackage; t++) {
+                String body = TestCaseDummies.TEST_CASE_BODY_PASSED
+                        .replace(TestCaseDummies.TEST_CASE_PACKAGE, "de.package" + p)
+                        .replace(TestCaseDummies.TEST_CASE_NAME, "TestCase" + t);
+                Files.write(directory.resolve("TestCase" + t + ".dbtest"), body.getBytes());
+            }
+        }
+
+        return root;
+    }
+
+    @Test
+    public void load() throws IOException {
+        Path root = createProject(5, 20);
+        Files.write(root.resolve("README.txt"), "no test case".getBytes());
+
+        LoadResult result = new ParallelTestCaseLoader(4, ".dbtest").load(root);
+
+        assertFalse(result.hasErrors());
+        assertEquals(100, result.getTestCases().size());
+        assertTrue(result.getTestCases().stream().anyMatch(t -> t.getIdentifier().equals("de.package3.TestCase7")));
+    }
+
+    @Test
+    public void collectErrors() throws IOException {
+        Path root = createProject(2, 3);
+        Path brokenFile = root.resolve("de").resolve("Broken.dbtest");
+        Files.createSymbolicLink(brokenFile, root.resolve("missing"));
+
+        LoadResult result = new ParallelTestCaseLoader(2, ".dbtest").load(root);
+
+        assertEquals(6, result.getTestCases().size());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().containsKey(brokenFile));
+    }
+
+    @Test
+    public void loadSingleThreaded() throws IOException {
+        Path root = createProject(3, 3);
+
+        LoadResult result = new ParallelTestCaseLoader(1, ".dbtest").load(root);
+
+        assertEquals(9, result.getTestCases().size());
+        for (TestCase testCase : result.getTestCases()) {
+            assertEquals("select 'passed' as result", testCase.getQuery());
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package de.dbtest.persistence;
+
+import de.dbtest.common.TestCase;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private static final String TARGET_IDENTIFIER = "user@host:1234/database";
+    private static final String BODY = "/**\n* @package de.tests\n* @test TestCase\n*/\nselect 'passed' as result;";
+
+    @Test
+    public void putAndGet() throws IOException {
+        ResultCache cache = new ResultCache(Files.createTempDirectory("dbtest").resolve("cache.json"));
+        cache.put(BODY, "de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_PASSED, System.currentTimeMillis(), 60000);
+
+        CachedResult result = cache.get(BODY, TARGET_IDENTIFIER);
+        assertNotNull(result);
+        assertEquals(TestCase.TCS_PASSED, result.getStatus());
+
+        assertNull(cache.get(BODY, "other@host:1234/database"));
+        assertNull(cache.get(BODY.replace("passed", "failed"), TARGET_IDENTIFIER));
+    }
+
+    @Test
+    public void expire() throws IOException {
+        ResultCache cache = new ResultCache(Files.createTempDirectory("dbtest").resolve("cache.json"));
+        cache.put(BODY, "de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_PASSED, System.currentTimeMillis() - 120000, 60000);
+
+        assertNull(cache.get(BODY, TARGET_IDENTIFIER));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        Path cacheFile = Files.createTempDirectory("dbtest").resolve("cache.json");
+        ResultCache cache = new ResultCache(cacheFile);
+        cache.put(BODY, "de.tests.TestCase", TARGET_IDENTIFIER, TestCase.TCS_FAILED, System.currentTimeMillis(), 60000);
+        cache.put(BODY, "de.tests.TestCase", "other@host:1234/database", TestCase.TCS_PASSED, System.currentTimeMillis() - 120000, 60000);
+        cache.save();
+
+        ResultCache loaded = new ResultCache(cacheFile);
+        loaded.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals(TestCase.TCS_FAILED, loaded.get(BODY, TARGET_IDENTIFIER).getStatus());
+    }
+
+    @Test
+    public void getKey() {
+        assertEquals(ResultCache.getKey(BODY, TARGET_IDENTIFIER), ResultCache.getKey(BODY, TARGET_IDENTIFIER));
+        assertTrue(ResultCache.getKey(BODY, TARGET_IDENTIFIER).endsWith("@" + TARGET_IDENTIFIER));
+        assertNotEquals(ResultCache.getKey(BODY, TARGET_IDENTIFIER), ResultCache.getKey(BODY + " ", TARGET_IDENTIFIER));
+    }
+
+    @Test
+    public void getKeyWithSession() {
+        String session = "[create temporary table staging as select 1 as id]";
+
+        assertEquals(ResultCache.getKey(BODY, null, TARGET_IDENTIFIER), ResultCache.getKey(BODY, TARGET_IDENTIFIER));
+        assertNotEquals(ResultCache.getKey(BODY, TARGET_IDENTIFIER), ResultCache.getKey(BODY, session, TARGET_IDENTIFIER));
+        assertNotEquals(ResultCache.getKey(BODY, session, TARGET_IDENTIFIER),
+                ResultCache.getKey(BODY, "", TARGET_IDENTIFIER));
+    }
+
+}
@@ -0,0 +1,151 @@
+package de.dbtest.persistence;
+
+import de.dbtest.common.TestCase;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusJournalTest {
+
+    private static final String TARGET_IDENTIFIER = "user@host:1234/database";
+
+    private StatusJournal createJournal(Path directory, int syncInterval, int compactionThreshold) {
+        return new StatusJournal(directory.resolve("status.json"), directory.resolve("status.journal"), syncInterval, compactionThreshold);
+    }
+
+    private StatusItem find(Set<StatusItem> statusItems, String testCaseIdentifier) {
+        return statusItems.stream().filter(s -> s.getTestCaseIdentifier().equals(testCaseIdentifier)).findFirst().orElse(null);
+    }
+
+    @Test
+    public void appendAndLoad() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal journal = createJournal(directory, 1, 100);
+
+        journal.append(Arrays.asList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_FAILED),
+                new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+
+        Set<StatusItem> statusItems = journal.load();
+        assertEquals(2, statusItems.size());
+        assertEquals(TestCase.TCS_PASSED, find(statusItems, "de.tests.TestCase1").getStatus());
+        assertEquals(3, journal.getJournalRecords());
+    }
+
+    @Test
+    public void keepTimestamp() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal journal = createJournal(directory, 1, 100);
+
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_FAILED, 1234567890L)));
+        Files.write(directory.resolve("status.journal"),
+                ("{\"testCaseIdentifier\":\"de.tests.TestCase2\",\"targetIdentifier\":\"" + TARGET_IDENTIFIER + "\",\"status\":3}\n").getBytes(),
+                StandardOpenOption.APPEND);
+
+        Set<StatusItem> statusItems = journal.load();
+        assertEquals(1234567890L, find(statusItems, "de.tests.TestCase1").getTimestamp());
+        assertEquals(0, find(statusItems, "de.tests.TestCase2").getTimestamp());
+    }
+
+    @Test
+    public void shareJournal() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal worker = createJournal(directory, 1, 100);
+        StatusJournal coordinator = createJournal(directory, 1, 100);
+
+        // Both journals lock the same lock file, as two processes sharing the journal would.
+        worker.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_FAILED)));
+        coordinator.merge(Collections.singletonList(new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        worker.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+
+        assertTrue(Files.exists(directory.resolve("status.journal.lock")));
+        Set<StatusItem> statusItems = createJournal(directory, 1, 100).load();
+        assertEquals(2, statusItems.size());
+        assertEquals(TestCase.TCS_PASSED, find(statusItems, "de.tests.TestCase1").getStatus());
+
+        worker.close();
+        coordinator.delete();
+        assertFalse(Files.exists(directory.resolve("status.journal.lock")));
+    }
+
+    @Test
+    public void appendAfterIncompleteRecord() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+
+        // The process died while appending the second record.
+        Files.write(directory.resolve("status.journal"),
+                ("{\"testCaseIdentifier\":\"de.tests.TestCase1\",\"targetIdentifier\":\"" + TARGET_IDENTIFIER + "\",\"status\":3}\n"
+                        + "{\"testCaseIdentifier\":\"de.tests.TestCase2\",\"targ").getBytes());
+
+        StatusJournal journal = createJournal(directory, 1, 100);
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase3", TARGET_IDENTIFIER, TestCase.TCS_FAILED)));
+
+        Set<StatusItem> statusItems = journal.load();
+        assertEquals(2, statusItems.size());
+        assertEquals(TestCase.TCS_PASSED, find(statusItems, "de.tests.TestCase1").getStatus());
+        assertEquals(TestCase.TCS_FAILED, find(statusItems, "de.tests.TestCase3").getStatus());
+    }
+
+    @Test
+    public void compact() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal journal = createJournal(directory, 100, 2);
+
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_FAILED)));
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_STOPPED)));
+        journal.flush();
+
+        assertTrue(Files.exists(directory.resolve("status.json")));
+        assertEquals(0, Files.size(directory.resolve("status.journal")));
+        assertEquals(0, journal.getJournalRecords());
+
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        journal.close();
+
+        Set<StatusItem> statusItems = createJournal(directory, 100, 2).load();
+        assertEquals(2, statusItems.size());
+        assertEquals(TestCase.TCS_STOPPED, find(statusItems, "de.tests.TestCase1").getStatus());
+    }
+
+    @Test
+    public void merge() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal journal = createJournal(directory, 1, 100);
+
+        journal.append(Arrays.asList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_FAILED),
+                new StatusItem("de.tests.TestCase2", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        journal.merge(Arrays.asList(
+                new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED),
+                new StatusItem("de.tests.TestCase3", TARGET_IDENTIFIER, TestCase.TCS_FAILED)));
+
+        assertEquals(0, Files.size(directory.resolve("status.journal")));
+
+        Set<StatusItem> statusItems = createJournal(directory, 1, 100).load();
+        assertEquals(3, statusItems.size());
+        assertEquals(TestCase.TCS_PASSED, find(statusItems, "de.tests.TestCase1").getStatus());
+        assertEquals(TestCase.TCS_FAILED, find(statusItems, "de.tests.TestCase3").getStatus());
+    }
+
+    @Test
+    public void skipIncompleteRecord() throws IOException {
+        Path directory = Files.createTempDirectory("dbtest");
+        StatusJournal journal = createJournal(directory, 1, 100);
+
+        journal.append(Collections.singletonList(new StatusItem("de.tests.TestCase1", TARGET_IDENTIFIER, TestCase.TCS_PASSED)));
+        journal.close();
+        Files.write(directory.resolve("status.journal"), "{\"testCaseIdent".getBytes(), StandardOpenOption.APPEND);
+
+        assertEquals(1, journal.load().size());
+    }
+
+}